@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.annotation.processor;
+
+import com.nudroid.annotation.processor.model.DelegateClass;
+import com.nudroid.annotation.processor.model.DelegateMethod;
+import com.nudroid.annotation.processor.model.InterceptorAnnotationBlueprints;
+import com.nudroid.annotation.processor.model.MatcherUri;
+import com.nudroid.annotation.processor.model.UriToMethodBinding;
+
+import java.lang.annotation.Annotation;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+
+/**
+ * Processes the delegate annotations (i.e. Query, Insert etc.) on a class. Subclasses register the bindings of the
+ * annotated methods with the {@link MatcherUri} for the operation they process.
+ *
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+abstract class DelegateMethodProcessor {
+
+    private final Class<? extends Annotation> delegateAnnotation;
+    private final ProcessorUtils processorUtils;
+    private final LoggingUtils logger;
+
+    /**
+     * Creates an instance of this class.
+     *
+     * @param processorContext
+     *         The processor context parameter object.
+     * @param delegateAnnotation
+     *         The delegate annotation this processor processes.
+     */
+    DelegateMethodProcessor(ProcessorContext processorContext, Class<? extends Annotation> delegateAnnotation) {
+
+        this.processorUtils = processorContext.processorUtils;
+        this.logger = processorContext.logger;
+        this.delegateAnnotation = delegateAnnotation;
+    }
+
+    /**
+     * Process the delegate annotations on this round.
+     *
+     * @param roundEnv
+     *         The round environment to process.
+     * @param metadata
+     *         the Metadata model to gather the results of the processing
+     */
+    //TODO Bug on nudroid annotations: If a parameter is added to the method signature but it is not present in the queryString (and also check path) it throws a NullPointerException.
+    // details (it only Checks Long not long).
+    void process(RoundEnvironment roundEnv, Metadata metadata) {
+
+        final String annotationName = delegateAnnotation.getSimpleName();
+
+        logger.info(String.format("Start processing @%s annotations.", annotationName));
+
+        Set<? extends Element> delegateMethods = roundEnv.getElementsAnnotatedWith(delegateAnnotation);
+
+        if (delegateMethods.size() > 0) {
+
+            logger.trace(String.format("    Methods annotated with %s for the round:\n        - %s", annotationName,
+                    delegateMethods.stream()
+                            .map(Element::toString)
+                            .collect(Collectors.joining("\n        - "))));
+        }
+
+        delegateMethods.stream()
+                .filter(method -> method instanceof ExecutableElement)
+                .forEach(method -> {
+
+                    logger.trace("    Processing " + method);
+
+                    DelegateMethod delegateMethod = processDelegateMethod((ExecutableElement) method, metadata);
+
+                    if (delegateMethod != null) {
+
+                        logger.trace("    Checking for interceptors on method " + method);
+                        processInterceptorsOnMethod(delegateMethod, metadata);
+                    }
+
+                    logger.trace("    Done processing " + method);
+                });
+
+        logger.info(String.format("Done processing @%s annotations.", annotationName));
+    }
+
+    /**
+     * Registers the binding for a delegate method with the {@link MatcherUri} handling its path.
+     *
+     * @param matcherUri
+     *         the {@link MatcherUri} for the path of the delegate method
+     * @param uriToMethodBinding
+     *         the binding to register
+     * @param errorCallback
+     *         the callback for validation errors
+     */
+    abstract void registerBinding(MatcherUri matcherUri, UriToMethodBinding uriToMethodBinding,
+                                  Consumer<ValidationErrorGatherer> errorCallback);
+
+    private DelegateMethod processDelegateMethod(ExecutableElement method, Metadata metadata) {
+
+        Consumer<ValidationErrorGatherer> errorCallback = gatherer -> gatherer.logErrors(logger);
+
+        DelegateMethod delegateMethod =
+                new DelegateMethod.Builder(method, delegateAnnotation).build(this.processorUtils, errorCallback);
+        TypeElement enclosingClass = (TypeElement) method.getEnclosingElement();
+        DelegateClass delegateClass = metadata.getDelegateClassForTypeElement(enclosingClass);
+
+        if (delegateMethod != null) {
+
+            if (delegateClass == null) {
+
+                return delegateMethod;
+            }
+
+            bind(delegateClass, delegateMethod, errorCallback);
+
+            return delegateMethod;
+        }
+
+        return null;
+    }
+
+    /**
+     * Binds a delegate method to its delegate class. By default, binds the method to the {@link MatcherUri} handling
+     * its path and registers the binding with {@link #registerBinding(MatcherUri, UriToMethodBinding, Consumer)}.
+     *
+     * @param delegateClass
+     *         the delegate class declaring the method
+     * @param delegateMethod
+     *         the delegate method to bind
+     * @param errorCallback
+     *         the callback for validation errors
+     */
+    void bind(DelegateClass delegateClass, DelegateMethod delegateMethod,
+              Consumer<ValidationErrorGatherer> errorCallback) {
+
+        UriToMethodBinding uriToMethodBinding = new UriToMethodBinding.Builder(delegateMethod).build(processorUtils,
+                gatherer -> gatherer.logErrors(logger));
+
+        MatcherUri matcherUri = delegateClass.findMatcherUri(uriToMethodBinding.getPath());
+
+        if (matcherUri == null) {
+
+            matcherUri = new MatcherUri.Builder(delegateClass, uriToMethodBinding.getPath()).build(processorUtils,
+                    errorCallback);
+            delegateClass.registerMatcherUri(uriToMethodBinding.getPath(), matcherUri);
+        }
+
+        registerBinding(matcherUri, uriToMethodBinding, errorCallback);
+    }
+
+    private void processInterceptorsOnMethod(DelegateMethod delegateMethod, Metadata metadata) {
+
+        if (metadata.getInterceptorBlueprints()
+                .size() == 0) {
+            return;
+        }
+
+        List<? extends AnnotationMirror> annotationsMirrors = delegateMethod.getExecutableElement()
+                .getAnnotationMirrors();
+
+        for (AnnotationMirror mirror : annotationsMirrors) {
+
+            for (InterceptorAnnotationBlueprints concreteAnnotation : metadata.getInterceptorBlueprints()) {
+
+                logger.trace(
+                        String.format("        Checking for interceptor %s.", concreteAnnotation.getTypeElement()));
+
+                final TypeElement annotationTypeElement = concreteAnnotation.getTypeElement();
+
+                // Eclipse issue: Can't use Types.isSameType() as types will not match (even if they have the same
+                // qualified name) when Eclipse is doing incremental builds. Use qualified name for comparison instead.
+                if (mirror.getAnnotationType()
+                        .toString()
+                        .equals(annotationTypeElement.asType()
+                                .toString())) {
+
+                    delegateMethod.addInterceptor(concreteAnnotation.createInterceptor(mirror, processorUtils, logger));
+                    logger.trace(String.format("        Interceptor %s added to method.",
+                            concreteAnnotation.getInterceptorTypeElement()));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.annotation.processor;
+
+import com.nudroid.annotation.processor.model.MatcherUri;
+import com.nudroid.annotation.processor.model.UriToMethodBinding;
+import com.nudroid.annotation.provider.delegate.Delete;
+
+import java.util.function.Consumer;
+
+/**
+ * Processes the Delete annotations on a class.
+ *
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+class DeleteProcessor extends DelegateMethodProcessor {
+
+    /**
+     * Creates an instance of this class.
+     *
+     * @param processorContext
+     *         The processor context parameter object.
+     */
+    DeleteProcessor(ProcessorContext processorContext) {
+
+        super(processorContext, Delete.class);
+    }
+
+    @Override
+    void registerBinding(MatcherUri matcherUri, UriToMethodBinding uriToMethodBinding,
+                         Consumer<ValidationErrorGatherer> errorCallback) {
+
+        matcherUri.registerBindingForDelete(uriToMethodBinding, errorCallback);
+    }
+}
@@ -22,6 +22,8 @@
 
 package com.nudroid.annotation.processor;
 
+import com.nudroid.annotation.processor.model.RouterOptions;
+
 import javax.annotation.processing.ProcessingEnvironment;
 
 /**
@@ -46,6 +48,11 @@ class ProcessorContext {
      */
     final LoggingUtils logger;
 
+    /**
+     * The options for the generated routers.
+     */
+    final RouterOptions routerOptions;
+
     /**
      * Creates an instance of this parameter object.
      *
@@ -55,11 +62,15 @@ class ProcessorContext {
      *         the processor utils instance
      * @param logger
      *         the logger instance
+     * @param routerOptions
+     *         the options for the generated routers
      */
-    public ProcessorContext(ProcessingEnvironment processingEnv, ProcessorUtils processorUtils, LoggingUtils logger) {
+    public ProcessorContext(ProcessingEnvironment processingEnv, ProcessorUtils processorUtils, LoggingUtils logger,
+                            RouterOptions routerOptions) {
 
         this.processingEnv = processingEnv;
         this.processorUtils = processorUtils;
         this.logger = logger;
+        this.routerOptions = routerOptions;
     }
 }
\ No newline at end of file
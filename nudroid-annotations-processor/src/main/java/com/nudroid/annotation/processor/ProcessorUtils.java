@@ -22,12 +22,16 @@
 
 package com.nudroid.annotation.processor;
 
+import android.content.ContentValues;
 import android.content.Context;
 import android.net.Uri;
+import android.os.Bundle;
+import android.os.ParcelFileDescriptor;
 
 import com.nudroid.provider.interceptor.ContentProviderInterceptor;
 
 import java.util.Map;
+import java.util.concurrent.Future;
 
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.AnnotationValue;
@@ -38,6 +42,7 @@ import javax.lang.model.element.Modifier;
 import javax.lang.model.element.PackageElement;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
@@ -56,6 +61,12 @@ public class ProcessorUtils {
     private final TypeMirror CONTENT_PROVIDER_INTERCEPTOR_TYPE_MIRROR;
     private final ArrayType STRING_ARRAY_TYPE_MIRROR;
     private final TypeMirror ANDROID_URI_TYPE_MIRROR;
+    private final TypeMirror ANDROID_CONTENT_VALUES_TYPE_MIRROR;
+    private final ArrayType ANDROID_CONTENT_VALUES_ARRAY_TYPE_MIRROR;
+    private final ArrayType LONG_ARRAY_TYPE_MIRROR;
+    private final TypeMirror FUTURE_TYPE_MIRROR;
+    private final TypeMirror ANDROID_PARCEL_FILE_DESCRIPTOR_TYPE_MIRROR;
+    private final TypeMirror ANDROID_BUNDLE_TYPE_MIRROR;
 
     public ProcessorUtils(Types typeUtils, Elements elementUtils) {
 
@@ -67,12 +78,23 @@ public class ProcessorUtils {
         TypeElement contentProviderInterceptorType =
                 elementUtils.getTypeElement(ContentProviderInterceptor.class.getName());
         TypeElement androidUriType = elementUtils.getTypeElement(Uri.class.getName());
+        TypeElement androidContentValuesType = elementUtils.getTypeElement(ContentValues.class.getName());
 
         this.ANDROID_CONTEXT_TYPE_MIRROR = androidContextType.asType();
         this.STRING_TYPE_MIRROR = stringType.asType();
         this.STRING_ARRAY_TYPE_MIRROR = typeUtils.getArrayType(STRING_TYPE_MIRROR);
         this.CONTENT_PROVIDER_INTERCEPTOR_TYPE_MIRROR = contentProviderInterceptorType.asType();
         this.ANDROID_URI_TYPE_MIRROR = androidUriType.asType();
+        this.ANDROID_CONTENT_VALUES_TYPE_MIRROR = androidContentValuesType.asType();
+        this.ANDROID_CONTENT_VALUES_ARRAY_TYPE_MIRROR = typeUtils.getArrayType(ANDROID_CONTENT_VALUES_TYPE_MIRROR);
+        this.LONG_ARRAY_TYPE_MIRROR = typeUtils.getArrayType(typeUtils.getPrimitiveType(TypeKind.LONG));
+        this.FUTURE_TYPE_MIRROR = typeUtils.erasure(elementUtils.getTypeElement(Future.class.getName())
+                .asType());
+        this.ANDROID_PARCEL_FILE_DESCRIPTOR_TYPE_MIRROR =
+                elementUtils.getTypeElement(ParcelFileDescriptor.class.getName())
+                        .asType();
+        this.ANDROID_BUNDLE_TYPE_MIRROR = elementUtils.getTypeElement(Bundle.class.getName())
+                .asType();
     }
 
     /**
@@ -94,6 +116,24 @@ public class ProcessorUtils {
                         .asType());
     }
 
+    /**
+     * Checks if the type element is the given class or one of its subclasses.
+     *
+     * @param element
+     *         the element to check
+     * @param superclass
+     *         the Class to check
+     *
+     * @return <tt>true</tt> if it is, <tt>false</tt> otherwise
+     */
+    public boolean isSubclassOf(TypeElement element, Class<?> superclass) {
+
+        TypeElement superclassType = elementUtils.getTypeElement(superclass.getName());
+
+        return superclassType != null && typeUtils.isSubtype(typeUtils.erasure(element.asType()),
+                typeUtils.erasure(superclassType.asType()));
+    }
+
     /**
      * Given a type element, construct a valid java identifier composed of every enclosing class.
      * <p>
@@ -191,6 +231,19 @@ public class ProcessorUtils {
         return typeUtils.isSameType(type, STRING_ARRAY_TYPE_MIRROR);
     }
 
+    /**
+     * Checks if the provided type mirror is an array of primitive longs.
+     *
+     * @param type
+     *         the type to check
+     *
+     * @return @return <tt>true</tt> if it is, <tt>false</tt> otherwise
+     */
+    public boolean isArrayOfLongs(TypeMirror type) {
+
+        return typeUtils.isSameType(type, LONG_ARRAY_TYPE_MIRROR);
+    }
+
     /**
      * Checks if the provided type mirror is an String.
      *
@@ -245,6 +298,72 @@ public class ProcessorUtils {
         return typeUtils.isSameType(type, ANDROID_URI_TYPE_MIRROR);
     }
 
+    /**
+     * Checks if the provided type mirror is an Android ContentValues (android.content.ContentValues).
+     *
+     * @param type
+     *         the type to check
+     *
+     * @return @return <tt>true</tt> if it is, <tt>false</tt> otherwise
+     */
+    public boolean isAndroidContentValues(TypeMirror type) {
+
+        return typeUtils.isSameType(type, ANDROID_CONTENT_VALUES_TYPE_MIRROR);
+    }
+
+    /**
+     * Checks if the provided type mirror is an array of Android ContentValues (android.content.ContentValues).
+     *
+     * @param type
+     *         the type to check
+     *
+     * @return @return <tt>true</tt> if it is, <tt>false</tt> otherwise
+     */
+    public boolean isArrayOfAndroidContentValues(TypeMirror type) {
+
+        return typeUtils.isSameType(type, ANDROID_CONTENT_VALUES_ARRAY_TYPE_MIRROR);
+    }
+
+    /**
+     * Checks if the provided type mirror is a java.util.concurrent.Future, regardless of its type argument.
+     *
+     * @param type
+     *         the type to check
+     *
+     * @return @return <tt>true</tt> if it is, <tt>false</tt> otherwise
+     */
+    public boolean isFuture(TypeMirror type) {
+
+        return type.getKind() == TypeKind.DECLARED && typeUtils.isSameType(typeUtils.erasure(type),
+                FUTURE_TYPE_MIRROR);
+    }
+
+    /**
+     * Checks if the provided type mirror is an Android ParcelFileDescriptor (android.os.ParcelFileDescriptor).
+     *
+     * @param type
+     *         the type to check
+     *
+     * @return @return <tt>true</tt> if it is, <tt>false</tt> otherwise
+     */
+    public boolean isAndroidParcelFileDescriptor(TypeMirror type) {
+
+        return typeUtils.isSameType(type, ANDROID_PARCEL_FILE_DESCRIPTOR_TYPE_MIRROR);
+    }
+
+    /**
+     * Checks if the provided type mirror is an Android Bundle (android.os.Bundle).
+     *
+     * @param type
+     *         the type to check
+     *
+     * @return @return <tt>true</tt> if it is, <tt>false</tt> otherwise
+     */
+    public boolean isAndroidBundle(TypeMirror type) {
+
+        return typeUtils.isSameType(type, ANDROID_BUNDLE_TYPE_MIRROR);
+    }
+
     /**
      * Checks if two types are the same.
      *
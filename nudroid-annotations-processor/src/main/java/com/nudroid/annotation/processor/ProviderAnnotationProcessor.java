@@ -22,6 +22,8 @@
 
 package com.nudroid.annotation.processor;
 
+import com.nudroid.annotation.processor.model.RouterOptions;
+
 import java.util.Set;
 
 import javax.annotation.processing.AbstractProcessor;
@@ -44,14 +46,20 @@ import javax.lang.model.util.Types;
  * <tt>com.nudroid.annotation.processor.log.level</tt>.</p> <p> <p>The logging level can either be configured through a
  * processor property (with the -A option) or a system property (with a -D option). Processor property configuration
  * takes precedence over the system property.</p>
+ * <h1>Router options</h1> <p>The code generated for the routers can be tuned with the options listed in {@link
+ * RouterOptions}, configured the same way as the logging level.</p>
  */
 @SupportedAnnotationTypes(
-        {"com.nudroid.annotation.provider.delegate.ContentProvider", "com.nudroid.annotation.provider.delegate.Delete",
-                "com.nudroid.annotation.provider.delegate.Insert", "com.nudroid.annotation.provider.delegate.Query",
+        {"com.nudroid.annotation.provider.delegate.BulkInsert", "com.nudroid.annotation.provider.delegate.Call",
+                "com.nudroid.annotation.provider.delegate.ContentProvider", "com.nudroid.annotation.provider.delegate.Delete",
+                "com.nudroid.annotation.provider.delegate.Insert", "com.nudroid.annotation.provider.delegate.MimeType",
+                "com.nudroid.annotation.provider.delegate.OpenFile", "com.nudroid.annotation.provider.delegate.Query",
                 "com.nudroid.annotation.provider.delegate.Update",
                 "com.nudroid.annotation.provider.delegate.intercept.InterceptorPointcut"})
 @SupportedSourceVersion(SourceVersion.RELEASE_7)
-@SupportedOptions({"com.nudroid.annotation.processor.log.level"})
+@SupportedOptions({"com.nudroid.annotation.processor.log.level", RouterOptions.CONTEXT_POOL_OPTION,
+        RouterOptions.CONTEXT_POOL_SIZE_OPTION, RouterOptions.ROUTE_METRICS_OPTION,
+        RouterOptions.TRACING_OPTION, RouterOptions.PROVIDER_INIT_OPTION})
 // TODO To avoid class name conflicts, use the annotated classes package and append .generated_ instead of creating
 // all classes on same package
 public class ProviderAnnotationProcessor extends AbstractProcessor {
@@ -64,6 +72,12 @@ public class ProviderAnnotationProcessor extends AbstractProcessor {
 
     private ContentProviderProcessor contentProviderProcessor;
     private QueryProcessor queryProcessor;
+    private InsertProcessor insertProcessor;
+    private BulkInsertProcessor bulkInsertProcessor;
+    private UpdateProcessor updateProcessor;
+    private DeleteProcessor deleteProcessor;
+    private OpenFileProcessor openFileProcessor;
+    private CallProcessor callProcessor;
     private InterceptorPointcutProcessor interceptorPointcutProcessor;
 
     private SourceCodeWriter sourceCodeWriter;
@@ -100,10 +114,20 @@ public class ProviderAnnotationProcessor extends AbstractProcessor {
         Elements elementUtils = env.getElementUtils();
         Types typeUtils = env.getTypeUtils();
 
+        RouterOptions routerOptions = RouterOptions.fromProcessorOptions(env.getOptions(), logger);
+        logger.debug("Router options: " + routerOptions);
+
         final ProcessorContext processorContext =
-                new ProcessorContext(processingEnv, new ProcessorUtils(typeUtils, elementUtils), logger);
+                new ProcessorContext(processingEnv, new ProcessorUtils(typeUtils, elementUtils), logger,
+                        routerOptions);
         contentProviderProcessor = new ContentProviderProcessor(processorContext);
         queryProcessor = new QueryProcessor(processorContext);
+        insertProcessor = new InsertProcessor(processorContext);
+        bulkInsertProcessor = new BulkInsertProcessor(processorContext);
+        updateProcessor = new UpdateProcessor(processorContext);
+        deleteProcessor = new DeleteProcessor(processorContext);
+        openFileProcessor = new OpenFileProcessor(processorContext);
+        callProcessor = new CallProcessor(processorContext);
         interceptorPointcutProcessor = new InterceptorPointcutProcessor(processorContext);
         sourceCodeWriter = new SourceCodeWriter(processorContext);
         metadata = new Metadata();
@@ -132,6 +156,12 @@ public class ProviderAnnotationProcessor extends AbstractProcessor {
         interceptorPointcutProcessor.process(roundEnv, metadata);
         contentProviderProcessor.process(roundEnv, metadata);
         queryProcessor.process(roundEnv, metadata);
+        insertProcessor.process(roundEnv, metadata);
+        bulkInsertProcessor.process(roundEnv, metadata);
+        updateProcessor.process(roundEnv, metadata);
+        deleteProcessor.process(roundEnv, metadata);
+        openFileProcessor.process(roundEnv, metadata);
+        callProcessor.process(roundEnv, metadata);
 
         sourceCodeWriter.generateCompanionSourceCode(metadata);
 
@@ -22,33 +22,18 @@
 
 package com.nudroid.annotation.processor;
 
-import com.nudroid.annotation.processor.model.DelegateClass;
-import com.nudroid.annotation.processor.model.DelegateMethod;
-import com.nudroid.annotation.processor.model.InterceptorAnnotationBlueprints;
 import com.nudroid.annotation.processor.model.MatcherUri;
 import com.nudroid.annotation.processor.model.UriToMethodBinding;
 import com.nudroid.annotation.provider.delegate.Query;
 
-import java.util.List;
-import java.util.Set;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
-
-import javax.annotation.processing.RoundEnvironment;
-import javax.lang.model.element.AnnotationMirror;
-import javax.lang.model.element.Element;
-import javax.lang.model.element.ExecutableElement;
-import javax.lang.model.element.TypeElement;
 
 /**
  * Processes the Query annotations on a class.
  *
  * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
  */
-class QueryProcessor {
-
-    private final ProcessorUtils processorUtils;
-    private final LoggingUtils logger;
+class QueryProcessor extends DelegateMethodProcessor {
 
     /**
      * Creates an instance of this class.
@@ -58,121 +43,13 @@ class QueryProcessor {
      */
     QueryProcessor(ProcessorContext processorContext) {
 
-        this.processorUtils = processorContext.processorUtils;
-        this.logger = processorContext.logger;
-    }
-
-    /**
-     * Process the {@link Query} annotations on this round.
-     *
-     * @param roundEnv
-     *         The round environment to process.
-     * @param metadata
-     *         the Metadata model to gather the results of the processing
-     */
-    //TODO Bug on nudroid annotations: If a parameter is added to the method signature but it is not present in the queryString (and also check path) it throws a NullPointerException.
-    // details (it only Checks Long not long).
-    void process(RoundEnvironment roundEnv, Metadata metadata) {
-
-        logger.info("Start processing @Query annotations.");
-
-        Set<? extends Element> queryMethods = roundEnv.getElementsAnnotatedWith(Query.class);
-
-        if (queryMethods.size() > 0) {
-
-            logger.trace(String.format("    Methods annotated with %s for the round:\n        - %s",
-                    Query.class.getSimpleName(), queryMethods.stream()
-                            .map(Element::toString)
-                            .collect(Collectors.joining("\n        - "))));
-        }
-
-        queryMethods.stream()
-                .filter(queryMethod -> queryMethod instanceof ExecutableElement)
-                .forEach(queryMethod -> {
-
-                    logger.trace("    Processing " + queryMethod);
-
-                    DelegateMethod delegateMethod = processQueryOnMethod((ExecutableElement) queryMethod, metadata);
-
-                    if (delegateMethod != null) {
-
-                        logger.trace("    Checking for interceptors on method " + queryMethod);
-                        processInterceptorsOnMethod(delegateMethod, metadata);
-                    }
-
-                    logger.trace("    Done processing " + queryMethod);
-                });
-
-        logger.info("Done processing @Query annotations.");
+        super(processorContext, Query.class);
     }
 
-    private DelegateMethod processQueryOnMethod(ExecutableElement queryMethod, Metadata metadata) {
-
-        Consumer<ValidationErrorGatherer> errorCallback = gatherer -> gatherer.logErrors(logger);
-
-        DelegateMethod delegateMethod =
-                new DelegateMethod.Builder(queryMethod).build(this.processorUtils, errorCallback);
-        TypeElement enclosingClass = (TypeElement) queryMethod.getEnclosingElement();
-        DelegateClass delegateClass = metadata.getDelegateClassForTypeElement(enclosingClass);
-
-        if (delegateMethod != null) {
-
-            if (delegateClass == null) {
-
-                return delegateMethod;
-            }
-
-            UriToMethodBinding uriToMethodBinding = new UriToMethodBinding.Builder(delegateMethod).build(processorUtils,
-                    gatherer -> gatherer.logErrors(logger));
-
-            MatcherUri matcherUri = delegateClass.findMatcherUri(uriToMethodBinding.getPath());
-
-            if (matcherUri == null) {
-
-                matcherUri = new MatcherUri.Builder(delegateClass.getAuthority(), uriToMethodBinding.getPath()).build(
-                        processorUtils, errorCallback);
-                delegateClass.registerMatcherUri(uriToMethodBinding.getPath(), matcherUri);
-            }
-
-            matcherUri.registerBindingForQuery(uriToMethodBinding, errorCallback);
-
-            return delegateMethod;
-        }
-
-        return null;
-    }
-
-    private void processInterceptorsOnMethod(DelegateMethod delegateMethod, Metadata metadata) {
-
-        if (metadata.getInterceptorBlueprints()
-                .size() == 0) {
-            return;
-        }
-
-        List<? extends AnnotationMirror> annotationsMirrors = delegateMethod.getExecutableElement()
-                .getAnnotationMirrors();
-
-        for (AnnotationMirror mirror : annotationsMirrors) {
-
-            for (InterceptorAnnotationBlueprints concreteAnnotation : metadata.getInterceptorBlueprints()) {
-
-                logger.trace(
-                        String.format("        Checking for interceptor %s.", concreteAnnotation.getTypeElement()));
-
-                final TypeElement annotationTypeElement = concreteAnnotation.getTypeElement();
-
-                // Eclipse issue: Can't use Types.isSameType() as types will not match (even if they have the same
-                // qualified name) when Eclipse is doing incremental builds. Use qualified name for comparison instead.
-                if (mirror.getAnnotationType()
-                        .toString()
-                        .equals(annotationTypeElement.asType()
-                                .toString())) {
+    @Override
+    void registerBinding(MatcherUri matcherUri, UriToMethodBinding uriToMethodBinding,
+                         Consumer<ValidationErrorGatherer> errorCallback) {
 
-                    delegateMethod.addInterceptor(concreteAnnotation.createInterceptor(mirror, processorUtils, logger));
-                    logger.trace(String.format("        Interceptor %s added to method.",
-                            concreteAnnotation.getInterceptorTypeElement()));
-                }
-            }
-        }
+        matcherUri.registerBindingForQuery(uriToMethodBinding, errorCallback);
     }
 }
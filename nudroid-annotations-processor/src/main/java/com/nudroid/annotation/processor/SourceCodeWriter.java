@@ -24,6 +24,7 @@ package com.nudroid.annotation.processor;
 
 import com.nudroid.annotation.processor.model.DelegateClass;
 import com.nudroid.annotation.processor.model.InterceptorAnnotationBlueprints;
+import com.nudroid.annotation.processor.model.RouterOptions;
 
 import org.stringtemplate.v4.ST;
 import org.stringtemplate.v4.STGroupFile;
@@ -45,6 +46,7 @@ class SourceCodeWriter {
 
     private final LoggingUtils logger;
     private final Filer filer;
+    private final RouterOptions routerOptions;
 
     private static final String CONTENT_PROVIDER_ROUTER_TEMPLATE_LOCATION =
             "com/nudroid/annotation/processor/RouterTemplate.stg";
@@ -69,6 +71,7 @@ class SourceCodeWriter {
         ProcessingEnvironment mProcessingEnv = processorContext.processingEnv;
         this.logger = processorContext.logger;
         this.filer = mProcessingEnv.getFiler();
+        this.routerOptions = processorContext.routerOptions;
     }
 
     /**
@@ -119,6 +122,7 @@ class SourceCodeWriter {
             ST st = g.getInstanceOf(CONTENT_PROVIDER_TEMPLATE_NAME);
             st.add("delegateClass", delegateClass);
             st.add("packageName", packageName);
+            st.add("options", routerOptions);
             String result = st.render();
 
             JavaFileObject javaFile;
@@ -147,6 +151,7 @@ class SourceCodeWriter {
             ST st = g.getInstanceOf(CONTENT_PROVIDER_ROUTER_TEMPLATE_NAME);
             st.add("delegateClass", delegateClass);
             st.add("packageName", packageName);
+            st.add("options", routerOptions);
             String result = st.render();
 
             JavaFileObject javaFile;
@@ -29,6 +29,8 @@ import com.nudroid.annotation.processor.ValidationErrorGatherer;
 import java.util.function.Consumer;
 
 import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
 
 /**
  * An annotation element definition.
@@ -47,12 +49,16 @@ public class AnnotationElement {
     private String type;
     private String name;
     private String capitalizedName;
+    private boolean isArray;
+    private String boxedType;
 
-    private AnnotationElement(String type, String name, String capitalizedName) {
+    private AnnotationElement(String type, String name, String capitalizedName, boolean isArray, String boxedType) {
 
         this.type = type;
         this.name = name;
         this.capitalizedName = capitalizedName;
+        this.isArray = isArray;
+        this.boxedType = boxedType;
     }
 
     /**
@@ -88,12 +94,59 @@ public class AnnotationElement {
         return capitalizedName;
     }
 
+    /**
+     * Checks if this element returns an array.
+     *
+     * @return <tt>true</tt> if it does, <tt>false</tt> otherwise
+     */
+    @UsedBy("ConcreteAnnotationTemplate.stg")
+    public boolean isArray() {
+
+        return isArray;
+    }
+
+    /**
+     * Checks if this element returns a primitive type.
+     *
+     * @return <tt>true</tt> if it does, <tt>false</tt> otherwise
+     */
+    @UsedBy("ConcreteAnnotationTemplate.stg")
+    public boolean isPrimitive() {
+
+        return boxedType != null;
+    }
+
+    /**
+     * Gets the wrapper class of the primitive type returned by this element.
+     *
+     * @return the wrapper class name, or <tt>null</tt> if this element does not return a primitive type
+     */
+    @UsedBy("ConcreteAnnotationTemplate.stg")
+    public String getBoxedType() {
+
+        return boxedType;
+    }
+
+    /**
+     * Gets the hash code of the element name as defined by {@link java.lang.annotation.Annotation#hashCode()}, i.e. 127
+     * times the hash code of the name. It is computed at compile time so the concrete annotation doesn't have to.
+     *
+     * @return the hash code of the element name
+     */
+    @UsedBy("ConcreteAnnotationTemplate.stg")
+    public int getNameHashCode() {
+
+        return 127 * name.hashCode();
+    }
+
     @Override
     public String toString() {
         return "AnnotationElement{" +
                 "type='" + type + '\'' +
                 ", name='" + name + '\'' +
                 ", capitalizedName='" + capitalizedName + '\'' +
+                ", isArray=" + isArray +
+                ", boxedType='" + boxedType + '\'' +
                 '}';
     }
 
@@ -105,6 +158,8 @@ public class AnnotationElement {
         private final String type;
         private final String name;
         private final String capitalizedName;
+        private final boolean isArray;
+        private final String boxedType;
 
         /**
          * Initializes the builder.
@@ -121,6 +176,10 @@ public class AnnotationElement {
                     .toString();
             this.name = methodName;
             this.capitalizedName = Character.toUpperCase(methodName.charAt(0)) + methodName.substring(1);
+
+            final TypeMirror returnType = annotationMethod.getReturnType();
+            this.isArray = returnType.getKind() == TypeKind.ARRAY;
+            this.boxedType = boxedTypeOf(returnType.getKind());
         }
 
         /**
@@ -130,7 +189,31 @@ public class AnnotationElement {
          */
         public AnnotationElement build(ProcessorUtils processorUtils, Consumer<ValidationErrorGatherer> errorCallback) {
 
-            return new AnnotationElement(this.type, this.name, this.capitalizedName);
+            return new AnnotationElement(this.type, this.name, this.capitalizedName, this.isArray, this.boxedType);
+        }
+
+        private static String boxedTypeOf(TypeKind kind) {
+
+            switch (kind) {
+                case BOOLEAN:
+                    return Boolean.class.getName();
+                case BYTE:
+                    return Byte.class.getName();
+                case SHORT:
+                    return Short.class.getName();
+                case CHAR:
+                    return Character.class.getName();
+                case INT:
+                    return Integer.class.getName();
+                case LONG:
+                    return Long.class.getName();
+                case FLOAT:
+                    return Float.class.getName();
+                case DOUBLE:
+                    return Double.class.getName();
+                default:
+                    return null;
+            }
         }
     }
 }
@@ -28,15 +28,23 @@ import com.nudroid.annotation.processor.ProcessorUtils;
 import com.nudroid.annotation.processor.UsedBy;
 import com.nudroid.annotation.processor.ValidationErrorGatherer;
 import com.nudroid.annotation.provider.delegate.ContentProvider;
+import com.nudroid.annotation.provider.delegate.MimeType;
 import com.nudroid.provider.delegate.ContentProviderDelegate;
+import com.nudroid.provider.delegate.TransactionalContentProviderDelegate;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableSet;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ExecutableElement;
@@ -59,31 +67,20 @@ public class DelegateClass {
     private String routerSimpleName;
     private Authority authority;
     private boolean implementsDelegateInterface;
+    private boolean implementsTransactionalDelegateInterface;
+    private String defaultMimeType;
     private int matcherUriIdCount = 0;
 
     private final Map<String, MatcherUri> matcherUriRegistry = new HashMap<>();
+    private final PathSegmentNode pathSegmentTree = PathSegmentNode.newTree();
 
-    /* UriMatcher has an undocumented matching algorithm. It will match the first path segment (in the order they have
-     * been added) and ignore the rest of the entries even if the selected match fails on a later stage. For example:
-     *
-     *     * / *
-     *     page / * / *
-     *
-     * will not match 'page/section/33'. 'page' will match the first '*' so UriMatcher will try to use that entry to
-     * validate the path. Since the path has three segments while the pattern only has 2, it will fail but it WILL NOT
-     * try to match against the next (and correct) pattern.
-     *
-     * However, if we add these URIs in reverse order:
-     *
-     *     page / * / *
-     *     * / *
-     *
-     * Then it will match since the first entry will be selected. Basically, it traverses the list of patterns and stops
-     * as soon as it finds an entry whose first item match the input string.
-     *
-     * The sorting algorithm below sorts the entries by placing literal segments on top of the list based on where
-     * they appear in the pth. The closer to the beginning of the path, the higher their priority. Paths with the
-     * same priority are then sorted by path segment length.
+    /* @Call methods, sorted by call method name to keep the generated switch stable. */
+    private final Map<String, DelegateMethod> callMethods = new TreeMap<>();
+
+    /* URIs are sorted by placing literal segments on top of the list based on where they appear in the path. The closer
+     * to the beginning of the path, the higher their priority. Paths with the same priority are then sorted by path
+     * segment length. This keeps the generated code stable and readable. Matching itself is done by the path segment
+     * tree, which does not depend on this order.
      *
      * Uris will be sorted as they are added to this set by the provided closure.
      */
@@ -147,6 +144,17 @@ public class DelegateClass {
      */
     public String getQualifiedName() { return qualifiedName; }
 
+    /**
+     * Gets the simple name of the delegate class (i.e. without the package name).
+     *
+     * @return the simple name of the delegate class
+     */
+    @UsedBy("RouterTemplate.stg")
+    public String getSimpleName() {
+        return typeElement.getSimpleName()
+                .toString();
+    }
+
     /**
      * Gets the name of the package.
      *
@@ -186,14 +194,185 @@ public class DelegateClass {
     public boolean getImplementsContentProviderDelegateInterface() { return implementsDelegateInterface; }
 
     /**
-     * Gets the URIs this delegate class is responsible for handling. URIs are sorted to avoid conflicts when
-     * registering them with UriMatcher.
+     * Checks if this delegate class implements the {@link TransactionalContentProviderDelegate} interface.
+     *
+     * @return <tt>true</tt> if it does, <tt>false</tt> otherwise.
+     */
+    @UsedBy({"RouterTemplateInsert.stg", "RouterTemplateBatch.stg"})
+    public boolean getImplementsTransactionalContentProviderDelegateInterface() {
+        return implementsTransactionalDelegateInterface;
+    }
+
+    /**
+     * Gets the URIs this delegate class is responsible for handling. URIs are sorted with literal path segments first.
      *
      * @return the {@link MatcherUri}s this delegate class handles
      */
     @UsedBy({"ContentProviderTemplate.stg", "RouterTemplateQuery.stg", "RouterTemplateUpdate.stg"})
     public NavigableSet<MatcherUri> getMatcherUris() { return matcherUris; }
 
+    /**
+     * Gets the root of the path segment tree built from the URIs this delegate class handles. The router uses this tree
+     * to match an incoming URI against all paths in a single pass over its segments.
+     *
+     * @return the root node of the path segment tree
+     */
+    @UsedBy("RouterTemplate.stg")
+    public PathSegmentNode getPathSegmentTree() { return pathSegmentTree; }
+
+    /**
+     * Gets the URIs handled by a @BulkInsert method of this class which opts in to batch grouping. Batches group
+     * consecutive inserts on these URIs into a single bulk insert.
+     *
+     * @return the {@link MatcherUri}s with @BulkInsert(groupBatchInserts = true) bindings
+     */
+    @UsedBy("RouterTemplateBatch.stg")
+    public List<MatcherUri> getBulkInsertMatcherUris() {
+
+        return matcherUris.stream()
+                .filter(matcherUri -> matcherUri.getBulkInsertBindings()
+                        .stream()
+                        .anyMatch(binding -> binding.getDelegateMethod()
+                                .isGroupBatchInserts()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Checks if any URI handled by this class resolves to a MIME type, either declared by its delegate methods or by
+     * the class level @MimeType annotation.
+     *
+     * @return <tt>true</tt> if the router must generate a MIME type table, <tt>false</tt> otherwise
+     */
+    @UsedBy("RouterTemplate.stg")
+    public boolean getHasMimeTypes() {
+
+        return defaultMimeType != null || matcherUris.stream()
+                .anyMatch(matcherUri -> matcherUri.getMimeType() != null);
+    }
+
+    /**
+     * Gets the MIME types of the URIs handled by this class as Java literals, indexed by {@link MatcherUri#getId()}.
+     * URIs without a MIME type of their own fall back to the class level @MimeType, or <tt>null</tt> if there is none.
+     * URIs only handled by @OpenFile methods never fall back: the class level type describes cursors, not files.
+     *
+     * @return the MIME type literals, one per URI, in id order
+     */
+    @UsedBy("RouterTemplate.stg")
+    public List<String> getMimeTypeLiterals() {
+
+        List<String> literals = new ArrayList<>(matcherUriIdCount);
+
+        for (int i = 0; i < matcherUriIdCount; i++) {
+
+            literals.add(null);
+        }
+
+        for (MatcherUri matcherUri : matcherUris) {
+
+            String mimeType = matcherUri.getMimeType() != null || matcherUri.isFileOnly() ? matcherUri.getMimeType() :
+                    defaultMimeType;
+            literals.set(matcherUri.getId(), mimeType != null ? '"' + mimeType + '"' : "null");
+        }
+
+        return literals;
+    }
+
+    /**
+     * Gets all the bindings of this class, i.e. the routes of its router. The position of a binding in this list is
+     * its route index, used by the router to keep per-route metrics.
+     *
+     * @return the bindings of this class, grouped by URI in id order
+     */
+    @UsedBy("RouterTemplate.stg")
+    public List<UriToMethodBinding> getRouteBindings() {
+
+        return matcherUris.stream()
+                .flatMap(MatcherUri::allBindings)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Checks if any @Query method of this class returns a Future, requiring the router to call it on the authority's
+     * DelegateExecutor.
+     *
+     * @return <tt>true</tt> if a delegate method returns a Future, <tt>false</tt> otherwise
+     */
+    @UsedBy("RouterTemplate.stg")
+    public boolean getHasFutureResults() {
+
+        return matcherUris.stream()
+                .flatMap(MatcherUri::allBindings)
+                .anyMatch(binding -> binding.getDelegateMethod()
+                        .isFutureResult());
+    }
+
+    /**
+     * Checks if this class has @OpenFile methods, requiring the content provider to override openFile.
+     *
+     * @return <tt>true</tt> if a delegate method is annotated with @OpenFile, <tt>false</tt> otherwise
+     */
+    @UsedBy({"RouterTemplate.stg", "ContentProviderTemplate.stg"})
+    public boolean getHasOpenFileBindings() {
+
+        return matcherUris.stream()
+                .anyMatch(matcherUri -> !matcherUri.getOpenFileBindings()
+                        .isEmpty());
+    }
+
+    /**
+     * Gets the @Call methods of this class, sorted by call method name.
+     *
+     * @return the @Call methods of this class
+     */
+    @UsedBy("RouterTemplateCall.stg")
+    public Collection<DelegateMethod> getCallMethods() {
+
+        return callMethods.values();
+    }
+
+    /**
+     * Checks if this class has @Call methods, requiring the content provider to override call.
+     *
+     * @return <tt>true</tt> if a delegate method is annotated with @Call, <tt>false</tt> otherwise
+     */
+    @UsedBy({"RouterTemplate.stg", "ContentProviderTemplate.stg"})
+    public boolean getHasCallMethods() {
+
+        return !callMethods.isEmpty();
+    }
+
+    /**
+     * Gets all the interceptors applied to the delegate methods of this class. The router keeps one field per
+     * interceptor to reuse its instances across requests.
+     *
+     * @return the interceptors applied to the delegate methods of this class
+     */
+    @UsedBy("RouterTemplate.stg")
+    public List<Interceptor> getInterceptors() {
+
+        return Stream.concat(matcherUris.stream()
+                .flatMap(MatcherUri::allBindings)
+                .map(UriToMethodBinding::getDelegateMethod), callMethods.values()
+                .stream())
+                .flatMap(delegateMethod -> delegateMethod.getBeforeInterceptorList()
+                        .stream())
+                .sorted(Comparator.comparing(Interceptor::getId))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Checks if a query cache interceptor is applied to a delegate method of this class, requiring the router to
+     * invalidate the query cache of the authority on every write.
+     *
+     * @return <tt>true</tt> if a QueryCacheInterceptor is applied, <tt>false</tt> otherwise
+     */
+    @UsedBy("RouterTemplate.stg")
+    public boolean getHasQueryCache() {
+
+        return getInterceptors().stream()
+                .anyMatch(Interceptor::isQueryCache);
+    }
+
     /**
      * Checks if a {@link MatcherUri} has already been created for the provided path. If yes, returns that instance. If
      * not, a new instance is created, registered and returned.
@@ -220,6 +399,44 @@ public class DelegateClass {
 
         matcherUris.add(matcherUri);
         matcherUriRegistry.put(path, matcherUri);
+        pathSegmentTree.addMatcherUri(matcherUri);
+    }
+
+    /**
+     * Registers a @Call method on this delegate class.
+     *
+     * @param delegateMethod
+     *         the @Call method
+     * @param errorCallback
+     *         the callback for validation errors
+     */
+    public void registerCallMethod(DelegateMethod delegateMethod, Consumer<ValidationErrorGatherer> errorCallback) {
+
+        DelegateMethod existingMethod = callMethods.get(delegateMethod.getCallMethodName());
+
+        if (existingMethod != null) {
+
+            ValidationErrorGatherer gatherer = new ValidationErrorGatherer();
+            gatherer.gatherError(String.format("Call method '%s' has already been registered by method %s",
+                            delegateMethod.getCallMethodName(), existingMethod.getExecutableElement()),
+                    delegateMethod.getExecutableElement(), LoggingUtils.LogLevel.ERROR);
+
+            errorCallback.accept(gatherer);
+            return;
+        }
+
+        callMethods.put(delegateMethod.getCallMethodName(), delegateMethod);
+    }
+
+    /**
+     * Reserves the id of the next {@link MatcherUri} created for this class. Ids are sequential and start at 0 so the
+     * router can index per-URI tables by id.
+     *
+     * @return the id for the new MatcherUri
+     */
+    int nextMatcherUriId() {
+
+        return matcherUriIdCount++;
     }
 
     @Override
@@ -231,8 +448,11 @@ public class DelegateClass {
                 ", routerSimpleName='" + routerSimpleName + '\'' +
                 ", authority=" + authority +
                 ", implementsDelegateInterface=" + implementsDelegateInterface +
+                ", implementsTransactionalDelegateInterface=" + implementsTransactionalDelegateInterface +
+                ", defaultMimeType='" + defaultMimeType + '\'' +
                 ", matcherUriIdCount=" + matcherUriIdCount +
                 ", matcherUris=" + matcherUris +
+                ", callMethods=" + callMethods +
                 '}';
     }
 
@@ -313,6 +533,25 @@ public class DelegateClass {
                 delegateClass.implementsDelegateInterface = true;
             }
 
+            if (processorUtils.implementsInterface(this.delegateClassTypeElement,
+                    TransactionalContentProviderDelegate.class)) {
+                delegateClass.implementsTransactionalDelegateInterface = true;
+            }
+
+            MimeType mimeTypeAnnotation = this.delegateClassTypeElement.getAnnotation(MimeType.class);
+
+            if (mimeTypeAnnotation != null) {
+
+                if (MatcherUri.isValidMimeType(mimeTypeAnnotation.value())) {
+
+                    delegateClass.defaultMimeType = mimeTypeAnnotation.value();
+                } else {
+
+                    gatherer.gatherError(String.format("'%s' is not a valid MIME type", mimeTypeAnnotation.value()),
+                            this.delegateClassTypeElement, LoggingUtils.LogLevel.ERROR);
+                }
+            }
+
             delegateClass.routerSimpleName = routerSimpleName;
             delegateClass.contentProviderSimpleName = providerSimpleName;
 
@@ -26,17 +26,28 @@ import com.nudroid.annotation.processor.LoggingUtils;
 import com.nudroid.annotation.processor.ProcessorUtils;
 import com.nudroid.annotation.processor.UsedBy;
 import com.nudroid.annotation.processor.ValidationErrorGatherer;
+import com.nudroid.annotation.provider.delegate.BulkInsert;
+import com.nudroid.annotation.provider.delegate.Call;
+import com.nudroid.annotation.provider.delegate.CallArg;
+import com.nudroid.annotation.provider.delegate.CallExtras;
 import com.nudroid.annotation.provider.delegate.ContentProvider;
+import com.nudroid.annotation.provider.delegate.ContentValuesRef;
+import com.nudroid.annotation.provider.delegate.ContextRef;
 import com.nudroid.annotation.provider.delegate.Delete;
+import com.nudroid.annotation.provider.delegate.FileMode;
 import com.nudroid.annotation.provider.delegate.Insert;
+import com.nudroid.annotation.provider.delegate.MimeType;
+import com.nudroid.annotation.provider.delegate.OpenFile;
 import com.nudroid.annotation.provider.delegate.Query;
 import com.nudroid.annotation.provider.delegate.Update;
 
+import java.lang.annotation.Annotation;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
 
 import javax.lang.model.element.ExecutableElement;
@@ -47,13 +58,21 @@ import javax.lang.model.element.VariableElement;
  * Metadata for the delegate methods of a content provider delegate class.
  * <p>
  * Delegate methods are methods annotated with one of the delegate annotations (i.e {@link Query}, {@link Update},
- * {@link Insert}, {@link Delete} etc.
+ * {@link Insert}, {@link BulkInsert}, {@link Delete}, {@link OpenFile} etc.
+ * <p>
+ * {@link Call} methods are not bound to an URI path. They are selected by their call method name instead.
  */
 public class DelegateMethod {
 
     private final String name;
 
     private String uriPath;
+    private String callMethodName;
+    private String operation;
+    private String mimeType;
+    private boolean futureResult;
+    private boolean groupBatchInserts;
+    private MatcherUri matcherUri;
     private final List<Parameter> parameters = new ArrayList<>();
     private final Map<String, Parameter> pathParameters = new HashMap<>();
     private final List<String> queryStringParameterNames = new ArrayList<>();
@@ -84,7 +103,11 @@ public class DelegateMethod {
      * @param interceptor
      *         the interceptor to be applied on this method
      */
-    public void addInterceptor(Interceptor interceptor) { this.interceptorElements.add(interceptor); }
+    public void addInterceptor(Interceptor interceptor) {
+
+        interceptor.setDelegateMethod(this);
+        this.interceptorElements.add(interceptor);
+    }
 
     /**
      * Gets the {@link ExecutableElement} of the delegate method.
@@ -118,6 +141,32 @@ public class DelegateMethod {
     @UsedBy({"RouterTemplateQuery.stg", "RouterTemplateUpdate.stg"})
     public List<Interceptor> getBeforeInterceptorList() { return interceptorElements; }
 
+    /**
+     * Gets the operation this method handles.
+     *
+     * @return the simple name of the delegate annotation of this method (i.e. Query, Update etc.)
+     */
+    public String getOperation() { return operation; }
+
+    /**
+     * Checks if this method returns a Future of its result instead of the result itself. The router calls the method on
+     * the authority's DelegateExecutor and waits for the result on the calling thread, for at most the timeout of the
+     * executor.
+     *
+     * @return <tt>true</tt> if this method returns a Future, <tt>false</tt> otherwise
+     */
+    @UsedBy("RouterTemplateQuery.stg")
+    public boolean isFutureResult() { return futureResult; }
+
+    /**
+     * Checks if consecutive insert operations of a batch on the path of this method are grouped into a single call to
+     * this method.
+     *
+     * @return <tt>true</tt> if this method is annotated with @BulkInsert(groupBatchInserts = true), <tt>false</tt>
+     * otherwise
+     */
+    public boolean isGroupBatchInserts() { return groupBatchInserts; }
+
     /**
      * Gets the path this method has been annotated with.
      *
@@ -125,6 +174,36 @@ public class DelegateMethod {
      */
     public String getUriPath() { return uriPath; }
 
+    /**
+     * Gets the name of the provider call method this method handles.
+     *
+     * @return the call method name, or null if the method is not annotated with @Call
+     */
+    @UsedBy("RouterTemplateCall.stg")
+    public String getCallMethodName() { return callMethodName; }
+
+    /**
+     * Gets the MIME type this method has been annotated with.
+     *
+     * @return the MIME type, or null if the method is not annotated with @MimeType
+     */
+    public String getMimeType() { return mimeType; }
+
+    /**
+     * Gets the {@link MatcherUri} this method has been bound to.
+     *
+     * @return the {@link MatcherUri}, or null if the method has not been bound yet
+     */
+    public MatcherUri getMatcherUri() { return matcherUri; }
+
+    /**
+     * Sets the {@link MatcherUri} this method has been bound to.
+     *
+     * @param matcherUri
+     *         the {@link MatcherUri} matching this method's path
+     */
+    void setMatcherUri(MatcherUri matcherUri) { this.matcherUri = matcherUri; }
+
     /**
      * Gets the list of interceptors applied to this delegate method, in the order they are executed after the delegate
      * invocation.
@@ -137,7 +216,7 @@ public class DelegateMethod {
         if (inverseInterceptorElements == null) {
 
             inverseInterceptorElements = new ArrayList<>(interceptorElements);
-            Collections.reverse(interceptorElements);
+            Collections.reverse(inverseInterceptorElements);
         }
 
         return inverseInterceptorElements;
@@ -193,16 +272,21 @@ public class DelegateMethod {
 
         private static final String PATH_AND_QUERY_STRING_REGEXP = "[^\\?]*\\?.*";
         private final ExecutableElement executableElement;
+        private final Class<? extends Annotation> delegateAnnotation;
 
         /**
          * Initializes the builder.
          *
          * @param annotatedMethod
          *         the Element for the method annotated with a delegate annotation
+         * @param delegateAnnotation
+         *         the delegate annotation (i.e. {@link Query}, {@link Insert}, {@link BulkInsert}, {@link Update},
+         *         {@link Delete}, {@link OpenFile} or {@link Call}) the method is being processed for
          */
-        public Builder(ExecutableElement annotatedMethod) {
+        public Builder(ExecutableElement annotatedMethod, Class<? extends Annotation> delegateAnnotation) {
 
             this.executableElement = annotatedMethod;
+            this.delegateAnnotation = delegateAnnotation;
         }
 
         /**
@@ -214,8 +298,7 @@ public class DelegateMethod {
 
             ValidationErrorGatherer gatherer = new ValidationErrorGatherer();
 
-            Query query = executableElement.getAnnotation(Query.class);
-            String path = query.value();
+            String path = findUriPath();
 
             if (!validateMethodDeclaration(errorCallback, gatherer, path)) {
 
@@ -223,7 +306,65 @@ public class DelegateMethod {
             }
 
             DelegateMethod method = new DelegateMethod(this.executableElement);
-            method.uriPath = path;
+            method.operation = delegateAnnotation.getSimpleName();
+
+            if (delegateAnnotation == Call.class) {
+
+                method.callMethodName = executableElement.getAnnotation(Call.class)
+                        .value();
+            } else {
+
+                method.uriPath = path;
+            }
+
+            if (delegateAnnotation == BulkInsert.class) {
+
+                method.groupBatchInserts = executableElement.getAnnotation(BulkInsert.class)
+                        .groupBatchInserts();
+            }
+
+            MimeType mimeTypeAnnotation = executableElement.getAnnotation(MimeType.class);
+
+            if (mimeTypeAnnotation != null) {
+
+                if (MatcherUri.isValidMimeType(mimeTypeAnnotation.value())) {
+
+                    method.mimeType = mimeTypeAnnotation.value();
+                } else {
+
+                    gatherer.gatherError(String.format("'%s' is not a valid MIME type", mimeTypeAnnotation.value()),
+                            executableElement, LoggingUtils.LogLevel.ERROR);
+                }
+            }
+
+            if (processorUtils.isFuture(executableElement.getReturnType())) {
+
+                if (delegateAnnotation == Query.class) {
+
+                    method.futureResult = true;
+                } else {
+
+                    gatherer.gatherError(String.format("Only methods annotated with @%s may return a %s",
+                            Query.class.getSimpleName(), Future.class.getName()), executableElement,
+                            LoggingUtils.LogLevel.ERROR);
+                }
+            }
+
+            if (delegateAnnotation == OpenFile.class &&
+                    !processorUtils.isAndroidParcelFileDescriptor(executableElement.getReturnType())) {
+
+                gatherer.gatherError(String.format("Methods annotated with @%s must return a %s",
+                        OpenFile.class.getSimpleName(), Parameter.Builder.ANDROID_PARCEL_FILE_DESCRIPTOR_CLASS_NAME),
+                        executableElement, LoggingUtils.LogLevel.ERROR);
+            }
+
+            if (delegateAnnotation == Call.class &&
+                    !processorUtils.isAndroidBundle(executableElement.getReturnType())) {
+
+                gatherer.gatherError(String.format("Methods annotated with @%s must return a %s",
+                        Call.class.getSimpleName(), Parameter.Builder.ANDROID_BUNDLE_CLASS_NAME), executableElement,
+                        LoggingUtils.LogLevel.ERROR);
+            }
 
             List<? extends VariableElement> parameters = executableElement.getParameters();
 
@@ -233,12 +374,44 @@ public class DelegateMethod {
                         new Parameter.Builder(methodParameter).build(processorUtils, gatherer::gatherErrors);
                 method.parameters.add(parameter);
 
-                if (parameter.isPathParameter()) {
+                if (delegateAnnotation == Call.class) {
+
+                    if (!parameter.isContext() && !parameter.isCallArg() && !parameter.isCallExtras()) {
+
+                        gatherer.gatherError(String.format("Parameters of methods annotated with @%s must be " +
+                                        "annotated with @%s, @%s or @%s.", Call.class.getSimpleName(),
+                                ContextRef.class.getSimpleName(), CallArg.class.getSimpleName(),
+                                CallExtras.class.getSimpleName()), methodParameter, LoggingUtils.LogLevel.ERROR);
+                    }
+                } else if (parameter.isCallArg() || parameter.isCallExtras()) {
+
+                    gatherer.gatherError(String.format("Parameters annotated with @%s or @%s are only allowed on " +
+                                    "methods annotated with @%s.", CallArg.class.getSimpleName(),
+                            CallExtras.class.getSimpleName(), Call.class.getSimpleName()), methodParameter,
+                            LoggingUtils.LogLevel.ERROR);
+                } else if (parameter.isPathParameter()) {
 
                     method.pathParameters.put(parameter.getPlaceholderName(), parameter);
                 } else if (parameter.isQueryParameter()) {
 
                     method.queryStringParameterNames.add(parameter.getPlaceholderName());
+                } else if (parameter.isContentValues() && delegateAnnotation == BulkInsert.class) {
+
+                    gatherer.gatherError(String.format("Parameters annotated with @%s must be of type array of %s on " +
+                                    "methods annotated with @%s.", ContentValuesRef.class.getSimpleName(),
+                            Parameter.Builder.ANDROID_CONTENT_VALUES_CLASS_NAME, BulkInsert.class.getSimpleName()),
+                            methodParameter, LoggingUtils.LogLevel.ERROR);
+                } else if (parameter.isBulkContentValues() && delegateAnnotation != BulkInsert.class) {
+
+                    gatherer.gatherError(String.format("Parameters annotated with @%s must be of type %s on methods " +
+                                    "annotated with @%s.", ContentValuesRef.class.getSimpleName(),
+                            Parameter.Builder.ANDROID_CONTENT_VALUES_CLASS_NAME, delegateAnnotation.getSimpleName()),
+                            methodParameter, LoggingUtils.LogLevel.ERROR);
+                } else if (parameter.isFileMode() && delegateAnnotation != OpenFile.class) {
+
+                    gatherer.gatherError(String.format("Parameters annotated with @%s are only allowed on methods " +
+                                    "annotated with @%s.", FileMode.class.getSimpleName(),
+                            OpenFile.class.getSimpleName()), methodParameter, LoggingUtils.LogLevel.ERROR);
                 }
             }
 
@@ -247,6 +420,38 @@ public class DelegateMethod {
             return method;
         }
 
+        private String findUriPath() {
+
+            Annotation annotation = executableElement.getAnnotation(delegateAnnotation);
+
+            if (annotation instanceof Query) {
+
+                return ((Query) annotation).value();
+            } else if (annotation instanceof Insert) {
+
+                return ((Insert) annotation).value();
+            } else if (annotation instanceof BulkInsert) {
+
+                return ((BulkInsert) annotation).value();
+            } else if (annotation instanceof Update) {
+
+                return ((Update) annotation).value();
+            } else if (annotation instanceof Delete) {
+
+                return ((Delete) annotation).value();
+            } else if (annotation instanceof OpenFile) {
+
+                return ((OpenFile) annotation).value();
+            } else if (annotation instanceof Call) {
+
+                /* Calls are not bound to a path. */
+                return null;
+            }
+
+            throw new IllegalArgumentException(
+                    String.format("Method %s is not annotated with @%s", executableElement, delegateAnnotation));
+        }
+
         private boolean validateMethodDeclaration(Consumer<ValidationErrorGatherer> errorCallback,
                                                   ValidationErrorGatherer gatherer, String path) {
             TypeElement enclosingClass = (TypeElement) this.executableElement.getEnclosingElement();
@@ -262,7 +467,7 @@ public class DelegateMethod {
                 return false;
             }
 
-            if (path.matches(PATH_AND_QUERY_STRING_REGEXP)) {
+            if (path != null && path.matches(PATH_AND_QUERY_STRING_REGEXP)) {
 
                 gatherer.gatherError("Query strings are not allowed in path expressions", executableElement,
                         LoggingUtils.LogLevel.ERROR);
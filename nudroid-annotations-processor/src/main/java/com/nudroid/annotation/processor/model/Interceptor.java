@@ -25,10 +25,14 @@ package com.nudroid.annotation.processor.model;
 import com.nudroid.annotation.processor.ProcessorUtils;
 import com.nudroid.annotation.processor.UsedBy;
 import com.nudroid.annotation.processor.ValidationErrorGatherer;
+import com.nudroid.provider.interceptor.QueryCacheInterceptor;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.TypeElement;
@@ -42,22 +46,37 @@ import javax.lang.model.util.ElementFilter;
  */
 public class Interceptor {
 
+    private int id;
     private TypeElement interceptorTypeElement;
     private boolean hasCustomConstructor;
+    private boolean isQueryCache;
     //    private InterceptorPointAnnotationBlueprint concreteAnnotation;
     private List<InterceptorAnnotationParameter> concreteAnnotationConstructorArguments = new ArrayList<>();
     private String concreteAnnotationQualifiedName;
+    private DelegateMethod delegateMethod;
 
     private Interceptor() {
 
     }
 
+    /**
+     * Gets the id of this interceptor. Ids are unique within a processing round and are used to name the router fields
+     * holding the interceptor instances.
+     *
+     * @return the id of this interceptor
+     */
+    @UsedBy({"RouterTemplate.stg", "RouterTemplateQuery.stg", "RouterTemplateUpdate.stg"})
+    public int getId() {
+
+        return id;
+    }
+
     /**
      * Gets the fully qualified name of the interceptorTypeElement class.
      *
      * @return the fully qualified name of the interceptorTypeElement class
      */
-    @UsedBy({"RouterTemplateQuery.stg", "RouterTemplateUpdate.stg"})
+    @UsedBy({"RouterTemplate.stg", "RouterTemplateQuery.stg", "RouterTemplateUpdate.stg"})
     public String getQualifiedName() {
 
         return interceptorTypeElement.getQualifiedName()
@@ -69,7 +88,7 @@ public class Interceptor {
      *
      * @return the simple name of the interceptorTypeElement class
      */
-    @UsedBy({"RouterTemplateQuery.stg", "RouterTemplateUpdate.stg"})
+    @UsedBy({"RouterTemplate.stg", "RouterTemplateQuery.stg", "RouterTemplateUpdate.stg"})
     public String getSimpleName() {
 
         return interceptorTypeElement.getSimpleName()
@@ -81,18 +100,29 @@ public class Interceptor {
      *
      * @return <tt>true</tt> is it has, <tt>false</tt> otherwise
      */
-    @UsedBy({"RouterTemplateQuery.stg", "RouterTemplateUpdate.stg"})
+    @UsedBy("RouterTemplate.stg")
     public boolean hasCustomConstructor() {
 
         return hasCustomConstructor;
     }
 
+    /**
+     * Checks if the interceptorTypeElement caches query results, i.e. extends {@link QueryCacheInterceptor}. Routers
+     * of delegates using it invalidate the cache on every write.
+     *
+     * @return <tt>true</tt> if it does, <tt>false</tt> otherwise
+     */
+    public boolean isQueryCache() {
+
+        return isQueryCache;
+    }
+
     /**
      * Gets the qualified name of the concrete annotation implementation for this interceptorTypeElement.
      *
      * @return the qualified name of the concrete annotation implementation for this interceptorTypeElement
      */
-    @UsedBy({"RouterTemplateQuery.stg", "RouterTemplateUpdate.stg"})
+    @UsedBy("RouterTemplate.stg")
     public String getConcreteAnnotationQualifiedName() {
 
         return concreteAnnotationQualifiedName;
@@ -103,12 +133,68 @@ public class Interceptor {
      *
      * @return the list of source code literals to create a new instance of the concrete annotation
      */
-    @UsedBy({"RouterTemplateQuery.stg", "RouterTemplateUpdate.stg"})
+    @UsedBy("RouterTemplate.stg")
     public List<InterceptorAnnotationParameter> getConcreteAnnotationConstructorArgumentLiterals() {
 
         return concreteAnnotationConstructorArguments;
     }
 
+    /**
+     * Checks if any of the concrete annotation constructor literals must be expanded against the placeholders of the
+     * request. Interceptors with expandable literals are cached by the router per concrete annotation value, while the
+     * other ones are created once per binding, from a concrete annotation created once in a static field.
+     *
+     * @return <tt>true</tt> if any literal must be expanded, <tt>false</tt> otherwise
+     */
+    @UsedBy("RouterTemplate.stg")
+    public boolean hasExpandableLiterals() {
+
+        return hasCustomConstructor && concreteAnnotationConstructorArguments.stream()
+                .anyMatch(InterceptorAnnotationParameter::hasPlaceholders);
+    }
+
+    /**
+     * Gets the constructor literals which must be expanded against the placeholders of the request. The router keeps a
+     * precompiled template for each of them.
+     *
+     * @return the literals with placeholders
+     */
+    @UsedBy("RouterTemplate.stg")
+    public List<InterceptorAnnotationParameter> getPlaceholderTemplateLiterals() {
+
+        return concreteAnnotationConstructorArguments.stream()
+                .filter(InterceptorAnnotationParameter::hasPlaceholders)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Gets the slots of the placeholders available to this interceptor, i.e. the placeholders of the URI its delegate
+     * method is bound to.
+     *
+     * @return the map of placeholder names to slots
+     */
+    Map<String, Integer> getPlaceholderSlots() {
+
+        if (delegateMethod == null || delegateMethod.getMatcherUri() == null) {
+
+            return Collections.emptyMap();
+        }
+
+        return delegateMethod.getMatcherUri()
+                .getPlaceholderSlots();
+    }
+
+    /**
+     * Sets the delegate method this interceptor has been applied to.
+     *
+     * @param delegateMethod
+     *         the delegate method
+     */
+    void setDelegateMethod(DelegateMethod delegateMethod) {
+
+        this.delegateMethod = delegateMethod;
+    }
+
     /**
      * Adds an annotation constructor literal for the concrete annotation associated with this interceptorTypeElement to
      * the list of constructor arguments of the concrete annotation.
@@ -118,6 +204,7 @@ public class Interceptor {
      */
     void addConcreteAnnotationConstructorLiteral(InterceptorAnnotationParameter value) {
 
+        value.setInterceptor(this, concreteAnnotationConstructorArguments.size());
         concreteAnnotationConstructorArguments.add(value);
     }
 
@@ -126,6 +213,8 @@ public class Interceptor {
      */
     public static class Builder implements ModelBuilder<Interceptor> {
 
+        private static int interceptorIdCount = 0;
+
         private final TypeElement interceptorTypeElement;
         private final InterceptorAnnotationBlueprints annotationBlueprints;
 
@@ -149,8 +238,11 @@ public class Interceptor {
         public Interceptor build(ProcessorUtils processorUtils, Consumer<ValidationErrorGatherer> errorCallback) {
 
             Interceptor interceptor = new Interceptor();
+            interceptor.id = interceptorIdCount++;
             interceptor.interceptorTypeElement = this.interceptorTypeElement;
             interceptor.concreteAnnotationQualifiedName = this.annotationBlueprints.getConcreteClassSimpleName();
+            interceptor.isQueryCache =
+                    processorUtils.isSubclassOf(this.interceptorTypeElement, QueryCacheInterceptor.class);
 
             List<ExecutableElement> constructors =
                     ElementFilter.constructorsIn(this.interceptorTypeElement.getEnclosedElements());
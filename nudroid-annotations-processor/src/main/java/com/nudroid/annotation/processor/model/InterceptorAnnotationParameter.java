@@ -26,9 +26,13 @@ import com.nudroid.annotation.processor.LoggingUtils;
 import com.nudroid.annotation.processor.ProcessorUtils;
 import com.nudroid.annotation.processor.UsedBy;
 import com.nudroid.annotation.processor.ValidationErrorGatherer;
+import com.nudroid.provider.interceptor.PlaceholderTemplate;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import javax.lang.model.element.AnnotationValue;
@@ -49,8 +53,16 @@ import javax.lang.model.type.TypeMirror;
  */
 public class InterceptorAnnotationParameter {
 
+    /* Same syntax ContentProviderContext.expand() looks for. */
+    private static final Pattern PLACEHOLDER_PATTERN = Pattern.compile("\\{[^\\}]+\\}");
+
     private String literalValue;
     private boolean isString;
+    private boolean hasPlaceholders;
+    private boolean isArray;
+    private List<String> stringValues = Collections.emptyList();
+    private Interceptor interceptor;
+    private int index;
 
     private InterceptorAnnotationParameter() {
     }
@@ -60,7 +72,7 @@ public class InterceptorAnnotationParameter {
      *
      * @return the literal representation of this parameter (as it appears in the source code)
      */
-    @UsedBy({"RouterTemplateQuery.stg", "RouterTemplateUpdate.stg"})
+    @UsedBy("RouterTemplate.stg")
     public String getLiteralValue() {
         return literalValue;
     }
@@ -70,12 +82,149 @@ public class InterceptorAnnotationParameter {
      *
      * @return <tt>true</tt> if this parameter is a String or array of Strings, <tt>false</tt> otherwise
      */
-    @UsedBy({"RouterTemplateQuery.stg", "RouterTemplateUpdate.stg"})
+    @UsedBy("RouterTemplate.stg")
     public boolean isString() {
 
         return isString;
     }
 
+    /**
+     * Checks if this parameter is a String, or an array of Strings, containing placeholders (i.e. {placeholder_name}).
+     * Only these parameters need to be expanded against the request. Annotations with no such parameters are created
+     * once by the router.
+     *
+     * @return <tt>true</tt> if this parameter contains placeholders, <tt>false</tt> otherwise
+     */
+    @UsedBy("RouterTemplate.stg")
+    public boolean hasPlaceholders() {
+
+        return hasPlaceholders;
+    }
+
+    /**
+     * Gets the name of the router field holding the precompiled template for this parameter.
+     *
+     * @return the name of the template field
+     */
+    @UsedBy("RouterTemplate.stg")
+    public String getTemplateFieldName() {
+
+        return String.format("INTERCEPTOR_TEMPLATE_%d_%d", interceptor.getId(), index);
+    }
+
+    /**
+     * Gets the type of the router field holding the precompiled template for this parameter.
+     *
+     * @return the type of the template field
+     */
+    @UsedBy("RouterTemplate.stg")
+    public String getTemplateFieldType() {
+
+        return isArray ? "PlaceholderTemplate[]" : "PlaceholderTemplate";
+    }
+
+    /**
+     * Gets the source code creating the precompiled template for this parameter. The value is split into literal
+     * segments and placeholders at compile time, and each placeholder is resolved to its slot in the placeholders of
+     * the URI the interceptor is bound to, so the router expands it in a single pass.
+     *
+     * @return the source code initializing the template field
+     */
+    @UsedBy("RouterTemplate.stg")
+    public String getTemplateInitializer() {
+
+        Map<String, Integer> slots = interceptor.getPlaceholderSlots();
+
+        if (!isArray) {
+
+            return generateTemplateInitializer(stringValues.get(0), slots);
+        }
+
+        return stringValues.stream()
+                .map(value -> generateTemplateInitializer(value, slots))
+                .collect(Collectors.joining(", ", "new PlaceholderTemplate[] { ", " }"));
+    }
+
+    /**
+     * Sets the interceptor this parameter is a constructor argument of.
+     *
+     * @param interceptor
+     *         the interceptor
+     * @param index
+     *         the position of this parameter in the interceptor's constructor arguments
+     */
+    void setInterceptor(Interceptor interceptor, int index) {
+
+        this.interceptor = interceptor;
+        this.index = index;
+    }
+
+    private static String generateTemplateInitializer(String value, Map<String, Integer> slots) {
+
+        PlaceholderTemplate template = PlaceholderTemplate.compile(value);
+        StringBuilder literals = new StringBuilder();
+        StringBuilder names = new StringBuilder();
+        StringBuilder slotIndexes = new StringBuilder();
+
+        for (int i = 0; i < template.getPlaceholderCount(); i++) {
+
+            String name = template.getPlaceholderName(i);
+            Integer slot = slots.get(name);
+
+            literals.append(toJavaStringLiteral(template.getLiteral(i)))
+                    .append(", ");
+            names.append(i > 0 ? ", " : "")
+                    .append(toJavaStringLiteral(name));
+            slotIndexes.append(i > 0 ? ", " : "")
+                    .append(slot != null ? slot.toString() : "PlaceholderTemplate.NO_SLOT");
+        }
+
+        literals.append(toJavaStringLiteral(template.getLiteral(template.getPlaceholderCount())));
+
+        if (template.getPlaceholderCount() == 0) {
+
+            return String.format("new PlaceholderTemplate(new String[] { %s }, new String[0], new int[0])", literals);
+        }
+
+        return String.format("new PlaceholderTemplate(new String[] { %s }, new String[] { %s }, new int[] { %s })",
+                literals, names, slotIndexes);
+    }
+
+    static String toJavaStringLiteral(String value) {
+
+        StringBuilder literal = new StringBuilder("\"");
+
+        for (char c : value.toCharArray()) {
+
+            switch (c) {
+                case '"':
+                    literal.append("\\\"");
+                    break;
+                case '\\':
+                    literal.append("\\\\");
+                    break;
+                case '\n':
+                    literal.append("\\n");
+                    break;
+                case '\r':
+                    literal.append("\\r");
+                    break;
+                case '\t':
+                    literal.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20 || c > 0x7e) {
+                        literal.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        literal.append(c);
+                    }
+            }
+        }
+
+        return literal.append('"')
+                .toString();
+    }
+
     /**
      * Builder for a DelegateMethod.
      */
@@ -153,6 +302,9 @@ public class InterceptorAnnotationParameter {
 
                         parameter.literalValue = String.format("\"%s\"", annotationElementValue.getValue());
                         parameter.isString = true;
+                        parameter.hasPlaceholders = containsPlaceholders(annotationElementValue.getValue());
+                        parameter.stringValues = Collections.singletonList(annotationElementValue.getValue()
+                                .toString());
                     } else if (processorUtils.isClass(annotationElementValueType)) {
 
                         parameter.literalValue = String.format("%s.class", annotationElementValue.getValue());
@@ -305,6 +457,14 @@ public class InterceptorAnnotationParameter {
                         arrayInitializer.append(elements);
 
                         arrayInitializer.append("\" }");
+
+                        parameter.isString = true;
+                        parameter.isArray = true;
+                        parameter.hasPlaceholders = arrayElements.stream()
+                                .anyMatch(this::containsPlaceholders);
+                        parameter.stringValues = arrayElements.stream()
+                                .map(Object::toString)
+                                .collect(Collectors.toList());
                     } else if (processorUtils.isClass(arrayType.getComponentType())) {
 
                         arrayInitializer.append("new Class[] { ");
@@ -357,5 +517,11 @@ public class InterceptorAnnotationParameter {
                 return parameter;
             }
         }
+
+        private boolean containsPlaceholders(Object value) {
+
+            return PLACEHOLDER_PATTERN.matcher(value.toString())
+                    .find();
+        }
     }
 }
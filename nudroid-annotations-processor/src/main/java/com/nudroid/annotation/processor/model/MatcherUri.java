@@ -28,23 +28,35 @@ import com.nudroid.annotation.processor.UsedBy;
 import com.nudroid.annotation.processor.ValidationErrorGatherer;
 
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NavigableSet;
 import java.util.TreeSet;
 import java.util.function.Consumer;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
- * Represents a URI to be mapped by a UriMatcher.
+ * Represents a URI to be matched by the router.
  *
  * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
  */
 public class MatcherUri {
 
+    /* Query string parameters presence is tracked with a long bit mask by the router. */
+    private static final int MAX_QUERY_STRING_PARAMETER_NAMES = 64;
+
+    /* MIME types are emitted as string literals by the router, so quotes and backslashes are not allowed. */
+    private static final Pattern MIME_TYPE_PATTERN = Pattern.compile("[^/\\s\"\\\\]+/[^/\\s\"\\\\]+");
+
     private int id;
+    private DelegateClass delegateClass;
     private Authority authority;
     private String path;
-    private boolean hasQueryStringMatchersOnly = true;
+    private String mimeType;
 
     /* Bindings are sorted by query parameter count */
     private Comparator<UriToMethodBinding> bindingComparator = new Comparator<UriToMethodBinding>() {
@@ -64,11 +76,25 @@ public class MatcherUri {
 
     private final NavigableSet<UriToMethodBinding> queryBindings = new TreeSet<>(bindingComparator);
     private final NavigableSet<UriToMethodBinding> updateBindings = new TreeSet<>(bindingComparator);
+    private final NavigableSet<UriToMethodBinding> insertBindings = new TreeSet<>(bindingComparator);
+    private final NavigableSet<UriToMethodBinding> bulkInsertBindings = new TreeSet<>(bindingComparator);
+    private final NavigableSet<UriToMethodBinding> deleteBindings = new TreeSet<>(bindingComparator);
+    private final NavigableSet<UriToMethodBinding> openFileBindings = new TreeSet<>(bindingComparator);
 
     private MatcherUri() {
 
     }
 
+    /**
+     * Gets the delegate class handling this URI.
+     *
+     * @return the delegate class handling this URI
+     */
+    DelegateClass getDelegateClass() {
+
+        return delegateClass;
+    }
+
     /**
      * Gets the set of delegate uris which handles @Query methods. Methods will be ordered by number of query
      * parameters, descending.
@@ -82,66 +108,365 @@ public class MatcherUri {
     }
 
     /**
-     * Gets the set of delegate uris which handles @Update methods.
+     * Gets the set of delegate uris which handles @Update methods. Methods will be ordered by number of query
+     * parameters, descending.
      *
-     * @return he set of delegate uris which handles @Update methods
+     * @return the set of delegate uris which handles @Update methods
      */
-    @UsedBy({"RouterTemplateQuery.stg"})
+    @UsedBy({"RouterTemplateUpdate.stg"})
     public NavigableSet<UriToMethodBinding> getUpdateBindings() {
 
         return updateBindings;
     }
 
     /**
-     * Registers a uri to method binding.
+     * Gets the set of delegate uris which handles @Insert methods. Methods will be ordered by number of query
+     * parameters, descending.
+     *
+     * @return the set of delegate uris which handles @Insert methods
+     */
+    @UsedBy({"RouterTemplateInsert.stg"})
+    public NavigableSet<UriToMethodBinding> getInsertBindings() {
+
+        return insertBindings;
+    }
+
+    /**
+     * Gets the set of delegate uris which handles @BulkInsert methods. Methods will be ordered by number of query
+     * parameters, descending.
+     *
+     * @return the set of delegate uris which handles @BulkInsert methods
+     */
+    @UsedBy({"RouterTemplateInsert.stg"})
+    public NavigableSet<UriToMethodBinding> getBulkInsertBindings() {
+
+        return bulkInsertBindings;
+    }
+
+    /**
+     * Gets the set of delegate uris which handles @Delete methods. Methods will be ordered by number of query
+     * parameters, descending.
+     *
+     * @return the set of delegate uris which handles @Delete methods
+     */
+    @UsedBy({"RouterTemplateDelete.stg"})
+    public NavigableSet<UriToMethodBinding> getDeleteBindings() {
+
+        return deleteBindings;
+    }
+
+    /**
+     * Gets the set of delegate uris which handles @OpenFile methods. Methods will be ordered by number of query
+     * parameters, descending.
+     *
+     * @return the set of delegate uris which handles @OpenFile methods
+     */
+    @UsedBy({"RouterTemplateOpenFile.stg"})
+    public NavigableSet<UriToMethodBinding> getOpenFileBindings() {
+
+        return openFileBindings;
+    }
+
+    /**
+     * Gets all the bindings registered with this URI, regardless of the operation they handle.
+     *
+     * @return a stream of the bindings of this URI
+     */
+    Stream<UriToMethodBinding> allBindings() {
+
+        return Stream.of(queryBindings, updateBindings, insertBindings, bulkInsertBindings, deleteBindings,
+                openFileBindings)
+                .flatMap(NavigableSet::stream);
+    }
+
+    /**
+     * Gets the names of all query string parameters bound by the delegate methods handling this URI, sorted by name.
+     *
+     * @return the names of the query string parameters bound for this URI
+     */
+    public List<String> getQueryStringParameterNames() {
+
+        return queryStringParameterNames(allBindings());
+    }
+
+    /**
+     * Gets the names of the query string parameters bound by the delegate methods handling each operation on this URI,
+     * sorted by name, keyed by the name of the operation (e.g. <tt>QUERY</tt>). Operations binding no query string
+     * parameter are left out: the router only decodes the query string for the others, into an array of values indexed
+     * by the position of the parameter in the list of the operation.
+     *
+     * @return the names of the query string parameters bound for each operation on this URI
+     */
+    @UsedBy("RouterTemplate.stg")
+    public Map<String, List<String>> getOperationQueryStringParameterNames() {
+
+        Map<String, List<String>> operationNames = new LinkedHashMap<>();
+
+        operationBindings().forEach((operation, bindings) -> {
+
+            List<String> names = queryStringParameterNames(bindings.stream());
+
+            if (!names.isEmpty()) {
+                operationNames.put(operation, names);
+            }
+        });
+
+        return operationNames;
+    }
+
+    /**
+     * Gets the bit mask, as a Java long literal, of the query string parameters bound to a <tt>long[]</tt> by the
+     * delegate methods handling each operation on this URI, keyed by the name of the operation. Bit <tt>i</tt> is set if
+     * all the values of the parameter at position <tt>i</tt> of the query string parameter names of the operation are
+     * collected. Operations binding no query string parameter to a <tt>long[]</tt> are left out.
+     *
+     * @return the repeated query string parameter mask literals (e.g. <tt>0x5L</tt>) of each operation on this URI
+     */
+    @UsedBy("RouterTemplate.stg")
+    public Map<String, String> getOperationRepeatedQueryStringParameterMasks() {
+
+        Map<String, String> operationMasks = new LinkedHashMap<>();
+
+        operationBindings().forEach((operation, bindings) -> {
+
+            List<String> names = queryStringParameterNames(bindings.stream());
+            long mask = bindings.stream()
+                    .flatMap(binding -> binding.getDelegateMethod()
+                            .getParameters()
+                            .stream())
+                    .filter(Parameter::isLongArray)
+                    .mapToLong(parameter -> 1L << names.indexOf(parameter.getPlaceholderName()))
+                    .reduce(0L, (bits, bit) -> bits | bit);
+
+            if (mask != 0L) {
+                operationMasks.put(operation, String.format("0x%xL", mask));
+            }
+        });
+
+        return operationMasks;
+    }
+
+    /**
+     * Gets the names of the query string parameters bound by the delegate methods handling the same operation as a
+     * binding, sorted by name.
+     *
+     * @param binding
+     *         a binding registered with this URI
+     *
+     * @return the names of the query string parameters bound for the operation of the binding
+     */
+    List<String> getQueryStringParameterNames(UriToMethodBinding binding) {
+
+        for (NavigableSet<UriToMethodBinding> bindings : operationBindings().values()) {
+
+            /* Bindings for different operations on the same path are equal, so look the binding up by identity. */
+            if (bindings.stream()
+                    .anyMatch(registeredBinding -> registeredBinding == binding)) {
+
+                return queryStringParameterNames(bindings.stream());
+            }
+        }
+
+        throw new IllegalStateException(String.format("Binding %s is not registered with %s", binding, path));
+    }
+
+    private Map<String, NavigableSet<UriToMethodBinding>> operationBindings() {
+
+        Map<String, NavigableSet<UriToMethodBinding>> operationBindings = new LinkedHashMap<>();
+
+        operationBindings.put("QUERY", queryBindings);
+        operationBindings.put("UPDATE", updateBindings);
+        operationBindings.put("INSERT", insertBindings);
+        operationBindings.put("BULK_INSERT", bulkInsertBindings);
+        operationBindings.put("DELETE", deleteBindings);
+        operationBindings.put("OPEN_FILE", openFileBindings);
+
+        return operationBindings;
+    }
+
+    private static List<String> queryStringParameterNames(Stream<UriToMethodBinding> bindings) {
+
+        return bindings.flatMap(binding -> binding.getQueryStringParameterNames()
+                        .stream())
+                .distinct()
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Gets the names of all placeholders bound by the delegate methods handling this URI, from the path or from the
+     * query string, sorted by name. The router stores placeholder values in an array indexed by the position of the
+     * name in this list.
+     *
+     * @return the names of the placeholders bound for this URI
+     */
+    @UsedBy("RouterTemplate.stg")
+    public List<String> getPlaceholderNames() {
+
+        return allBindings().flatMap(UriToMethodBinding::placeholderNames)
+                .distinct()
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Gets the slot of each placeholder name in the array of placeholder values of this URI.
+     *
+     * @return the map of placeholder names to slots
+     * @see #getPlaceholderNames()
+     */
+    @UsedBy({"RouterTemplateQuery.stg", "RouterTemplateInsert.stg", "RouterTemplateUpdate.stg",
+            "RouterTemplateDelete.stg", "RouterTemplateOpenFile.stg"})
+    public Map<String, Integer> getPlaceholderSlots() {
+
+        List<String> placeholderNames = getPlaceholderNames();
+        Map<String, Integer> slots = new HashMap<>();
+
+        for (int i = 0; i < placeholderNames.size(); i++) {
+
+            slots.put(placeholderNames.get(i), i);
+        }
+
+        return slots;
+    }
+
+    /**
+     * Registers a uri to method binding for a @Query method.
      *
      * @param uriToMethodBinding
      *         the binding to register
+     * @param errorCallback
+     *         the callback for validation errors
      */
     public void registerBindingForQuery(UriToMethodBinding uriToMethodBinding,
                                         Consumer<ValidationErrorGatherer> errorCallback) {
 
-        ValidationErrorGatherer gatherer = new ValidationErrorGatherer();
+        registerBinding(queryBindings, uriToMethodBinding, errorCallback);
+    }
 
-        UriToMethodBinding registeredUriToMethodBinding = findEquivalentQueryMethodBinding(uriToMethodBinding);
+    /**
+     * Registers a uri to method binding for an @Update method.
+     *
+     * @param uriToMethodBinding
+     *         the binding to register
+     * @param errorCallback
+     *         the callback for validation errors
+     */
+    public void registerBindingForUpdate(UriToMethodBinding uriToMethodBinding,
+                                         Consumer<ValidationErrorGatherer> errorCallback) {
 
-        if (registeredUriToMethodBinding != null) {
+        registerBinding(updateBindings, uriToMethodBinding, errorCallback);
+    }
 
-            gatherer.gatherError(String.format("An equivalent binding has already been registered by method '%s'",
-                    registeredUriToMethodBinding.getDelegateMethod()
-                            .getExecutableElement()), uriToMethodBinding.getDelegateMethod()
-                    .getExecutableElement(), LoggingUtils.LogLevel.ERROR);
+    /**
+     * Registers a uri to method binding for an @Insert method.
+     *
+     * @param uriToMethodBinding
+     *         the binding to register
+     * @param errorCallback
+     *         the callback for validation errors
+     */
+    public void registerBindingForInsert(UriToMethodBinding uriToMethodBinding,
+                                         Consumer<ValidationErrorGatherer> errorCallback) {
 
-            errorCallback.accept(gatherer);
-            return;
-        }
+        registerBinding(insertBindings, uriToMethodBinding, errorCallback);
+    }
 
-        queryBindings.add(uriToMethodBinding);
+    /**
+     * Registers a uri to method binding for a @BulkInsert method.
+     *
+     * @param uriToMethodBinding
+     *         the binding to register
+     * @param errorCallback
+     *         the callback for validation errors
+     */
+    public void registerBindingForBulkInsert(UriToMethodBinding uriToMethodBinding,
+                                             Consumer<ValidationErrorGatherer> errorCallback) {
 
-        if (uriToMethodBinding.getQueryStringParameterCount() == 0) {
+        registerBinding(bulkInsertBindings, uriToMethodBinding, errorCallback);
+    }
 
-            hasQueryStringMatchersOnly = false;
-        }
+    /**
+     * Registers a uri to method binding for a @Delete method.
+     *
+     * @param uriToMethodBinding
+     *         the binding to register
+     * @param errorCallback
+     *         the callback for validation errors
+     */
+    public void registerBindingForDelete(UriToMethodBinding uriToMethodBinding,
+                                         Consumer<ValidationErrorGatherer> errorCallback) {
+
+        registerBinding(deleteBindings, uriToMethodBinding, errorCallback);
+    }
+
+    /**
+     * Registers a uri to method binding for an @OpenFile method.
+     *
+     * @param uriToMethodBinding
+     *         the binding to register
+     * @param errorCallback
+     *         the callback for validation errors
+     */
+    public void registerBindingForOpenFile(UriToMethodBinding uriToMethodBinding,
+                                           Consumer<ValidationErrorGatherer> errorCallback) {
+
+        registerBinding(openFileBindings, uriToMethodBinding, errorCallback);
     }
 
     /**
-     * Gets the id to be mapped to this URI in the <a href="http://developer.android.com/reference/android/content/UriMatcher.html">UriMatcher</a>.
+     * Gets the id returned by the router's match method when an incoming URI matches this URI.
      *
-     * @return the id to be mapped to this URI in the <a href="http://developer.android
-     * .com/reference/android/content/UriMatcher.html">UriMatcher</a>
+     * @return the id to be mapped to this URI
      */
-    @UsedBy({"RouterTemplate.stg", "RouterTemplateQuery.stg", "RouterTemplateUpdate.stg"})
+    @UsedBy({"RouterTemplate.stg", "RouterTemplateQuery.stg", "RouterTemplateInsert.stg", "RouterTemplateUpdate.stg",
+            "RouterTemplateDelete.stg", "RouterTemplateOpenFile.stg"})
     public int getId() {
 
         return this.id;
     }
 
+    /**
+     * Gets the MIME type declared for this URI by the @MimeType annotation of its delegate methods.
+     *
+     * @return the MIME type of this URI, or null if none of its delegate methods declares one
+     */
+    public String getMimeType() {
+
+        return mimeType;
+    }
+
+    /**
+     * Checks if this URI is only handled by @OpenFile delegate methods. Such URIs serve files, not cursors, so they
+     * don't inherit the class level @MimeType.
+     *
+     * @return <tt>true</tt> if all the bindings of this URI are @OpenFile bindings, <tt>false</tt> otherwise
+     */
+    boolean isFileOnly() {
+
+        return !openFileBindings.isEmpty() && queryBindings.isEmpty() && updateBindings.isEmpty() &&
+                insertBindings.isEmpty() && bulkInsertBindings.isEmpty() && deleteBindings.isEmpty();
+    }
+
+    /**
+     * Checks if the provided string is a valid MIME type (i.e. in the form <tt>type/subtype</tt>).
+     *
+     * @param mimeType
+     *         the MIME type to check
+     *
+     * @return <tt>true</tt> if it is, <tt>false</tt> otherwise
+     */
+    static boolean isValidMimeType(String mimeType) {
+
+        return MIME_TYPE_PATTERN.matcher(mimeType)
+                .matches();
+    }
+
     /**
      * Gets the authority name of this URI.
      *
      * @return the authority name of this URI
      */
-    @UsedBy("RouterTemplate.stg")
     public String getAuthorityName() {
 
         return authority.getName();
@@ -159,15 +484,49 @@ public class MatcherUri {
     }
 
     /**
-     * Check whether or not this matcher uri only matches paths containing query strings.
+     * Check whether or not the @Query methods of this matcher uri only match paths containing query strings. If so, the
+     * router must handle requests not matching any of the query string requirements.
      *
      * @return <tt>true</tt> if matching only paths with query string, <tt>false</tt> otherwise.
      */
-    //TODO see if this method is required. it's name bother me a lot
-    @UsedBy({"RouterTemplateQuery.stg", "RouterTemplateUpdate.stg"})
+    @UsedBy({"RouterTemplateQuery.stg"})
     public boolean hasQueryStringMatchersOnly() {
 
-        return hasQueryStringMatchersOnly;
+        return hasQueryStringMatchersOnly(queryBindings);
+    }
+
+    /**
+     * Check whether or not the @Update methods of this matcher uri only match paths containing query strings.
+     *
+     * @return <tt>true</tt> if matching only paths with query string, <tt>false</tt> otherwise.
+     */
+    @UsedBy({"RouterTemplateUpdate.stg"})
+    public boolean hasUpdateQueryStringMatchersOnly() {
+
+        return hasQueryStringMatchersOnly(updateBindings);
+    }
+
+    /**
+     * Check whether or not the @Insert methods of this matcher uri only match paths containing query strings.
+     *
+     * @return <tt>true</tt> if matching only paths with query string, <tt>false</tt> otherwise.
+     */
+    @UsedBy({"RouterTemplateInsert.stg"})
+    public boolean hasInsertQueryStringMatchersOnly() {
+
+        return hasQueryStringMatchersOnly(insertBindings);
+    }
+
+    /**
+     * Check whether or not the @BulkInsert methods of this matcher uri only match paths containing query strings. If
+     * so, bulk inserts not matching any of the query string requirements fall back to the @Insert methods.
+     *
+     * @return <tt>true</tt> if matching only paths with query string, <tt>false</tt> otherwise.
+     */
+    @UsedBy({"RouterTemplateInsert.stg"})
+    public boolean hasBulkInsertQueryStringMatchersOnly() {
+
+        return hasQueryStringMatchersOnly(bulkInsertBindings);
     }
 
     /**
@@ -214,9 +573,90 @@ public class MatcherUri {
         return "MatcherUri [id=" + id + ", authority=" + authority + ", path=" + path + "]";
     }
 
-    private UriToMethodBinding findEquivalentQueryMethodBinding(final UriToMethodBinding candidateUriToMethodBinding) {
+    /**
+     * Check whether or not the @Delete methods of this matcher uri only match paths containing query strings.
+     *
+     * @return <tt>true</tt> if matching only paths with query string, <tt>false</tt> otherwise.
+     */
+    @UsedBy({"RouterTemplateDelete.stg"})
+    public boolean hasDeleteQueryStringMatchersOnly() {
+
+        return hasQueryStringMatchersOnly(deleteBindings);
+    }
+
+    /**
+     * Check whether or not the @OpenFile methods of this matcher uri only match paths containing query strings.
+     *
+     * @return <tt>true</tt> if matching only paths with query string, <tt>false</tt> otherwise.
+     */
+    @UsedBy({"RouterTemplateOpenFile.stg"})
+    public boolean hasOpenFileQueryStringMatchersOnly() {
+
+        return hasQueryStringMatchersOnly(openFileBindings);
+    }
+
+    private void registerBinding(NavigableSet<UriToMethodBinding> bindings, UriToMethodBinding uriToMethodBinding,
+                                 Consumer<ValidationErrorGatherer> errorCallback) {
+
+        ValidationErrorGatherer gatherer = new ValidationErrorGatherer();
+
+        UriToMethodBinding registeredUriToMethodBinding = findEquivalentMethodBinding(bindings, uriToMethodBinding);
+
+        if (registeredUriToMethodBinding != null) {
+
+            gatherer.gatherError(String.format("An equivalent binding has already been registered by method '%s'",
+                    registeredUriToMethodBinding.getDelegateMethod()
+                            .getExecutableElement()), uriToMethodBinding.getDelegateMethod()
+                    .getExecutableElement(), LoggingUtils.LogLevel.ERROR);
+
+            errorCallback.accept(gatherer);
+            return;
+        }
+
+        bindings.add(uriToMethodBinding);
+        uriToMethodBinding.setMatcherUri(this);
+        uriToMethodBinding.getDelegateMethod()
+                .setMatcherUri(this);
+
+        final String methodMimeType = uriToMethodBinding.getDelegateMethod()
+                .getMimeType();
+
+        if (methodMimeType != null) {
+
+            if (mimeType == null) {
+
+                mimeType = methodMimeType;
+            } else if (!mimeType.equals(methodMimeType)) {
+
+                ValidationErrorGatherer mimeTypeGatherer = new ValidationErrorGatherer();
+                mimeTypeGatherer.gatherError(String.format("Path '%s' has already been declared with MIME type '%s'",
+                        path, mimeType), uriToMethodBinding.getDelegateMethod()
+                        .getExecutableElement(), LoggingUtils.LogLevel.ERROR);
+
+                errorCallback.accept(mimeTypeGatherer);
+            }
+        }
+
+        if (getQueryStringParameterNames().size() > MAX_QUERY_STRING_PARAMETER_NAMES) {
+
+            gatherer.gatherError(String.format("Path '%s' binds more than %d distinct query string parameters",
+                    path, MAX_QUERY_STRING_PARAMETER_NAMES), uriToMethodBinding.getDelegateMethod()
+                    .getExecutableElement(), LoggingUtils.LogLevel.ERROR);
+
+            errorCallback.accept(gatherer);
+        }
+    }
+
+    private static boolean hasQueryStringMatchersOnly(NavigableSet<UriToMethodBinding> bindings) {
+
+        return bindings.stream()
+                .allMatch(binding -> binding.getQueryStringParameterCount() > 0);
+    }
+
+    private static UriToMethodBinding findEquivalentMethodBinding(NavigableSet<UriToMethodBinding> bindings,
+                                                                  UriToMethodBinding candidateUriToMethodBinding) {
 
-        List<UriToMethodBinding> matchingUriToMethodBindings = queryBindings.stream()
+        List<UriToMethodBinding> matchingUriToMethodBindings = bindings.stream()
                 .filter(candidateUriToMethodBinding::equals)
                 .collect(Collectors.toList());
 
@@ -224,30 +664,29 @@ public class MatcherUri {
     }
 
     /**
-     * Builder for Interceptor.
+     * Builder for MatcherUri.
      */
     public static class Builder implements ModelBuilder<MatcherUri> {
 
-        private final Authority authority;
+        private final DelegateClass delegateClass;
         private final String path;
-        private static int matcherUriIdCount = 0;
 
         /**
          * Initializes the builder.
          *
-         * @param authority
-         *         the authority for this URI
+         * @param delegateClass
+         *         the delegate class handling this URI
          * @param path
          *         the uri path, with UriMatcher wildcards
          */
-        public Builder(Authority authority, String path) {
+        public Builder(DelegateClass delegateClass, String path) {
 
-            this.authority = authority;
+            this.delegateClass = delegateClass;
             this.path = path;
         }
 
         /**
-         * Builds an instance of the InterceptorPoint class.
+         * Builds an instance of the MatcherUri class. Ids are sequential for each delegate class, starting at 0.
          * <p>
          * {@inheritDoc}
          */
@@ -255,9 +694,10 @@ public class MatcherUri {
 
             MatcherUri matcherUri = new MatcherUri();
 
-            matcherUri.authority = this.authority;
+            matcherUri.delegateClass = delegateClass;
+            matcherUri.authority = delegateClass.getAuthority();
             matcherUri.path = this.path;
-            matcherUri.id = ++matcherUriIdCount;
+            matcherUri.id = delegateClass.nextMatcherUriId();
 
             return matcherUri;
         }
@@ -26,9 +26,12 @@ import com.nudroid.annotation.processor.LoggingUtils;
 import com.nudroid.annotation.processor.ProcessorUtils;
 import com.nudroid.annotation.processor.UsedBy;
 import com.nudroid.annotation.processor.ValidationErrorGatherer;
+import com.nudroid.annotation.provider.delegate.CallArg;
+import com.nudroid.annotation.provider.delegate.CallExtras;
 import com.nudroid.annotation.provider.delegate.ContentUri;
 import com.nudroid.annotation.provider.delegate.ContentValuesRef;
 import com.nudroid.annotation.provider.delegate.ContextRef;
+import com.nudroid.annotation.provider.delegate.FileMode;
 import com.nudroid.annotation.provider.delegate.PathParam;
 import com.nudroid.annotation.provider.delegate.Projection;
 import com.nudroid.annotation.provider.delegate.QueryParam;
@@ -36,6 +39,7 @@ import com.nudroid.annotation.provider.delegate.Selection;
 import com.nudroid.annotation.provider.delegate.SelectionArgs;
 import com.nudroid.annotation.provider.delegate.SortOrder;
 
+import java.util.UUID;
 import java.util.function.Consumer;
 
 import javax.lang.model.element.VariableElement;
@@ -46,7 +50,8 @@ import javax.lang.model.type.TypeMirror;
  * <p>
  * Includes information about the parameter:
  * <p>
- * <ul> <li> If it is one of context, projection, selection, selection args, sort order, content values or uri</li> <li>
+ * <ul> <li> If it is one of context, projection, selection, selection args, sort order, content values, uri, file
+ * mode, call argument or call extras</li> <li>
  * The type of the parameter</li> <li> The key name, placeholder name and placeholder type if this parameter binds to a
  * URi placeholder</li> </ul>
  *
@@ -60,12 +65,18 @@ public class Parameter {
     private boolean isSelectionArgs;
     private boolean isSortOrder;
     private boolean isContentValues;
+    private boolean isBulkContentValues;
     private boolean isContentUri;
+    private boolean isFileMode;
+    private boolean isCallArg;
+    private boolean isCallExtras;
     private boolean requiresConversion;
     private boolean isPathParam;
     private boolean isQueryParam;
+    private boolean isLongArray;
     private String placeholderName;
     private String parameterType;
+    private String converter;
 
     private Parameter() {
 
@@ -131,6 +142,16 @@ public class Parameter {
         return isContentValues;
     }
 
+    /**
+     * The parameter is an array annotated with {@link ContentValuesRef}, receiving all the rows of a bulk insert.
+     *
+     * @return <tt>true</tt> if annotated, <tt>false</tt> otherwise.
+     */
+    @UsedBy({"RouterTemplateInsert.stg"})
+    public boolean isBulkContentValues() {
+        return isBulkContentValues;
+    }
+
     /**
      * The parameter is a annotated with {@link ContentUri}.
      *
@@ -141,6 +162,36 @@ public class Parameter {
         return isContentUri;
     }
 
+    /**
+     * The parameter is annotated with {@link FileMode}.
+     *
+     * @return <tt>true</tt> if annotated, <tt>false</tt> otherwise.
+     */
+    @UsedBy({"RouterTemplateOpenFile.stg"})
+    public boolean isFileMode() {
+        return isFileMode;
+    }
+
+    /**
+     * The parameter is annotated with {@link CallArg}.
+     *
+     * @return <tt>true</tt> if annotated, <tt>false</tt> otherwise.
+     */
+    @UsedBy({"RouterTemplateCall.stg"})
+    public boolean isCallArg() {
+        return isCallArg;
+    }
+
+    /**
+     * The parameter is annotated with {@link CallExtras}.
+     *
+     * @return <tt>true</tt> if annotated, <tt>false</tt> otherwise.
+     */
+    @UsedBy({"RouterTemplateCall.stg"})
+    public boolean isCallExtras() {
+        return isCallExtras;
+    }
+
     /**
      * Checks if the parameters needs conversion from String.
      *
@@ -152,6 +203,20 @@ public class Parameter {
         return requiresConversion;
     }
 
+    /**
+     * Gets the method converting the String value of the placeholder to the type of this parameter. The method takes a
+     * single String argument and is invoked directly by the router, so no reflection nor boxing is involved for
+     * primitive types.
+     *
+     * @return the name of the conversion method (e.g. <tt>Long.parseLong</tt>), or <tt>null</tt> if this parameter
+     * doesn't require conversion
+     */
+    @UsedBy({"RouterTemplateQuery.stg", "RouterTemplateUpdate.stg"})
+    public String getConverter() {
+
+        return converter;
+    }
+
     /**
      * The parameter binds a path parameter.
      *
@@ -198,6 +263,17 @@ public class Parameter {
         return parameterType;
     }
 
+    /**
+     * Checks if this parameter is a <tt>long[]</tt> bound to all the values of a repeated query string parameter.
+     *
+     * @return <tt>true</tt> if it is, <tt>false</tt> otherwise
+     */
+    @UsedBy({"RouterTemplateQuery.stg", "RouterTemplateUpdate.stg", "RouterTemplateInsert.stg",
+            "RouterTemplateDelete.stg"})
+    public boolean isLongArray() {
+        return isLongArray;
+    }
+
     /**
      * Sets if this parameter is annotated with {@link ContextRef}.
      */
@@ -237,12 +313,17 @@ public class Parameter {
     /**
      * Sets if this parameter is annotated with {@link ContentValuesRef}.
      */
-    //TODO will be required for update(). Remove SuppressWarnings when so.
-    @SuppressWarnings("UnusedDeclaration")
     public void setContentValues() {
         this.isContentValues = true;
     }
 
+    /**
+     * Sets if this parameter is an array annotated with {@link ContentValuesRef}.
+     */
+    public void setBulkContentValues() {
+        this.isBulkContentValues = true;
+    }
+
     /**
      * Sets if this parameter is annotated with {@link ContentUri}.
      */
@@ -251,10 +332,36 @@ public class Parameter {
     }
 
     /**
-     * Sets if this parameter is of type {@link String}.
+     * Sets if this parameter is annotated with {@link FileMode}.
+     */
+    public void setFileMode() {
+        this.isFileMode = true;
+    }
+
+    /**
+     * Sets if this parameter is annotated with {@link CallArg}.
      */
-    public void setRequiresConversion() {
+    public void setCallArg() {
+        this.isCallArg = true;
+    }
+
+    /**
+     * Sets if this parameter is annotated with {@link CallExtras}.
+     */
+    public void setCallExtras() {
+        this.isCallExtras = true;
+    }
+
+    /**
+     * Sets the method converting the placeholder value to the type of this parameter. Parameters with a converter
+     * require conversion.
+     *
+     * @param converter
+     *         the name of the single argument conversion method
+     */
+    public void setConverter(String converter) {
         this.requiresConversion = true;
+        this.converter = converter;
     }
 
     private void setPathParam() {
@@ -265,6 +372,10 @@ public class Parameter {
         this.isQueryParam = true;
     }
 
+    private void setLongArray() {
+        this.isLongArray = true;
+    }
+
     /**
      * Sets this parameter placeholder name.
      *
@@ -294,12 +405,18 @@ public class Parameter {
                 ", isSelectionArgs=" + isSelectionArgs +
                 ", isSortOrder=" + isSortOrder +
                 ", isContentValues=" + isContentValues +
+                ", isBulkContentValues=" + isBulkContentValues +
                 ", isContentUri=" + isContentUri +
+                ", isFileMode=" + isFileMode +
+                ", isCallArg=" + isCallArg +
+                ", isCallExtras=" + isCallExtras +
                 ", requiresConversion=" + requiresConversion +
                 ", isPathParam=" + isPathParam +
                 ", isQueryParam=" + isQueryParam +
+                ", isLongArray=" + isLongArray +
                 ", placeholderName='" + placeholderName + '\'' +
                 ", parameterType='" + parameterType + '\'' +
+                ", converter='" + converter + '\'' +
                 '}';
     }
 
@@ -310,6 +427,12 @@ public class Parameter {
 
         public static final String ANDROID_CONTEXT_CLASS_NAME = "android.content.Context";
         public static final String ANDROID_URI_CLASS_NAME = "android.net.Uri";
+        public static final String ANDROID_CONTENT_VALUES_CLASS_NAME = "android.content.ContentValues";
+        public static final String ANDROID_PARCEL_FILE_DESCRIPTOR_CLASS_NAME = "android.os.ParcelFileDescriptor";
+        public static final String ANDROID_BUNDLE_CLASS_NAME = "android.os.Bundle";
+
+        /* Helper method generated in the router (see RouterTemplate.stg). */
+        private static final String PARSE_CHAR_METHOD_NAME = "parseChar";
 
         private VariableElement variableElement;
 
@@ -414,6 +537,61 @@ public class Parameter {
                 }
             }
 
+            if (variableElement.getAnnotation(ContentValuesRef.class) != null) {
+
+                if (processorUtils.isAndroidContentValues(parameterType)) {
+
+                    parameter.setContentValues();
+                } else if (processorUtils.isArrayOfAndroidContentValues(parameterType)) {
+
+                    parameter.setBulkContentValues();
+                } else {
+
+                    gatherer.gatherError(String.format("Parameters annotated with @%s must be of type %s or array of %s.",
+                                    ContentValuesRef.class.getSimpleName(), ANDROID_CONTENT_VALUES_CLASS_NAME,
+                                    ANDROID_CONTENT_VALUES_CLASS_NAME), variableElement, LoggingUtils.LogLevel.ERROR);
+                }
+            }
+
+            if (variableElement.getAnnotation(FileMode.class) != null) {
+
+                if (processorUtils.isString(parameterType)) {
+
+                    parameter.setFileMode();
+                } else {
+
+                    gatherer.gatherError(String.format("Parameters annotated with @%s must be of type %s.",
+                                    FileMode.class.getSimpleName(), String.class.getName()), variableElement,
+                            LoggingUtils.LogLevel.ERROR);
+                }
+            }
+
+            if (variableElement.getAnnotation(CallArg.class) != null) {
+
+                if (processorUtils.isString(parameterType)) {
+
+                    parameter.setCallArg();
+                } else {
+
+                    gatherer.gatherError(String.format("Parameters annotated with @%s must be of type %s.",
+                                    CallArg.class.getSimpleName(), String.class.getName()), variableElement,
+                            LoggingUtils.LogLevel.ERROR);
+                }
+            }
+
+            if (variableElement.getAnnotation(CallExtras.class) != null) {
+
+                if (processorUtils.isAndroidBundle(parameterType)) {
+
+                    parameter.setCallExtras();
+                } else {
+
+                    gatherer.gatherError(String.format("Parameters annotated with @%s must be of type %s.",
+                                    CallExtras.class.getSimpleName(), ANDROID_BUNDLE_CLASS_NAME), variableElement,
+                            LoggingUtils.LogLevel.ERROR);
+                }
+            }
+
             final PathParam pathParam = variableElement.getAnnotation(PathParam.class);
 
             if (pathParam != null) {
@@ -421,10 +599,7 @@ public class Parameter {
                 parameter.setUriVariableName(pathParam.value());
                 parameter.setPathParam();
 
-                if (!processorUtils.isString(variableElement.asType())) {
-
-                    parameter.setRequiresConversion();
-                }
+                setConverter(parameter, PathParam.class, processorUtils, gatherer);
             }
 
             final QueryParam queryParam = variableElement.getAnnotation(QueryParam.class);
@@ -434,9 +609,12 @@ public class Parameter {
                 parameter.setUriVariableName(queryParam.value());
                 parameter.setQueryParam();
 
-                if (!processorUtils.isString(variableElement.asType())) {
+                if (processorUtils.isArrayOfLongs(parameterType)) {
 
-                    parameter.setRequiresConversion();
+                    parameter.setLongArray();
+                } else {
+
+                    setConverter(parameter, QueryParam.class, processorUtils, gatherer);
                 }
             }
 
@@ -447,5 +625,83 @@ public class Parameter {
 
             return parameter;
         }
+
+        private void setConverter(Parameter parameter, Class<?> annotationClass, ProcessorUtils processorUtils,
+                                  ValidationErrorGatherer gatherer) {
+
+            TypeMirror parameterType = variableElement.asType();
+
+            if (processorUtils.isString(parameterType)) {
+                return;
+            }
+
+            String converter = findConverter(parameterType, processorUtils);
+
+            if (converter == null) {
+
+                gatherer.gatherError(String.format("Parameters annotated with @%s must be of type %s, a primitive " +
+                                        "type, a primitive wrapper, %s or an enum.", annotationClass.getSimpleName(),
+                                String.class.getName(), UUID.class.getName()), variableElement,
+                        LoggingUtils.LogLevel.ERROR);
+                return;
+            }
+
+            parameter.setConverter(converter);
+        }
+
+        private String findConverter(TypeMirror parameterType, ProcessorUtils processorUtils) {
+
+            switch (parameterType.getKind()) {
+                case BOOLEAN:
+                    return "Boolean.parseBoolean";
+                case BYTE:
+                    return "Byte.parseByte";
+                case SHORT:
+                    return "Short.parseShort";
+                case INT:
+                    return "Integer.parseInt";
+                case LONG:
+                    return "Long.parseLong";
+                case FLOAT:
+                    return "Float.parseFloat";
+                case DOUBLE:
+                    return "Double.parseDouble";
+                case CHAR:
+                    return PARSE_CHAR_METHOD_NAME;
+                case DECLARED:
+                    break;
+                default:
+                    return null;
+            }
+
+            if (processorUtils.isEnum(parameterType)) {
+
+                return String.format("%s.valueOf", parameterType.toString());
+            }
+
+            switch (parameterType.toString()) {
+                case "java.lang.Boolean":
+                    return "Boolean.valueOf";
+                case "java.lang.Byte":
+                    return "Byte.valueOf";
+                case "java.lang.Short":
+                    return "Short.valueOf";
+                case "java.lang.Integer":
+                    return "Integer.valueOf";
+                case "java.lang.Long":
+                    return "Long.valueOf";
+                case "java.lang.Float":
+                    return "Float.valueOf";
+                case "java.lang.Double":
+                    return "Double.valueOf";
+                case "java.lang.Character":
+                    /* Boxed by the compiler at the call site. */
+                    return PARSE_CHAR_METHOD_NAME;
+                case "java.util.UUID":
+                    return "java.util.UUID.fromString";
+                default:
+                    return null;
+            }
+        }
     }
 }
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.annotation.processor.model;
+
+import com.google.common.base.Splitter;
+import com.nudroid.annotation.processor.UsedBy;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * A node in the path segment tree used by the router to match content URIs. The tree is built from the {@link
+ * MatcherUri}s registered on a delegate class and is rendered as nested switch and if statements, so the path segments of a
+ * request are walked only once.
+ * <p>
+ * At each level, literal segments are tried first, then number placeholders ('#') and then string placeholders ('*').
+ * Contrary to UriMatcher, if a branch fails further down the path the next candidate branch is still attempted.
+ *
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+public class PathSegmentNode {
+
+    private final String segment;
+    private final int depth;
+    private MatcherUri matcherUri;
+    private final NavigableMap<String, PathSegmentNode> literalChildren = new TreeMap<>();
+    private PathSegmentNode numberChild;
+    private PathSegmentNode stringChild;
+
+    private PathSegmentNode(String segment, int depth) {
+
+        this.segment = segment;
+        this.depth = depth;
+    }
+
+    /**
+     * Gets the path segment matched by this node: either a literal or one of the UriMatcher patterns.
+     *
+     * @return the path segment matched by this node
+     */
+    @UsedBy("RouterTemplate.stg")
+    public String getSegment() {
+
+        return segment;
+    }
+
+    /**
+     * Gets the index of the path segment the children of this node are matched against. This is also the number of
+     * segments a path must have to be matched by this node's {@link MatcherUri}.
+     *
+     * @return the depth of this node in the tree
+     */
+    @UsedBy("RouterTemplate.stg")
+    public int getDepth() {
+
+        return depth;
+    }
+
+    /**
+     * Gets the URI matched when the path ends at this node.
+     *
+     * @return the URI matched by this node, or <tt>null</tt> if no URI ends at this node
+     */
+    @UsedBy("RouterTemplate.stg")
+    public MatcherUri getMatcherUri() {
+
+        return matcherUri;
+    }
+
+    /**
+     * Checks if a URI ends at this node.
+     *
+     * @return <tt>true</tt> if it does, <tt>false</tt> otherwise
+     */
+    @UsedBy("RouterTemplate.stg")
+    public boolean isTerminal() {
+
+        return matcherUri != null;
+    }
+
+    /**
+     * Checks if this node has any children.
+     *
+     * @return <tt>true</tt> if it has, <tt>false</tt> otherwise
+     */
+    @UsedBy("RouterTemplate.stg")
+    public boolean getHasChildren() {
+
+        return !literalChildren.isEmpty() || numberChild != null || stringChild != null;
+    }
+
+    /**
+     * Gets the children matching literal path segments, sorted by segment.
+     *
+     * @return the children matching literal path segments
+     */
+    @UsedBy("RouterTemplate.stg")
+    public Collection<PathSegmentNode> getLiteralChildren() {
+
+        return literalChildren.values();
+    }
+
+    /**
+     * Gets the child matching number placeholders ('#').
+     *
+     * @return the child matching number placeholders, or <tt>null</tt> if there is none
+     */
+    @UsedBy("RouterTemplate.stg")
+    public PathSegmentNode getNumberChild() {
+
+        return numberChild;
+    }
+
+    /**
+     * Gets the child matching string placeholders ('*').
+     *
+     * @return the child matching string placeholders, or <tt>null</tt> if there is none
+     */
+    @UsedBy("RouterTemplate.stg")
+    public PathSegmentNode getStringChild() {
+
+        return stringChild;
+    }
+
+    private PathSegmentNode findOrCreateChild(String childSegment) {
+
+        if (UriMatcherPathPatternType.NUMBER.getPattern()
+                .equals(childSegment)) {
+
+            if (numberChild == null) {
+                numberChild = new PathSegmentNode(childSegment, depth + 1);
+            }
+
+            return numberChild;
+        }
+
+        if (UriMatcherPathPatternType.STRING.getPattern()
+                .equals(childSegment)) {
+
+            if (stringChild == null) {
+                stringChild = new PathSegmentNode(childSegment, depth + 1);
+            }
+
+            return stringChild;
+        }
+
+        PathSegmentNode child = literalChildren.get(childSegment);
+
+        if (child == null) {
+            child = new PathSegmentNode(childSegment, depth + 1);
+            literalChildren.put(childSegment, child);
+        }
+
+        return child;
+    }
+
+    @Override
+    public String toString() {
+        return "PathSegmentNode{" +
+                "segment='" + segment + '\'' +
+                ", depth=" + depth +
+                ", matcherUri=" + matcherUri +
+                ", literalChildren=" + literalChildren.values() +
+                ", numberChild=" + numberChild +
+                ", stringChild=" + stringChild +
+                '}';
+    }
+
+    /**
+     * Creates the root node of a new, empty, path segment tree.
+     *
+     * @return the root node of the tree
+     */
+    static PathSegmentNode newTree() {
+
+        return new PathSegmentNode("", 0);
+    }
+
+    /**
+     * Adds a URI to the tree rooted at this node, creating the intermediate nodes as needed.
+     *
+     * @param matcherUri
+     *         the URI to add
+     */
+    void addMatcherUri(MatcherUri matcherUri) {
+
+        /* Empty segments are ignored, just like Uri.getPathSegments() does. */
+        List<String> pathSegments = Splitter.on('/')
+                .trimResults()
+                .omitEmptyStrings()
+                .splitToList(matcherUri.getNormalizedPath());
+
+        PathSegmentNode node = this;
+
+        for (String pathSegment : pathSegments) {
+
+            node = node.findOrCreateChild(pathSegment);
+        }
+
+        node.matcherUri = matcherUri;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.annotation.processor.model;
+
+import com.nudroid.annotation.processor.ProcessorUtils;
+import com.nudroid.annotation.processor.UsedBy;
+import com.nudroid.annotation.processor.ValidationErrorGatherer;
+
+import java.util.function.Consumer;
+
+/**
+ * A query string parameter bound to a delegate method, with its position in the array of query string values decoded
+ * by the router for the {@link MatcherUri} the method is bound to.
+ *
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+class QueryParamBinding {
+
+    private final int position;
+    private final String name;
+
+    private QueryParamBinding(String name, int position) {
+
+        this.name = name;
+        this.position = position;
+    }
+
+    /**
+     * Gets the position of this parameter in the array of query string values.
+     *
+     * @return the parameter's position in the array of query string values
+     */
+    @UsedBy("RouterTemplateQuery.stg")
+    public int getPosition() {
+
+        return position;
+    }
+
+    /**
+     * Gets the name of this query string parameter.
+     *
+     * @return the name of the parameter
+     */
+    @UsedBy("RouterTemplateQuery.stg")
+    public String getName() {
+
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return "QueryParamBinding{" +
+                "position=" + position +
+                ", name='" + name + '\'' +
+                '}';
+    }
+
+    /**
+     * Builder for QueryParamBinding.
+     */
+    public static class Builder implements ModelBuilder<QueryParamBinding> {
+
+        private final int position;
+        private final String name;
+
+        /**
+         * Initializes the builder.
+         *
+         * @param name
+         *         the name of the query string parameter
+         * @param position
+         *         the position in the array of query string values
+         */
+        public Builder(String name, int position) {
+
+            this.name = name;
+            this.position = position;
+        }
+
+        /**
+         * Builds a new QueryParamBinding.
+         * <p>
+         * {@inheritDoc}
+         */
+        public QueryParamBinding build(ProcessorUtils processorUtils, Consumer<ValidationErrorGatherer> errorCallback) {
+
+            return new QueryParamBinding(this.name, this.position);
+        }
+    }
+}
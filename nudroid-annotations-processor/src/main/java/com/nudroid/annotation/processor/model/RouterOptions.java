@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.annotation.processor.model;
+
+import com.nudroid.annotation.processor.LoggingUtils;
+import com.nudroid.annotation.processor.UsedBy;
+
+import java.util.Map;
+
+/**
+ * Processor options changing the code generated for the routers and content providers. Options are read from the
+ * annotation processor options (i.e. <tt>-A&lt;option&gt;=&lt;value&gt;</tt>) and, when absent, from the system
+ * properties.
+ *
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+public class RouterOptions {
+
+    /**
+     * How routers obtain their ContentProviderContexts: <tt>none</tt> (the default) creates a new context per request,
+     * <tt>shared</tt> reuses contexts from a bounded pool shared by all threads and <tt>thread</tt> reuses one context
+     * per thread.
+     */
+    public static final String CONTEXT_POOL_OPTION = "com.nudroid.annotation.processor.context.pool";
+
+    /**
+     * The maximum number of idle contexts kept by <tt>shared</tt> pools.
+     */
+    public static final String CONTEXT_POOL_SIZE_OPTION = "com.nudroid.annotation.processor.context.pool.size";
+
+    /**
+     * Whether routers record per-route request counts and latency histograms: <tt>true</tt> or <tt>false</tt> (the
+     * default).
+     */
+    public static final String ROUTE_METRICS_OPTION = "com.nudroid.annotation.processor.router.metrics";
+
+    /**
+     * Whether routers open RouterTracer sections around URI matching, interceptors and delegate methods: <tt>true</tt>
+     * or <tt>false</tt> (the default).
+     */
+    public static final String TRACING_OPTION = "com.nudroid.annotation.processor.router.tracing";
+
+    /**
+     * When content providers create their delegate and router: <tt>eager</tt> (the default) creates them in
+     * <tt>ContentProvider.onCreate()</tt>, <tt>lazy</tt> creates them on the first request and <tt>background</tt>
+     * creates them on a background thread started by <tt>onCreate()</tt>, with requests waiting until they are ready.
+     * In the lazy modes, the result of <tt>ContentProviderDelegate.onCreate()</tt> is ignored.
+     */
+    public static final String PROVIDER_INIT_OPTION = "com.nudroid.annotation.processor.provider.init";
+
+    private static final int DEFAULT_CONTEXT_POOL_SIZE = 8;
+
+    private ContextPool contextPool = ContextPool.NONE;
+    private int contextPoolSize = DEFAULT_CONTEXT_POOL_SIZE;
+    private boolean routeMetrics;
+    private boolean tracing;
+    private ProviderInit providerInit = ProviderInit.EAGER;
+
+    private RouterOptions() {
+    }
+
+    /**
+     * Checks if routers obtain their ContentProviderContexts from a pool.
+     *
+     * @return <tt>true</tt> if they do, <tt>false</tt> if a new context is created per request
+     */
+    @UsedBy({"RouterTemplate.stg", "RouterTemplateQuery.stg", "RouterTemplateInsert.stg", "RouterTemplateUpdate.stg",
+            "RouterTemplateDelete.stg"})
+    public boolean isContextPool() {
+
+        return contextPool != ContextPool.NONE;
+    }
+
+    /**
+     * Checks if the context pool keeps one context per thread.
+     *
+     * @return <tt>true</tt> if it does, <tt>false</tt> if the pool is shared by all threads
+     */
+    @UsedBy("RouterTemplate.stg")
+    public boolean isThreadLocalContextPool() {
+
+        return contextPool == ContextPool.THREAD;
+    }
+
+    /**
+     * Gets the maximum number of idle contexts kept by a shared pool.
+     *
+     * @return the size of the shared pool
+     */
+    @UsedBy("RouterTemplate.stg")
+    public int getContextPoolSize() {
+
+        return contextPoolSize;
+    }
+
+    /**
+     * Checks if routers record per-route metrics.
+     *
+     * @return <tt>true</tt> if they do, <tt>false</tt> otherwise
+     */
+    @UsedBy({"RouterTemplate.stg", "RouterTemplateQuery.stg", "RouterTemplateInsert.stg", "RouterTemplateUpdate.stg",
+            "RouterTemplateDelete.stg"})
+    public boolean isRouteMetrics() {
+
+        return routeMetrics;
+    }
+
+    /**
+     * Checks if routers open tracing sections.
+     *
+     * @return <tt>true</tt> if they do, <tt>false</tt> otherwise
+     */
+    @UsedBy({"RouterTemplate.stg", "RouterTemplateQuery.stg", "RouterTemplateInsert.stg", "RouterTemplateUpdate.stg",
+            "RouterTemplateDelete.stg"})
+    public boolean isTracing() {
+
+        return tracing;
+    }
+
+    /**
+     * Checks if content providers create their delegate and router after <tt>onCreate()</tt>, either on the first
+     * request or in the background.
+     *
+     * @return <tt>true</tt> if they do, <tt>false</tt> if they are created by <tt>onCreate()</tt>
+     */
+    @UsedBy("ContentProviderTemplate.stg")
+    public boolean isLazyProviderInit() {
+
+        return providerInit != ProviderInit.EAGER;
+    }
+
+    /**
+     * Checks if content providers create their delegate and router on a background thread.
+     *
+     * @return <tt>true</tt> if they do, <tt>false</tt> otherwise
+     */
+    @UsedBy("ContentProviderTemplate.stg")
+    public boolean isBackgroundProviderInit() {
+
+        return providerInit == ProviderInit.BACKGROUND;
+    }
+
+    @Override
+    public String toString() {
+        return "RouterOptions{" +
+                "contextPool=" + contextPool +
+                ", contextPoolSize=" + contextPoolSize +
+                ", routeMetrics=" + routeMetrics +
+                ", tracing=" + tracing +
+                ", providerInit=" + providerInit +
+                '}';
+    }
+
+    /**
+     * Reads the router options. Invalid values are reported as warnings and replaced by the default values.
+     *
+     * @param processorOptions
+     *         the options passed to the annotation processor
+     * @param logger
+     *         the logger reporting invalid values
+     *
+     * @return the router options
+     */
+    public static RouterOptions fromProcessorOptions(Map<String, String> processorOptions, LoggingUtils logger) {
+
+        RouterOptions options = new RouterOptions();
+
+        String contextPool = readOption(processorOptions, CONTEXT_POOL_OPTION);
+
+        if (contextPool != null) {
+
+            try {
+
+                options.contextPool = ContextPool.valueOf(contextPool.trim()
+                        .toUpperCase());
+            } catch (IllegalArgumentException e) {
+
+                logger.warn(String.format("Invalid value '%s' for option %s. Expected one of none, shared or thread.",
+                        contextPool, CONTEXT_POOL_OPTION));
+            }
+        }
+
+        String contextPoolSize = readOption(processorOptions, CONTEXT_POOL_SIZE_OPTION);
+
+        if (contextPoolSize != null) {
+
+            try {
+
+                options.contextPoolSize = Integer.parseInt(contextPoolSize.trim());
+            } catch (NumberFormatException e) {
+
+                options.contextPoolSize = 0;
+            }
+
+            if (options.contextPoolSize <= 0) {
+
+                logger.warn(String.format("Invalid value '%s' for option %s. Expected a positive number.",
+                        contextPoolSize, CONTEXT_POOL_SIZE_OPTION));
+                options.contextPoolSize = DEFAULT_CONTEXT_POOL_SIZE;
+            }
+        }
+
+        String providerInit = readOption(processorOptions, PROVIDER_INIT_OPTION);
+
+        if (providerInit != null) {
+
+            try {
+
+                options.providerInit = ProviderInit.valueOf(providerInit.trim()
+                        .toUpperCase());
+            } catch (IllegalArgumentException e) {
+
+                logger.warn(String.format(
+                        "Invalid value '%s' for option %s. Expected one of eager, lazy or background.", providerInit,
+                        PROVIDER_INIT_OPTION));
+            }
+        }
+
+        options.routeMetrics = readBooleanOption(processorOptions, ROUTE_METRICS_OPTION, logger);
+        options.tracing = readBooleanOption(processorOptions, TRACING_OPTION, logger);
+
+        return options;
+    }
+
+    private static boolean readBooleanOption(Map<String, String> processorOptions, String name, LoggingUtils logger) {
+
+        String value = readOption(processorOptions, name);
+
+        if (value == null || "false".equalsIgnoreCase(value.trim())) {
+
+            return false;
+        }
+
+        if ("true".equalsIgnoreCase(value.trim())) {
+
+            return true;
+        }
+
+        logger.warn(String.format("Invalid value '%s' for option %s. Expected true or false.", value, name));
+
+        return false;
+    }
+
+    private static String readOption(Map<String, String> processorOptions, String name) {
+
+        String value = processorOptions.get(name);
+
+        return value != null ? value : System.getProperty(name);
+    }
+
+    private enum ContextPool {
+        NONE, SHARED, THREAD
+    }
+
+    private enum ProviderInit {
+        EAGER, LAZY, BACKGROUND
+    }
+}
@@ -45,8 +45,9 @@ public enum UriMatcherPathPatternType {
     }
 
     /**
-     * Given a class name, get the appropriate uri matcher pattern. This method returns STRING for "java.lang.String"
-     * and NUMBER for everything else.
+     * Given a class name, get the appropriate uri matcher pattern. This method returns NUMBER for integral types (int,
+     * long, short and byte, as well as their wrappers) and STRING for everything else. Other types, such as floating
+     * point numbers, booleans or enums, can't be matched with the digits-only NUMBER pattern.
      *
      * @param className
      *         the class name to check for
@@ -55,12 +56,18 @@ public enum UriMatcherPathPatternType {
      */
     public static UriMatcherPathPatternType fromClass(String className) {
 
-        String stringClassName = String.class.getName();
-
-        if (className.equals(stringClassName)) {
-            return STRING;
-        } else {
-            return NUMBER;
+        switch (className) {
+            case "int":
+            case "long":
+            case "short":
+            case "byte":
+            case "java.lang.Integer":
+            case "java.lang.Long":
+            case "java.lang.Short":
+            case "java.lang.Byte":
+                return NUMBER;
+            default:
+                return STRING;
         }
     }
 
@@ -37,6 +37,8 @@ import java.util.Set;
 import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * A mapping between a path and a method. This class maps a path (+ query string) to a target delegate method.
@@ -49,6 +51,7 @@ public class UriToMethodBinding {
     private static final Pattern PLACEHOLDER_PATTERN = Pattern.compile("\\{([^\\}]+)\\}");
 
     private DelegateMethod delegateMethod;
+    private MatcherUri matcherUri;
     private String path;
     private Map<String, PathParamBinding> pathParameterBindings = new HashMap<>();
     private Set<String> queryStringParameters = new HashSet<>();
@@ -79,6 +82,58 @@ public class UriToMethodBinding {
         return delegateMethod;
     }
 
+    /**
+     * Gets the {@link MatcherUri} this binding has been registered with.
+     *
+     * @return the {@link MatcherUri} matching this binding's path
+     */
+    @UsedBy({"RouterTemplateQuery.stg", "RouterTemplateInsert.stg", "RouterTemplateUpdate.stg",
+            "RouterTemplateDelete.stg"})
+    public MatcherUri getMatcherUri() {
+
+        return matcherUri;
+    }
+
+    /**
+     * Gets the index of this binding in the routes of its delegate class.
+     *
+     * @return the route index of this binding
+     *
+     * @see DelegateClass#getRouteBindings()
+     */
+    @UsedBy({"RouterTemplateQuery.stg", "RouterTemplateInsert.stg", "RouterTemplateUpdate.stg",
+            "RouterTemplateDelete.stg"})
+    public int getRouteIndex() {
+
+        List<UriToMethodBinding> routeBindings = matcherUri.getDelegateClass()
+                .getRouteBindings();
+
+        /* Bindings for different operations on the same path are equal, so look the binding up by identity. */
+        for (int i = 0; i < routeBindings.size(); i++) {
+
+            if (routeBindings.get(i) == this) {
+
+                return i;
+            }
+        }
+
+        throw new IllegalStateException(String.format("Binding %s is not registered with its delegate class", this));
+    }
+
+    /**
+     * Gets the Java expression creating the RouteMetrics of this binding.
+     *
+     * @return the initializer of this binding's entry in the router's metrics table
+     */
+    @UsedBy("RouterTemplate.stg")
+    public String getRouteMetricsInitializer() {
+
+        return String.format("new RouteMetrics(%d, %s, %s, %s)", matcherUri.getId(),
+                InterceptorAnnotationParameter.toJavaStringLiteral(delegateMethod.getOperation()),
+                InterceptorAnnotationParameter.toJavaStringLiteral(delegateMethod.getUriPath()),
+                InterceptorAnnotationParameter.toJavaStringLiteral(delegateMethod.getName()));
+    }
+
     /**
      * Counts the parameters for the delegate method mapping to a query string parameter.
      *
@@ -89,6 +144,33 @@ public class UriToMethodBinding {
         return queryStringParameters.size();
     }
 
+    /**
+     * Gets the names of the query string parameters this binding requires.
+     *
+     * @return the names of the query string parameters
+     */
+    Set<String> getQueryStringParameterNames() {
+
+        return queryStringParameters;
+    }
+
+    /**
+     * Gets the names of all placeholders this binding reads: its path placeholders, its query string parameters and
+     * the placeholders of its delegate method parameters.
+     *
+     * @return the placeholder names, possibly with duplicates
+     */
+    Stream<String> placeholderNames() {
+
+        Stream<String> methodPlaceholderNames = delegateMethod.getParameters()
+                .stream()
+                .filter(Parameter::isUriParameter)
+                .map(Parameter::getPlaceholderName);
+
+        return Stream.concat(Stream.concat(pathParameterBindings.keySet()
+                .stream(), queryStringParameters.stream()), methodPlaceholderNames);
+    }
+
     /**
      * Checks if this delegate method has path parameters.
      *
@@ -112,14 +194,73 @@ public class UriToMethodBinding {
     }
 
     /**
-     * Gets the query parameter bindings.
+     * Gets the query parameter bindings, positioned in the array of query string values decoded for the operation of
+     * this binding on the {@link MatcherUri} it has been registered with.
      *
      * @return the query parameters bindings
      */
     @UsedBy({"RouterTemplateQuery.stg", "RouterTemplateUpdate.stg"})
-    public Collection<String> getQueryStringParameterBindings() {
+    public List<QueryParamBinding> getQueryStringParameterBindings() {
 
-        return queryStringParameters;
+        List<String> matcherUriParameterNames = matcherUri.getQueryStringParameterNames(this);
+
+        return queryStringParameters.stream()
+                .sorted()
+                .map(name -> new QueryParamBinding.Builder(name, matcherUriParameterNames.indexOf(name)).build(null,
+                        null))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Gets the bit mask, as a Java long literal, of the query string parameters this binding requires. Bit <tt>i</tt>
+     * is set if this binding requires the parameter at position <tt>i</tt> of the query string parameter names of the
+     * operation of this binding on the {@link MatcherUri}.
+     *
+     * @return the query string parameter mask literal (e.g. <tt>0x5L</tt>)
+     */
+    @UsedBy({"RouterTemplateQuery.stg", "RouterTemplateUpdate.stg"})
+    public String getQueryStringParameterMask() {
+
+        List<String> matcherUriParameterNames = matcherUri.getQueryStringParameterNames(this);
+        long mask = 0L;
+
+        for (String name : queryStringParameters) {
+
+            mask |= 1L << matcherUriParameterNames.indexOf(name);
+        }
+
+        return String.format("0x%xL", mask);
+    }
+
+    /**
+     * Gets the position of each query string parameter name in the array of query string values decoded for the
+     * operation of this binding on the {@link MatcherUri}.
+     *
+     * @return the map of query string parameter names to positions
+     */
+    @UsedBy({"RouterTemplateQuery.stg", "RouterTemplateInsert.stg", "RouterTemplateUpdate.stg",
+            "RouterTemplateDelete.stg", "RouterTemplateOpenFile.stg"})
+    public Map<String, Integer> getQueryStringParameterPositions() {
+
+        List<String> matcherUriParameterNames = matcherUri.getQueryStringParameterNames(this);
+        Map<String, Integer> positions = new HashMap<>();
+
+        for (int i = 0; i < matcherUriParameterNames.size(); i++) {
+            positions.put(matcherUriParameterNames.get(i), i);
+        }
+
+        return positions;
+    }
+
+    /**
+     * Sets the {@link MatcherUri} this binding has been registered with.
+     *
+     * @param matcherUri
+     *         the {@link MatcherUri} matching this binding's path
+     */
+    void setMatcherUri(MatcherUri matcherUri) {
+
+        this.matcherUri = matcherUri;
     }
 
     @SuppressWarnings("RedundantIfStatement")
@@ -136,4 +136,17 @@ public class ContentProviderAnnotationTest {
                 .getImplementsContentProviderDelegateInterface())
                 .isTrue();
     }
+
+    @Test
+    public void testUnsupportedUriParameterTypeNotAllowed() {
+
+        JavaFileObject fileObject =
+                JavaFileObjects.forResource("testee/UnsupportedUriParameterTypeTestSubject.java");
+        Truth.ASSERT.about(javaSource())
+                .that(fileObject)
+                .processedWith(new ProviderAnnotationProcessor())
+                .failsToCompile()
+                .withErrorContaining("Parameters annotated with @PathParam must be of type java.lang.String, a " +
+                        "primitive type, a primitive wrapper, java.util.UUID or an enum.");
+    }
 }
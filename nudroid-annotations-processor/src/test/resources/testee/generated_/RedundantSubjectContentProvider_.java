@@ -23,10 +23,15 @@
 package testee.generated_;
 
 import android.content.ContentProvider;
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
 import android.content.ContentValues;
+import android.content.OperationApplicationException;
 import android.database.Cursor;
 import android.net.Uri;
 
+import java.util.ArrayList;
+
 public class RedundantSubjectContentProvider_ extends ContentProvider {
 
     private RedundantContentProviderDelegateSubjectRouter_ mContentProviderRouter;
@@ -55,6 +60,19 @@ public class RedundantSubjectContentProvider_ extends ContentProvider {
         return mContentProviderRouter.insert(getContext(), contentUri, contentValues);
     }
 
+    @Override
+    public int bulkInsert(Uri contentUri, ContentValues[] values) {
+
+        return mContentProviderRouter.bulkInsert(getContext(), contentUri, values);
+    }
+
+    @Override
+    public ContentProviderResult[] applyBatch(ArrayList<ContentProviderOperation> operations)
+            throws OperationApplicationException {
+
+        return mContentProviderRouter.applyBatch(this, getContext(), operations);
+    }
+
     @Override
     public int update(Uri contentUri, ContentValues contentValues, String selection, String[] selectionArgs) {
         return mContentProviderRouter.update(getContext(), contentUri, contentValues, selection, selectionArgs);
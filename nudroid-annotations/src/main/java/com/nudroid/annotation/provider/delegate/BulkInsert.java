@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.annotation.provider.delegate;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Target;
+
+/**
+ * <p>Denotes a method responsible for handling a bulk insert operation sent to a content provider.</p>
+ *
+ * <p>Methods annotated with BulkInsert receive all the rows of the bulk insert at once, through a parameter of type
+ * <tt>ContentValues[]</tt> annotated with {@link ContentValuesRef}, and must return an integer value denoting the
+ * number of rows inserted. Interceptors applied to the method are invoked once for the whole batch.</p>
+ *
+ * <p>If no method is annotated with BulkInsert for a path, bulk inserts are routed to the {@link Insert} method for
+ * that path, which is invoked once per row. Interceptors are still invoked only once for the whole batch.</p>
+ *
+ * <p>Insert operations applied in a batch are dispatched one at a time to the {@link Insert} method for their path. If
+ * {@link #groupBatchInserts()} is set, consecutive insert operations on the path are dispatched together to the
+ * BulkInsert method instead.</p>
+ *
+ * <p>Example usage:</p>
+ * 
+ * <pre>
+ * &#064;ContentProvider(authority = &quot;com.example.userscontentprovider&quot;)
+ * public class UsersContentProviderDelegate {
+ *     &#064;BulkInsert(&quot;/users&quot;)
+ *     public int insertUsers(@ContentValuesRef ContentValues[] contentValues) {
+ * 
+ *         ...
+ *     }
+ * }
+ * </pre>
+ * 
+ * <p>The above class and method definitions will respond the following content path URLs:
+ * <tt>content://com.example.userscontentprovider/users</tt>.</p>
+ * 
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+@Target({ ElementType.METHOD })
+@Documented
+public @interface BulkInsert {
+
+    /**
+     * Mandatory. The content path relative to the the content provider authority name.
+     *
+     * @return The content path relative to the the content provider authority name.
+     */
+    String value();
+
+    /**
+     * Optional. Whether consecutive insert operations on the path applied in a batch are dispatched as a single bulk
+     * insert. Operations whose results are back referenced by later operations of the batch are never grouped.
+     * <p>
+     * A bulk insert only returns the number of rows inserted, so the results of grouped operations hold the content path
+     * instead of the uri of each inserted row: callers must not parse ids from them. Defaults to <tt>false</tt>.
+     *
+     * @return <tt>true</tt> if batch inserts on the path are grouped, <tt>false</tt> otherwise.
+     */
+    boolean groupBatchInserts() default false;
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.annotation.provider.delegate;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Target;
+
+/**
+ * <p>Denotes a method responsible for handling a provider-defined call, i.e. handling
+ * <tt>ContentProvider.call(String, String, Bundle)</tt> for a given method name.</p>
+ *
+ * <p>Methods annotated with Call must return an <tt>android.os.Bundle</tt>. They are not bound to a content URI: the
+ * generated content provider selects them by the method name alone. Their parameters may be annotated with
+ * {@link ContextRef}, {@link CallArg} or {@link CallExtras}. A call avoids creating a cursor and its CursorWindow, which
+ * makes it cheaper than a single row query for reading one value or triggering one action. Calls require API level
+ * 11.</p>
+ *
+ * <p>Example usage:</p>
+ * 
+ * <pre>
+ * &#064;ContentProvider(authority = &quot;com.example.settingscontentprovider&quot;)
+ * public class SettingsContentProviderDelegate {
+ *     &#064;Call(&quot;getSetting&quot;)
+ *     public Bundle getSetting(@CallArg String key) {
+ * 
+ *         ...
+ *     }
+ * }
+ * </pre>
+ * 
+ * <p>The above class and method definitions will respond to
+ * <tt>contentResolver.call(Uri.parse(&quot;content://com.example.settingscontentprovider&quot;), &quot;getSetting&quot;, key,
+ * null)</tt>.</p>
+ * 
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+@Target({ ElementType.METHOD })
+@Documented
+public @interface Call {
+
+    /**
+     * Mandatory. The name of the method, as passed to <tt>ContentResolver.call()</tt>.
+     *
+     * @return The name of the method.
+     */
+    String value();
+}
@@ -30,7 +30,8 @@ import java.lang.annotation.Target;
  * <p>Flags which parameter from a content provider delegate method will be passed the reference for the ContentValues
  * instance provided to the original content provider method.</p>
  *
- * <p>This annotation bears meaning only on {@link Update} or {@link Insert} annotated methods.</p>
+ * <p>This annotation bears meaning only on {@link Update}, {@link Insert} or {@link BulkInsert} annotated methods. The
+ * parameter must be of type <tt>ContentValues</tt>, or <tt>ContentValues[]</tt> on {@link BulkInsert} methods.</p>
  * 
  * <p>Example usage:</p>
  * 
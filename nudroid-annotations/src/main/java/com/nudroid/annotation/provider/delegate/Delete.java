@@ -46,6 +46,20 @@ import java.lang.annotation.Target;
  * 
  * <p>The above class and method definitions will respond the following content path URLs:
  * <tt>content://com.example.userscontentprovider/users/*</tt>.</p>
+ *
+ * <p>A set of rows can be deleted with a single request by binding a repeated query string parameter to a
+ * <tt>long[]</tt> parameter:</p>
+ *
+ * <pre>
+ *     &#064;Delete(&quot;/users&quot;)
+ *     public int deleteUsers(@QueryParam(&quot;id&quot;) long[] userIds) {
+ *
+ *         ...
+ *     }
+ * </pre>
+ *
+ * <p>A content delete request for URI <tt>content://com.example.userscontentprovider/users?id=1&amp;id=2&amp;id=3</tt>
+ * (or <tt>?id=1,2,3</tt>) will invoke <tt>deleteUsers</tt> once with all three ids.</p>
  * 
  * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
  */
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.annotation.provider.delegate;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Target;
+
+/**
+ * <p>Flags which parameter from a content provider delegate method will be passed the file access mode provided to the
+ * original content provider method (i.e. <tt>"r"</tt>, <tt>"w"</tt>, <tt>"rw"</tt> etc.).</p>
+ *
+ * <p>This annotation bears meaning only on {@link OpenFile} annotated methods.</p>
+ * 
+ * <p>Example usage:</p>
+ * 
+ * <pre>
+ * &#064;OpenFile(&quot;/users/{user_id}/avatar&quot;)
+ * public ParcelFileDescriptor openAvatar(@FileMode String mode, ...) {
+ * 
+ *     ...
+ * }
+ * </pre>
+ * 
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+@Target({ ElementType.PARAMETER })
+@Documented
+public @interface FileMode {
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.annotation.provider.delegate;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Target;
+
+/**
+ * <p>Declares the MIME type returned by the content provider <tt>getType()</tt> method for a content URI.</p>
+ *
+ * <p>When applied to a delegate method, the MIME type applies to the path of the method's {@link Query}, {@link
+ * Insert}, {@link BulkInsert}, {@link Update}, {@link Delete} or {@link OpenFile} annotation. All methods declaring a
+ * MIME type for the same path must declare the same one. When applied to the content provider delegate class, the MIME
+ * type applies to every path which does not declare its own, except paths only handled by {@link OpenFile} methods:
+ * they serve files, so their type must be declared on the methods. Paths without a MIME type yield
+ * <tt>null</tt>.</p>
+ *
+ * <p>MIME types are resolved at compile time: <tt>getType()</tt> does not invoke the delegate.</p>
+ *
+ * <p>Example usage:</p>
+ *
+ * <pre>
+ * &#064;ContentProvider(authority = &quot;com.example.userscontentprovider&quot;)
+ * public class UsersContentProviderDelegate {
+ *     &#064;Query(&quot;/users&quot;)
+ *     &#064;MimeType(&quot;vnd.android.cursor.dir/vnd.example.user&quot;)
+ *     public Cursor listUsers() {
+ *
+ *         ...
+ *     }
+ *
+ *     &#064;Query(&quot;/users/{user_id}&quot;)
+ *     &#064;MimeType(&quot;vnd.android.cursor.item/vnd.example.user&quot;)
+ *     public Cursor getUser(@PathParam(&quot;user_id&quot;) long userId) {
+ *
+ *         ...
+ *     }
+ * }
+ * </pre>
+ *
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Documented
+public @interface MimeType {
+
+    /**
+     * Mandatory. The MIME type, in the form <tt>type/subtype</tt>.
+     *
+     * @return The MIME type.
+     */
+    String value();
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.annotation.provider.delegate;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Target;
+
+/**
+ * <p>Denotes a method responsible for opening a file sent by a content provider, i.e. handling
+ * <tt>ContentProvider.openFile(Uri, String)</tt>.</p>
+ *
+ * <p>Methods annotated with OpenFile must return an <tt>android.os.ParcelFileDescriptor</tt> and may throw
+ * <tt>java.io.FileNotFoundException</tt>. The access mode requested by the client (<tt>"r"</tt>, <tt>"rw"</tt> etc.)
+ * is bound to a String parameter annotated with {@link FileMode}. <tt>com.nudroid.provider.delegate.FileDelivery</tt>
+ * streams file regions and memory-mapped buffers to the client through a pipe, without copying them through a
+ * cursor.</p>
+ *
+ * <p>Example usage:</p>
+ * 
+ * <pre>
+ * &#064;ContentProvider(authority = &quot;com.example.userscontentprovider&quot;)
+ * public class UsersContentProviderDelegate {
+ *     &#064;OpenFile(&quot;/users/{user_id}/avatar&quot;)
+ *     public ParcelFileDescriptor openAvatar(@PathParam(&quot;user_id&quot;) String userId, @FileMode String mode)
+ *             throws FileNotFoundException {
+ * 
+ *         ...
+ *     }
+ * }
+ * </pre>
+ * 
+ * <p>The above class and method definitions will respond the following content path URLs:
+ * <tt>content://com.example.userscontentprovider/users/&#42;/avatar</tt>.</p>
+ * 
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+@Target({ ElementType.METHOD })
+@Documented
+public @interface OpenFile {
+
+    /**
+     * Mandatory. The content path relative to the the content provider authority name.
+     *
+     * @return The content path relative to the the content provider authority name.
+     */
+    String value();
+}
@@ -49,6 +49,10 @@ import java.lang.annotation.Target;
  * will be matched by the <tt>deleteUser</tt> method above and the <tt>userId</tt> parameter will be passed the string
  * <tt>daniel.freitas</tt> while the <tt>cascadeType</tt> parameter will be passed the string <tt>1ST-LEVEL</tt>.</p>
  *
+ * <p>Parameters of type <tt>long[]</tt> are passed all the values of the query string parameter, which may be repeated
+ * (<tt>?id=1&amp;id=2</tt>) or hold a comma separated list (<tt>?id=1,2</tt>). Parameters of any other type are passed
+ * its first value.</p>
+ *
  * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
  */
 @Target({ElementType.PARAMETER})
@@ -116,6 +116,12 @@ import java.lang.annotation.Target;
  * subsequent interceptors. Similarly, <tt>afterXXX</tt> methods will receive these parameters plus the result returned
  * by the delegate method. The interceptor can change this result by returning another object from the <tt>afterXXX</tt>
  * methods.</p>
+ *
+ * <p>Interceptor instances are not created per request. The generated router creates them on first use and reuses
+ * them for subsequent requests: one instance per delegate method, or, when String elements of the annotation contain
+ * placeholders, one instance per distinct set of expanded element values. <tt>onCreate</tt> is called once per instance and the
+ * <tt>beforeXXX</tt>/<tt>afterXXX</tt> methods may be called concurrently, so interceptors must not keep per-request
+ * state in instance fields.</p>
  * 
  * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
  */
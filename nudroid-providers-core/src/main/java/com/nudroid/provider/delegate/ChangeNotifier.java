@@ -0,0 +1,387 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.provider.delegate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.net.Uri;
+
+/**
+ * Sends the change notifications of content provider delegates, coalescing those sent during bulk writes. Delegates
+ * call {@link #notifyChange(Context, Uri)} instead of <tt>ContentResolver.notifyChange()</tt>:
+ * 
+ * <pre>
+ * &#064;Insert(&quot;/users&quot;)
+ * public Uri insertUser(@ContextRef Context context, @ContentValuesRef ContentValues values) {
+ * 
+ *     final Uri userUri = ContentUris.withAppendedId(USERS_URI, insert(values));
+ *     ChangeNotifier.notifyChange(context, userUri);
+ * 
+ *     return userUri;
+ * }
+ * </pre>
+ * 
+ * Generated routers open a batch for the length of each <tt>bulkInsert</tt>, <tt>applyBatch</tt> and <tt>update</tt>
+ * call. Notifications sent during a batch are collected and sent once the batch ends, so observers re-query once
+ * instead of once per row:
+ * <ul>
+ * <li>Duplicates are sent once, and query strings are ignored, as they are by observers.</li>
+ * <li>URIs whose ancestor also changed are dropped: a notification for an URI reaches the observers of its
+ * descendants.</li>
+ * <li>More than {@link #setMaxSiblings(int) maxSiblings} changed URIs with the same parent are replaced by their
+ * parent.</li>
+ * </ul>
+ * Notifications sent outside a batch are sent right away, unless a debounce delay is set with
+ * {@link #setDebounceMillis(long)}. Notifications are then held for that delay and coalesced across calls.
+ * 
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+public final class ChangeNotifier {
+
+    /**
+     * The default maximum number of changed URIs with the same parent sent as is.
+     */
+    public static final int DEFAULT_MAX_SIBLINGS = 8;
+
+    private static final ThreadLocal<Batch> sBatch = new ThreadLocal<Batch>() {
+
+        @Override
+        protected Batch initialValue() {
+
+            return new Batch();
+        }
+    };
+
+    private static volatile int sMaxSiblings = DEFAULT_MAX_SIBLINGS;
+    private static volatile long sDebounceMillis = 0;
+
+    private static final Object sPendingLock = new Object();
+    private static final Set<Uri> sPendingUris = new LinkedHashSet<Uri>();
+    private static ContentResolver sPendingResolver;
+    private static ScheduledExecutorService sDebounceExecutor;
+
+    private ChangeNotifier() {
+
+    }
+
+    /**
+     * Sets the number of changed URIs with the same parent above which the parent is notified instead.
+     * 
+     * @param maxSiblings
+     *            The maximum number of sibling URIs notified as is.
+     */
+    public static void setMaxSiblings(int maxSiblings) {
+
+        if (maxSiblings <= 0) {
+            throw new IllegalArgumentException(String.format("maxSiblings must be positive: %d", maxSiblings));
+        }
+
+        sMaxSiblings = maxSiblings;
+    }
+
+    /**
+     * Sets the time notifications are held, and coalesced, before they are sent. Notifications are sent right away by
+     * default.
+     * 
+     * @param debounceMillis
+     *            The delay, in milliseconds, or 0 to send notifications right away.
+     */
+    public static void setDebounceMillis(long debounceMillis) {
+
+        if (debounceMillis < 0) {
+            throw new IllegalArgumentException(String.format("debounceMillis must not be negative: %d",
+                    debounceMillis));
+        }
+
+        sDebounceMillis = debounceMillis;
+    }
+
+    /**
+     * Notifies the observers of an URI that its content changed. The notification is deferred while a batch is open on
+     * the calling thread.
+     * 
+     * @param context
+     *            The content provider context.
+     * @param uri
+     *            The URI whose content changed.
+     */
+    public static void notifyChange(Context context, Uri uri) {
+
+        final Batch batch = sBatch.get();
+
+        if (batch.mDepth > 0) {
+            batch.mUris.add(uri);
+        } else {
+            send(context.getContentResolver(), collapse(Collections.singleton(uri), sMaxSiblings));
+        }
+    }
+
+    /**
+     * Opens a batch on the calling thread. Batches may be nested: notifications are sent when the outermost batch ends.
+     */
+    public static void beginBatch() {
+
+        sBatch.get().mDepth++;
+    }
+
+    /**
+     * Ends the batch opened on the calling thread by the latest call to {@link #beginBatch()}. Sends the notifications
+     * collected during the batch if it is the outermost one.
+     * 
+     * @param context
+     *            The content provider context.
+     */
+    public static void endBatch(Context context) {
+
+        final Batch batch = sBatch.get();
+
+        if (batch.mDepth <= 0) {
+            throw new IllegalStateException("No batch is open on this thread");
+        }
+
+        if (--batch.mDepth == 0 && !batch.mUris.isEmpty()) {
+
+            final Set<Uri> uris = collapse(batch.mUris, sMaxSiblings);
+            batch.mUris.clear();
+            send(context.getContentResolver(), uris);
+        }
+    }
+
+    /**
+     * Reduces a set of changed URIs to the smallest set of URIs reaching the same observers: query strings are dropped,
+     * more than <tt>maxSiblings</tt> URIs with the same parent are replaced by their parent and URIs whose ancestor is
+     * in the set are dropped.
+     * 
+     * @param uris
+     *            The changed URIs.
+     * @param maxSiblings
+     *            The maximum number of sibling URIs kept as is.
+     * @return The URIs to notify, sorted.
+     */
+    static Set<Uri> collapse(Collection<Uri> uris, int maxSiblings) {
+
+        final Set<String> paths = new TreeSet<String>();
+
+        for (Uri uri : uris) {
+            paths.add(normalize(uri));
+        }
+
+        final Set<Uri> collapsed = new LinkedHashSet<Uri>();
+
+        for (String path : collapsePaths(paths, maxSiblings)) {
+            collapsed.add(Uri.parse(path));
+        }
+
+        return collapsed;
+    }
+
+    /**
+     * Reduces a set of normalized URIs, without query strings and trailing slashes, as {@link #collapse(Collection,
+     * int)} does.
+     * 
+     * @param paths
+     *            The normalized changed URIs, sorted. The set is modified.
+     * @param maxSiblings
+     *            The maximum number of sibling URIs kept as is.
+     * @return The normalized URIs to notify, sorted.
+     */
+    static Set<String> collapsePaths(Set<String> paths, int maxSiblings) {
+
+        boolean replaced = true;
+
+        while (replaced) {
+
+            replaced = false;
+            final Map<String, List<String>> siblings = new HashMap<String, List<String>>();
+
+            for (String path : paths) {
+
+                final String parent = parentOf(path);
+
+                if (parent != null) {
+
+                    List<String> children = siblings.get(parent);
+
+                    if (children == null) {
+                        children = new ArrayList<String>();
+                        siblings.put(parent, children);
+                    }
+
+                    children.add(path);
+                }
+            }
+
+            for (Map.Entry<String, List<String>> entry : siblings.entrySet()) {
+
+                if (entry.getValue()
+                        .size() > maxSiblings) {
+
+                    paths.removeAll(entry.getValue());
+                    paths.add(entry.getKey());
+                    replaced = true;
+                }
+            }
+        }
+
+        final Set<String> collapsed = new LinkedHashSet<String>();
+
+        for (String path : paths) {
+
+            if (!hasAncestorIn(path, paths)) {
+                collapsed.add(path);
+            }
+        }
+
+        return collapsed;
+    }
+
+    private static void send(ContentResolver resolver, Set<Uri> uris) {
+
+        if (sDebounceMillis == 0) {
+
+            for (Uri uri : uris) {
+                resolver.notifyChange(uri, null);
+            }
+
+            return;
+        }
+
+        synchronized (sPendingLock) {
+
+            final boolean scheduled = !sPendingUris.isEmpty();
+            sPendingUris.addAll(uris);
+            sPendingResolver = resolver;
+
+            if (!scheduled) {
+                debounceExecutor().schedule(new Runnable() {
+
+                    @Override
+                    public void run() {
+
+                        flushPending();
+                    }
+                }, sDebounceMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private static void flushPending() {
+
+        final ContentResolver resolver;
+        final Set<Uri> uris;
+
+        synchronized (sPendingLock) {
+
+            resolver = sPendingResolver;
+            uris = collapse(sPendingUris, sMaxSiblings);
+            sPendingUris.clear();
+            sPendingResolver = null;
+        }
+
+        for (Uri uri : uris) {
+            resolver.notifyChange(uri, null);
+        }
+    }
+
+    private static ScheduledExecutorService debounceExecutor() {
+
+        if (sDebounceExecutor == null) {
+
+            sDebounceExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+
+                    final Thread thread = new Thread(runnable, "ChangeNotifier");
+                    thread.setDaemon(true);
+
+                    return thread;
+                }
+            });
+        }
+
+        return sDebounceExecutor;
+    }
+
+    /**
+     * Drops the query string and trailing slashes of an URI.
+     * 
+     * @param uri
+     *            The URI to normalize.
+     * @return The normalized URI.
+     */
+    static String normalize(Uri uri) {
+
+        final String path = uri.getEncodedPath();
+        int end = path != null ? path.length() : 0;
+
+        while (end > 0 && path.charAt(end - 1) == '/') {
+            end--;
+        }
+
+        return uri.getScheme() + "://" + uri.getEncodedAuthority() + (end > 0 ? path.substring(0, end) : "");
+    }
+
+    private static String parentOf(String path) {
+
+        final int authorityStart = path.indexOf("://") + 3;
+        final int lastSlash = path.lastIndexOf('/');
+
+        return lastSlash >= authorityStart ? path.substring(0, lastSlash) : null;
+    }
+
+    private static boolean hasAncestorIn(String path, Set<String> paths) {
+
+        for (String parent = parentOf(path); parent != null; parent = parentOf(parent)) {
+
+            if (paths.contains(parent)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * The notifications deferred on a thread.
+     */
+    private static final class Batch {
+
+        private int mDepth;
+        private final Set<Uri> mUris = new LinkedHashSet<Uri>();
+    }
+}
@@ -0,0 +1,383 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.provider.delegate;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded executor for the slow work of a content provider authority, like queries backed by the network. Delegate
+ * methods annotated with @Query may return a <tt>Future&lt;Cursor&gt;</tt> instead of a Cursor. The router then calls
+ * them on a thread of the authority's executor, and waits for the result of the future on the binder thread for at most
+ * the timeout of the executor, so a slow delegate can no longer hold binder threads indefinitely. The method may block,
+ * or return a future completed elsewhere, like the future of an asynchronous network request:
+ * 
+ * <pre>
+ * &#064;Query(&quot;/remote/{id}&quot;)
+ * public Future&lt;Cursor&gt; remoteItem(@PathParam(&quot;id&quot;) String id) {
+ * 
+ *     return mHttpClient.fetchItem(id);
+ * }
+ * </pre>
+ * 
+ * Each authority has its own executor, running at most <tt>maxConcurrency</tt> tasks at once and queueing at most
+ * <tt>maxQueued</tt> tasks. Tasks submitted beyond that are rejected right away instead of piling up. As the @Query
+ * methods returning futures already run on the executor, they must not wait for other tasks of the same executor.
+ * <p>
+
+ * Each authority has separate pools for separate kinds of work, so long running work of one kind can't starve the
+ * others: {@link #QUERIES}, used by {@link #forAuthority(String)}, {@link #FILE_TRANSFERS} for the pipes of
+ * {@link FileDelivery} and {@link #CACHE_SYNCHRONIZATION} for the background work of cache interceptors.
+ * <p>
+ * Executors use default limits unless {@link #configure(String, String, int, int, long)} is called before their first
+ * use.
+ * 
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+public final class DelegateExecutor implements Executor {
+
+    /**
+     * The default maximum number of tasks an executor runs at once.
+     */
+    public static final int DEFAULT_MAX_CONCURRENCY = 4;
+
+    /**
+     * The default maximum number of tasks waiting for an executor thread.
+     */
+    public static final int DEFAULT_MAX_QUEUED = 16;
+
+    /**
+     * The default time the router waits for a future, in milliseconds.
+     */
+    public static final long DEFAULT_TIMEOUT_MILLIS = 5000;
+
+    /**
+     * The pool running the futures of @Query methods and other work of the delegate.
+     */
+    public static final String QUERIES = "queries";
+
+    /**
+     * The pool writing to the pipes opened by {@link FileDelivery}. Transfers keep a thread busy for as long as the
+     * client takes to read the file.
+     */
+    public static final String FILE_TRANSFERS = "fileTransfers";
+
+    /**
+     * The pool running the background synchronizations and page prefetches of cache interceptors.
+     */
+    public static final String CACHE_SYNCHRONIZATION = "cacheSynchronization";
+
+    private static final ConcurrentMap<String, DelegateExecutor> sExecutors =
+            new ConcurrentHashMap<String, DelegateExecutor>();
+
+    private final String mAuthority;
+    private final ThreadPoolExecutor mExecutor;
+    private final long mTimeoutMillis;
+
+    private DelegateExecutor(final String authority, final String pool, int maxConcurrency, int maxQueued,
+            long timeoutMillis) {
+
+        this.mAuthority = authority;
+        this.mTimeoutMillis = timeoutMillis;
+        this.mExecutor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(maxQueued), new ThreadFactory() {
+
+                    private final AtomicInteger mThreadCount = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+
+                        final Thread thread = new Thread(runnable, String.format("DelegateExecutor[%s/%s] #%d",
+                                authority, pool, mThreadCount.incrementAndGet()));
+                        thread.setDaemon(true);
+
+                        return thread;
+                    }
+                });
+    }
+
+    /**
+     * Sets the limits of the {@link #QUERIES} executor of an authority. Must be called before the executor is first
+     * used, typically when the delegate is created.
+     * 
+     * @param authority
+     *            The content provider authority.
+     * @param maxConcurrency
+     *            The maximum number of tasks run at once.
+     * @param maxQueued
+     *            The maximum number of tasks waiting for a thread.
+     * @param timeoutMillis
+     *            The maximum time the router waits for a future, in milliseconds.
+     * @throws IllegalStateException
+     *             If the executor of the authority is already in use.
+     */
+    public static void configure(String authority, int maxConcurrency, int maxQueued, long timeoutMillis) {
+
+        configure(authority, QUERIES, maxConcurrency, maxQueued, timeoutMillis);
+    }
+
+    /**
+     * Sets the limits of an executor of an authority. Must be called before the executor is first used, typically when
+     * the delegate is created.
+     * 
+     * @param authority
+     *            The content provider authority.
+     * @param pool
+     *            The pool of the executor, like {@link #QUERIES}.
+     * @param maxConcurrency
+     *            The maximum number of tasks run at once.
+     * @param maxQueued
+     *            The maximum number of tasks waiting for a thread.
+     * @param timeoutMillis
+     *            The maximum time the router waits for a future, in milliseconds.
+     * @throws IllegalStateException
+     *             If the executor of the authority is already in use.
+     */
+    public static void configure(String authority, String pool, int maxConcurrency, int maxQueued,
+            long timeoutMillis) {
+
+        if (maxConcurrency <= 0 || maxQueued <= 0 || timeoutMillis <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Executor limits must be positive: maxConcurrency=%d, maxQueued=%d, timeoutMillis=%d",
+                    maxConcurrency, maxQueued, timeoutMillis));
+        }
+
+        final DelegateExecutor executor =
+                new DelegateExecutor(authority, pool, maxConcurrency, maxQueued, timeoutMillis);
+
+        if (sExecutors.putIfAbsent(key(authority, pool), executor) != null) {
+
+            executor.mExecutor.shutdown();
+            throw new IllegalStateException(String.format("The %s executor of authority %s is already in use", pool,
+                    authority));
+        }
+    }
+
+    /**
+     * Gets the {@link #QUERIES} executor of an authority, creating it with the default limits if needed.
+     * 
+     * @param authority
+     *            The content provider authority.
+     * @return The executor of the authority.
+     */
+    public static DelegateExecutor forAuthority(String authority) {
+
+        return forAuthority(authority, QUERIES);
+    }
+
+    /**
+     * Gets an executor of an authority, creating it with the default limits if needed.
+     * 
+     * @param authority
+     *            The content provider authority.
+     * @param pool
+     *            The pool of the executor, like {@link #FILE_TRANSFERS}.
+     * @return The executor of the authority.
+     */
+    public static DelegateExecutor forAuthority(String authority, String pool) {
+
+        final String key = key(authority, pool);
+        DelegateExecutor executor = sExecutors.get(key);
+
+        if (executor == null) {
+
+            final DelegateExecutor newExecutor = new DelegateExecutor(authority, pool, DEFAULT_MAX_CONCURRENCY,
+                    DEFAULT_MAX_QUEUED, DEFAULT_TIMEOUT_MILLIS);
+            executor = sExecutors.putIfAbsent(key, newExecutor);
+
+            if (executor == null) {
+
+                executor = newExecutor;
+            } else {
+
+                newExecutor.mExecutor.shutdown();
+            }
+        }
+
+        return executor;
+    }
+
+    /**
+     * Runs a task on this executor.
+     * 
+     * @param task
+     *            The task to run.
+     * @return The future result of the task.
+     * @throws RejectedExecutionException
+     *             If the executor is already running and queueing as many tasks as its limits allow.
+     */
+    public <V> Future<V> submit(Callable<V> task) {
+
+        try {
+
+            return mExecutor.submit(task);
+        } catch (RejectedExecutionException e) {
+
+            throw rejected(e);
+        }
+    }
+
+    /**
+     * Runs a task on this executor, like {@link #submit(Callable)}. Lets the {@link #FILE_TRANSFERS} executor of an
+     * authority run the transfers started by {@link FileDelivery}.
+     * 
+     * @param task
+     *            The task to run.
+     * @throws RejectedExecutionException
+     *             If the executor is already running and queueing as many tasks as its limits allow.
+     */
+    @Override
+    public void execute(Runnable task) {
+
+        try {
+
+            mExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+
+            throw rejected(e);
+        }
+    }
+
+    /**
+     * Waits for a future for at most the timeout of this executor. Futures still incomplete by then are cancelled.
+     * Called by the generated routers.
+     * 
+     * @param future
+     *            The future to wait for. May have been created by any executor.
+     * @return The result of the future, or <tt>null</tt> if the future is <tt>null</tt>.
+     * @throws IllegalStateException
+     *             If the future times out, is cancelled or the waiting thread is interrupted.
+     */
+    public <V> V await(Future<V> future) {
+
+        if (future == null) {
+            return null;
+        }
+
+        try {
+
+            return future.get(mTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+
+            future.cancel(true);
+            throw new IllegalStateException(String.format("Delegate of authority %s timed out after %d ms",
+                    mAuthority, mTimeoutMillis), e);
+        } catch (InterruptedException e) {
+
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(String.format("Interrupted while waiting for the delegate of authority %s",
+                    mAuthority), e);
+        } catch (ExecutionException e) {
+
+            final Throwable cause = e.getCause();
+
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new IllegalStateException(String.format("Delegate of authority %s failed", mAuthority), cause);
+        } catch (CancellationException e) {
+
+            throw new IllegalStateException(String.format("Delegate of authority %s was cancelled", mAuthority), e);
+        }
+    }
+
+    /**
+     * Waits for the future returned by a delegate method called from a task of an executor, like the @Query methods
+     * called by the generated routers. The future is cancelled if the task is interrupted, as it is once the router
+     * stops waiting for it. Called by the generated routers.
+     * 
+     * @param future
+     *            The future to wait for.
+     * @return The result of the future, or <tt>null</tt> if the future is <tt>null</tt>.
+     * @throws Exception
+     *             If the future failed, with the exception it failed with.
+     */
+    public static <V> V resultOf(Future<V> future) throws Exception {
+
+        if (future == null) {
+            return null;
+        }
+
+        try {
+
+            return future.get();
+        } catch (InterruptedException e) {
+
+            future.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+
+            final Throwable cause = e.getCause();
+
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw e;
+        }
+    }
+
+    private static String key(String authority, String pool) {
+
+        return authority + '/' + pool;
+    }
+
+    private RejectedExecutionException rejected(RejectedExecutionException cause) {
+
+        return new RejectedExecutionException(String.format(
+                "Too many concurrent tasks for authority %s (%d running, %d queued)", mAuthority,
+                mExecutor.getActiveCount(), mExecutor.getQueue().size()), cause);
+    }
+
+    /**
+     * Gets the maximum time the router waits for a future.
+     * 
+     * @return The timeout, in milliseconds.
+     */
+    public long getTimeoutMillis() {
+
+        return mTimeoutMillis;
+    }
+}
@@ -0,0 +1,342 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.provider.delegate;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import android.os.ParcelFileDescriptor;
+
+/**
+ * Streams file contents to the clients of @OpenFile delegate methods. Data is moved with
+ * {@link FileChannel#transferTo(long, long, WritableByteChannel)}, or written straight from a (memory mapped)
+ * {@link ByteBuffer}, so it is never copied into intermediate byte arrays. Transfers are done in chunks of at most
+ * {@link #DEFAULT_CHUNK_SIZE} bytes, so a client reading slowly never makes a transfer hold more than a chunk at once.
+ * <p>
+ * The <tt>pipe</tt> methods return the read side of a pipe, to be returned by the delegate method, and write to the
+ * other side on the provided executor, usually the {@link DelegateExecutor#FILE_TRANSFERS} executor of the authority.
+ * A transfer keeps its thread busy for as long as the client takes to read, so transfers should not share the executor
+ * running queries:
+ * 
+ * <pre>
+ * &#064;OpenFile(&quot;/thumbnails/{id}&quot;)
+ * public ParcelFileDescriptor openThumbnail(@PathParam(&quot;id&quot;) long id) throws FileNotFoundException {
+ * 
+ *     return FileDelivery.pipeMapped(thumbnailFile(id),
+ *             DelegateExecutor.forAuthority(AUTHORITY, DelegateExecutor.FILE_TRANSFERS));
+ * }
+ * </pre>
+ * 
+ * Pipes require API level 9. On older devices, the <tt>pipe</tt> methods throw a FileNotFoundException.
+ * 
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+public final class FileDelivery {
+
+    /**
+     * The default maximum number of bytes moved at once.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+    private FileDelivery() {
+
+    }
+
+    /**
+     * Transfers a region of a file channel to another channel, in chunks of at most <tt>chunkSize</tt> bytes. The
+     * position of the source channel is not changed.
+     * 
+     * @param source
+     *            The channel to read from.
+     * @param position
+     *            The position of the region in the source channel.
+     * @param count
+     *            The size of the region. The transfer stops early at the end of the source channel.
+     * @param target
+     *            The channel to write to.
+     * @param chunkSize
+     *            The maximum number of bytes moved at once.
+     * @return The number of bytes transferred.
+     * @throws IOException
+     *             If either channel fails.
+     */
+    public static long transfer(FileChannel source, long position, long count, WritableByteChannel target,
+            int chunkSize) throws IOException {
+
+        long transferred = 0;
+
+        while (transferred < count) {
+
+            final long chunk = source.transferTo(position + transferred, Math.min(chunkSize, count - transferred),
+                    target);
+
+            if (chunk <= 0) {
+                break;
+            }
+
+            transferred += chunk;
+        }
+
+        return transferred;
+    }
+
+    /**
+     * Writes the remaining bytes of a buffer to a channel, in chunks of at most <tt>chunkSize</tt> bytes. The position
+     * and limit of the buffer are not changed.
+     * 
+     * @param buffer
+     *            The buffer to write, typically a {@link java.nio.MappedByteBuffer}.
+     * @param target
+     *            The channel to write to.
+     * @param chunkSize
+     *            The maximum number of bytes written at once.
+     * @return The number of bytes written.
+     * @throws IOException
+     *             If the channel fails.
+     */
+    public static long transfer(ByteBuffer buffer, WritableByteChannel target, int chunkSize) throws IOException {
+
+        final ByteBuffer window = buffer.duplicate();
+        final int limit = window.limit();
+        final int start = window.position();
+        int position = start;
+
+        while (position < limit) {
+
+            window.limit(Math.min(limit, position + chunkSize));
+            window.position(position);
+
+            while (window.hasRemaining()) {
+                target.write(window);
+            }
+
+            position = window.limit();
+        }
+
+        return position - start;
+    }
+
+    /**
+     * Opens a pipe streaming a region of a file channel. The channel is closed once the transfer completes, or right
+     * away if the transfer can't be started.
+     * 
+     * @param source
+     *            The channel to read from.
+     * @param position
+     *            The position of the region in the source channel.
+     * @param count
+     *            The size of the region.
+     * @param executor
+     *            The executor running the transfer.
+     * @return The read side of the pipe.
+     * @throws FileNotFoundException
+     *             If the pipe can not be created or the executor rejects the transfer.
+     */
+    public static ParcelFileDescriptor pipe(final FileChannel source, final long position, final long count,
+            Executor executor) throws FileNotFoundException {
+
+        return pipe(new Transfer() {
+
+            @Override
+            public void writeTo(WritableByteChannel target) throws IOException {
+
+                try {
+                    transfer(source, position, count, target, DEFAULT_CHUNK_SIZE);
+                } finally {
+                    source.close();
+                }
+            }
+
+            @Override
+            public void abandon() {
+
+                closeQuietly(source);
+            }
+        }, executor);
+    }
+
+    /**
+     * Opens a pipe streaming the remaining bytes of a buffer.
+     * 
+     * @param buffer
+     *            The buffer to write, typically a {@link java.nio.MappedByteBuffer}.
+     * @param executor
+     *            The executor running the transfer.
+     * @return The read side of the pipe.
+     * @throws FileNotFoundException
+     *             If the pipe can not be created or the executor rejects the transfer.
+     */
+    public static ParcelFileDescriptor pipe(final ByteBuffer buffer, Executor executor) throws FileNotFoundException {
+
+        return pipe(new Transfer() {
+
+            @Override
+            public void writeTo(WritableByteChannel target) throws IOException {
+
+                transfer(buffer, target, DEFAULT_CHUNK_SIZE);
+            }
+
+            @Override
+            public void abandon() {
+
+                /* Buffers hold no resource to release. */
+            }
+        }, executor);
+    }
+
+    /**
+     * Maps a file in memory, read only, and opens a pipe streaming it.
+     * 
+     * @param file
+     *            The file to stream.
+     * @param executor
+     *            The executor running the transfer.
+     * @return The read side of the pipe.
+     * @throws FileNotFoundException
+     *             If the file can not be mapped, the pipe can not be created or the executor rejects the transfer.
+     */
+    public static ParcelFileDescriptor pipeMapped(File file, Executor executor) throws FileNotFoundException {
+
+        final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+
+        try {
+
+            final FileChannel channel = randomAccessFile.getChannel();
+
+            return pipe(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), executor);
+        } catch (IOException e) {
+
+            throw fileNotFound(String.format("Unable to map %s", file), e);
+        } finally {
+
+            /* The mapping stays valid after the file is closed. */
+            closeQuietly(randomAccessFile);
+        }
+    }
+
+    private static ParcelFileDescriptor pipe(final Transfer transfer, Executor executor) throws FileNotFoundException {
+
+        final ParcelFileDescriptor[] pipe;
+
+        try {
+
+            pipe = createPipe();
+        } catch (FileNotFoundException e) {
+
+            transfer.abandon();
+            throw e;
+        }
+
+        try {
+
+            executor.execute(new Runnable() {
+
+                @Override
+                public void run() {
+
+                    final ParcelFileDescriptor.AutoCloseOutputStream output =
+                            new ParcelFileDescriptor.AutoCloseOutputStream(pipe[1]);
+
+                    try {
+
+                        transfer.writeTo(output.getChannel());
+                    } catch (IOException e) {
+
+                        /* The client closed its side of the pipe before reading everything. */
+                    } finally {
+
+                        closeQuietly(output);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+
+            closeQuietly(pipe[0]);
+            closeQuietly(pipe[1]);
+            transfer.abandon();
+            throw fileNotFound("Unable to start the file transfer", e);
+        }
+
+        return pipe[0];
+    }
+
+    private static ParcelFileDescriptor[] createPipe() throws FileNotFoundException {
+
+        try {
+
+            /* ParcelFileDescriptor.createPipe() is only available from API level 9. */
+            final Method createPipe = ParcelFileDescriptor.class.getMethod("createPipe");
+
+            return (ParcelFileDescriptor[]) createPipe.invoke(null);
+        } catch (NoSuchMethodException e) {
+
+            throw fileNotFound("Pipes are not supported by this device", e);
+        } catch (Exception e) {
+
+            throw fileNotFound("Unable to create a pipe", e);
+        }
+    }
+
+    private static FileNotFoundException fileNotFound(String message, Throwable cause) {
+
+        final FileNotFoundException exception = new FileNotFoundException(message);
+        exception.initCause(cause);
+
+        return exception;
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            /* Nothing left to release. */
+        }
+    }
+
+    private static void closeQuietly(ParcelFileDescriptor descriptor) {
+
+        try {
+            descriptor.close();
+        } catch (IOException e) {
+            /* Nothing left to release. */
+        }
+    }
+
+    private interface Transfer {
+
+        void writeTo(WritableByteChannel target) throws IOException;
+
+        /* Releases the source of a transfer which will never be started. */
+        void abandon();
+    }
+}
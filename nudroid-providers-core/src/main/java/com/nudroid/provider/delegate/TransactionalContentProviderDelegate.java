@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.provider.delegate;
+
+import android.content.ContentProvider;
+import android.content.ContentProviderOperation;
+import android.content.ContentValues;
+
+import java.util.ArrayList;
+
+/**
+ * Optional interface which can be applied to a content provider delegate. If the content provider delegate implements
+ * this interface, the operations of {@link ContentProvider#applyBatch(ArrayList)} and the rows of
+ * {@link ContentProvider#bulkInsert(android.net.Uri, ContentValues[])} are executed in a single transaction, delimited
+ * by calls to the methods of this interface.
+ * <p>
+ * For example, a delegate backed by a SQLite database:
+ * 
+ * <pre>
+ * public void beginTransaction() {
+ *     dbHelper.getWritableDatabase().beginTransaction();
+ * }
+ * 
+ * public void commitTransaction() {
+ *     SQLiteDatabase database = dbHelper.getWritableDatabase();
+ *     database.setTransactionSuccessful();
+ *     database.endTransaction();
+ * }
+ * 
+ * public void rollbackTransaction() {
+ *     dbHelper.getWritableDatabase().endTransaction();
+ * }
+ * </pre>
+ * 
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+public interface TransactionalContentProviderDelegate {
+
+    /**
+     * Called on the thread executing the batch, before its first operation (or row) is executed.
+     */
+    public void beginTransaction();
+
+    /**
+     * Called after all the operations (or rows) of the batch have been successfully executed.
+     */
+    public void commitTransaction();
+
+    /**
+     * Called if any of the operations (or rows) of the batch fails. The exception which caused the failure is
+     * propagated to the caller after this method returns.
+     * 
+     * @see ContentProviderOperation#apply(ContentProvider, android.content.ContentProviderResult[], int)
+     */
+    public void rollbackTransaction();
+}
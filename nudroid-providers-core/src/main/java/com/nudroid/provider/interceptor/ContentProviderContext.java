@@ -23,14 +23,13 @@
 package com.nudroid.provider.interceptor;
 
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import android.content.ContentValues;
 import android.content.Context;
+import android.database.Cursor;
 import android.net.Uri;
+import android.os.Bundle;
 
 /**
  * A parameter object used by {@link ContentProviderInterceptor}s. Provides access to all possible delegate method
@@ -41,9 +40,6 @@ import android.net.Uri;
  */
 public class ContentProviderContext {
 
-    private static String PLACEHOLDER_REG_EXP = "\\{([^\\}]+)\\}";
-    private static Pattern PLACEHOLDER_PATTERN = Pattern.compile(PLACEHOLDER_REG_EXP);
-
     /**
      * The content provider context.
      */
@@ -80,9 +76,48 @@ public class ContentProviderContext {
     public ContentValues contentValues;
 
     /**
-     * The map of parameters intended to replace placeholders in the content UIR.
+     * The content values of all the rows of a bulk insert. Routers set {@link #contentValues} to each row in turn when
+     * bulk inserts are delegated to an insert method, one row at a time.
+     */
+    public ContentValues[] bulkContentValues;
+
+    /**
+     * The access mode requested when opening a file (i.e. <tt>"r"</tt>, <tt>"rw"</tt> etc.). <tt>null</tt> for other
+     * operations.
+     */
+    public String fileMode;
+
+    /**
+     * The name of the method passed to a provider call. <tt>null</tt> for other operations.
+     */
+    public String callMethod;
+
+    /**
+     * The String argument passed to a provider call. <tt>null</tt> for other operations.
+     */
+    public String callArg;
+
+    /**
+     * The extras passed to a provider call. <tt>null</tt> for other operations.
+     */
+    public Bundle callExtras;
+
+    /**
+     * A cursor set by a before query interceptor to answer the query itself. When set, the router does not invoke the
+     * delegate method and passes this cursor to the after interceptors instead. <tt>null</tt> otherwise.
      */
-    public Map<String, String> placeholders = new HashMap<String, String>();
+    public Cursor queryResult;
+
+    /**
+     * The map of parameters intended to replace placeholders in the content UIR. Backed by the slots of
+     * {@link #getPlaceholderMap()}, unless an interceptor assigns another map.
+     */
+    public Map<String, String> placeholders;
+
+    private PlaceholderMap mPlaceholderMap;
+
+    /* Set while a pooled context is lent out, to detect double releases and reentrant requests. */
+    boolean mInUse;
 
     /**
      * Creates an instance of this parameter object.
@@ -105,6 +140,39 @@ public class ContentProviderContext {
     public ContentProviderContext(Context context, Uri uri, String[] projection, String selection,
             String[] selectionArgs, String sortOrder, ContentValues contentValues) {
 
+        this(context, uri, projection, selection, selectionArgs, sortOrder, contentValues, new PlaceholderMap());
+    }
+
+    /**
+     * Creates an instance of this parameter object with one placeholder slot per name.
+     * 
+     * @param context
+     *            The content provider context.
+     * @param uri
+     *            The URI passed to the delegate method.
+     * @param projection
+     *            The projection parameter passed to the query delegate method.
+     * @param selection
+     *            The selection parameter passed to the query, update or delete delegate method.
+     * @param selectionArgs
+     *            The selection parameter passed to the query, update or delete delegate method.
+     * @param sortOrder
+     *            The sortOrder parameter passed to the query delegate method.
+     * @param contentValues
+     *            The contentValues parameter passed to the query delegate method.
+     * @param placeholderNames
+     *            The names of the placeholders the matched path binds, in slot order.
+     */
+    public ContentProviderContext(Context context, Uri uri, String[] projection, String selection,
+            String[] selectionArgs, String sortOrder, ContentValues contentValues, String[] placeholderNames) {
+
+        this(context, uri, projection, selection, selectionArgs, sortOrder, contentValues, new PlaceholderMap(
+                placeholderNames));
+    }
+
+    private ContentProviderContext(Context context, Uri uri, String[] projection, String selection,
+            String[] selectionArgs, String sortOrder, ContentValues contentValues, PlaceholderMap placeholders) {
+
         this.context = context;
         this.uri = uri;
         this.projection = projection;
@@ -112,6 +180,79 @@ public class ContentProviderContext {
         this.selectionArgs = selectionArgs;
         this.sortOrder = sortOrder;
         this.contentValues = contentValues;
+        this.mPlaceholderMap = placeholders;
+        this.placeholders = placeholders;
+    }
+
+    /**
+     * Gets the placeholder values of the request, in the slots laid out by the generated router. If an interceptor
+     * assigned another map to {@link #placeholders}, its entries are copied into the slots first and the field is
+     * pointed back to the returned map.
+     * 
+     * @return The placeholder values of the request.
+     */
+    public PlaceholderMap getPlaceholderMap() {
+
+        if (placeholders != mPlaceholderMap) {
+
+            mPlaceholderMap.clear();
+
+            if (placeholders != null) {
+                mPlaceholderMap.putAll(placeholders);
+            }
+
+            placeholders = mPlaceholderMap;
+        }
+
+        return mPlaceholderMap;
+    }
+
+    /**
+     * Reinitializes a pooled context for a new request.
+     */
+    void reset(Context context, Uri uri, String[] projection, String selection, String[] selectionArgs,
+            String sortOrder, ContentValues contentValues, String[] placeholderNames) {
+
+        this.context = context;
+        this.uri = uri;
+        this.projection = projection;
+        this.selection = selection;
+        this.selectionArgs = selectionArgs;
+        this.sortOrder = sortOrder;
+        this.contentValues = contentValues;
+        this.bulkContentValues = null;
+        this.fileMode = null;
+        this.callMethod = null;
+        this.callArg = null;
+        this.callExtras = null;
+        this.queryResult = null;
+
+        mPlaceholderMap.reset(placeholderNames);
+        placeholders = mPlaceholderMap;
+    }
+
+    /**
+     * Drops the references to the request arguments once a pooled context is released, so they are not kept reachable
+     * from the pool.
+     */
+    void clear() {
+
+        this.context = null;
+        this.uri = null;
+        this.projection = null;
+        this.selection = null;
+        this.selectionArgs = null;
+        this.sortOrder = null;
+        this.contentValues = null;
+        this.bulkContentValues = null;
+        this.fileMode = null;
+        this.callMethod = null;
+        this.callArg = null;
+        this.callExtras = null;
+        this.queryResult = null;
+
+        mPlaceholderMap.clear();
+        placeholders = mPlaceholderMap;
     }
 
     /**
@@ -124,6 +265,8 @@ public class ContentProviderContext {
         return "ContentProviderContext [context=" + context + ", uri=" + uri + ", projection="
                 + Arrays.toString(projection) + ", selection=" + selection + ", selectionArgs="
                 + Arrays.toString(selectionArgs) + ", sortOrder=" + sortOrder + ", contentValues=" + contentValues
+                + ", bulkContentValues=" + Arrays.toString(bulkContentValues) + ", fileMode=" + fileMode + ", callMethod="
+                + callMethod + ", callArg=" + callArg + ", callExtras=" + callExtras + ", queryResult=" + queryResult
                 + ", placeholders=" + placeholders + "]";
     }
 
@@ -137,20 +280,34 @@ public class ContentProviderContext {
      */
     public String expand(String stringToExpand) {
 
-        String result = stringToExpand;
-
-        Matcher m = PLACEHOLDER_PATTERN.matcher(result);
+        return PlaceholderTemplate.forString(stringToExpand).expand(getPlaceholderMap());
+    }
 
-        while (m.find()) {
+    /**
+     * Expands the passed template against the values captured in property map <tt>placeholders</tt>.
+     * 
+     * @param template
+     *            The template to be expanded.
+     * @return The template with placeholders replaced by their corresponding values.
+     */
+    public String expand(PlaceholderTemplate template) {
 
-            String placeholderName = m.group(1);
+        return template.expand(getPlaceholderMap());
+    }
 
-            final String placeholderValue = placeholders.get(placeholderName);
+    /**
+     * Expands each of the passed templates against the values captured in property map <tt>placeholders</tt>.
+     * 
+     * @param templates
+     *            The templates to be expanded.
+     * @return A new array with the expanded content of each template.
+     */
+    public String[] expand(PlaceholderTemplate[] templates) {
 
-            if (placeholderValue != null) {
+        String[] result = new String[templates.length];
 
-                result = result.replaceAll("\\{" + placeholderName + "\\}", placeholderValue);
-            }
+        for (int i = 0; i < templates.length; i++) {
+            result[i] = templates[i].expand(getPlaceholderMap());
         }
 
         return result;
@@ -0,0 +1,346 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.provider.interceptor;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.net.Uri;
+
+/**
+ * A source of reusable {@link ContentProviderContext}s. Routers generated with context pooling enabled obtain a context
+ * from their pool when a request is matched and release it once the delegate method and the after interceptors have
+ * run, so routing a request does not allocate a new context and placeholder map every time.
+ * <p>
+ * Pooled contexts must not be kept by interceptors or delegates after the request completes: the same instance will be
+ * handed to a later request. While developing, enable leak detection with {@link #setLeakDetectionEnabled(boolean)}.
+ * Released contexts are then never reused, and {@link #assertNoRetainedContexts()} reports the ones which are still
+ * reachable.
+ * 
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+public abstract class ContentProviderContextPool {
+
+    private static final String[] NO_PLACEHOLDER_NAMES = new String[0];
+    private static final int MAX_TRACKED_CONTEXTS = 1024;
+    private static final int GC_ATTEMPTS = 3;
+
+    private static volatile boolean sLeakDetectionEnabled;
+    private static final List<TrackedContext> sReleasedContexts = new ArrayList<TrackedContext>();
+
+    /**
+     * Creates a pool shared by all threads, keeping at most <tt>maxSize</tt> idle contexts. Requests finding the pool
+     * empty allocate a new context.
+     * 
+     * @param maxSize
+     *            The maximum number of idle contexts kept by the pool.
+     * @return The new pool.
+     */
+    public static ContentProviderContextPool newBoundedPool(int maxSize) {
+
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be greater than zero");
+        }
+
+        return new BoundedPool(maxSize);
+    }
+
+    /**
+     * Creates a pool keeping one context per thread. Reentrant requests on a thread whose context is in use allocate a
+     * new context.
+     * 
+     * @return The new pool.
+     */
+    public static ContentProviderContextPool newThreadLocalPool() {
+
+        return new ThreadLocalPool();
+    }
+
+    /**
+     * Enables or disables leak detection for all pools. Meant for debug builds and tests: released contexts are
+     * tracked instead of reused, which defeats the purpose of the pool.
+     * 
+     * @param enabled
+     *            <tt>true</tt> to enable leak detection, <tt>false</tt> to disable it.
+     */
+    public static void setLeakDetectionEnabled(boolean enabled) {
+
+        sLeakDetectionEnabled = enabled;
+
+        if (!enabled) {
+            synchronized (sReleasedContexts) {
+                sReleasedContexts.clear();
+            }
+        }
+    }
+
+    /**
+     * Checks if any context released while leak detection was enabled is still reachable, i.e. has been kept by an
+     * interceptor or delegate after its request completed. Requests garbage collections to tell kept contexts apart
+     * from contexts not yet collected, so this method must not be called in production code.
+     * 
+     * @throws IllegalStateException
+     *             If some released contexts are still reachable. The message lists the URIs of their requests.
+     */
+    public static void assertNoRetainedContexts() {
+
+        for (int attempt = 0; attempt < GC_ATTEMPTS && hasTrackedContexts(); attempt++) {
+
+            System.gc();
+            System.runFinalization();
+        }
+
+        final List<String> retained = new ArrayList<String>();
+
+        synchronized (sReleasedContexts) {
+
+            for (TrackedContext tracked : sReleasedContexts) {
+                if (tracked.get() != null) {
+                    retained.add(tracked.mDescription);
+                }
+            }
+
+            sReleasedContexts.clear();
+        }
+
+        if (!retained.isEmpty()) {
+            throw new IllegalStateException(String.format(
+                    "%d ContentProviderContext(s) were kept after their request completed: %s", retained.size(),
+                    retained));
+        }
+    }
+
+    /**
+     * Gets a context for a request. The context has no placeholder slots.
+     * 
+     * @param context
+     *            The content provider context.
+     * @param uri
+     *            The URI passed to the delegate method.
+     * @param projection
+     *            The projection parameter passed to the query delegate method.
+     * @param selection
+     *            The selection parameter passed to the query, update or delete delegate method.
+     * @param selectionArgs
+     *            The selection parameter passed to the query, update or delete delegate method.
+     * @param sortOrder
+     *            The sortOrder parameter passed to the query delegate method.
+     * @param contentValues
+     *            The contentValues parameter passed to the query delegate method.
+     * @return A context initialized with the request arguments.
+     */
+    public ContentProviderContext obtain(Context context, Uri uri, String[] projection, String selection,
+            String[] selectionArgs, String sortOrder, ContentValues contentValues) {
+
+        return obtain(context, uri, projection, selection, selectionArgs, sortOrder, contentValues,
+                NO_PLACEHOLDER_NAMES);
+    }
+
+    /**
+     * Gets a context for a request, with one placeholder slot per name.
+     * 
+     * @param context
+     *            The content provider context.
+     * @param uri
+     *            The URI passed to the delegate method.
+     * @param projection
+     *            The projection parameter passed to the query delegate method.
+     * @param selection
+     *            The selection parameter passed to the query, update or delete delegate method.
+     * @param selectionArgs
+     *            The selection parameter passed to the query, update or delete delegate method.
+     * @param sortOrder
+     *            The sortOrder parameter passed to the query delegate method.
+     * @param contentValues
+     *            The contentValues parameter passed to the query delegate method.
+     * @param placeholderNames
+     *            The names of the placeholders the matched path binds, in slot order.
+     * @return A context initialized with the request arguments.
+     */
+    public ContentProviderContext obtain(Context context, Uri uri, String[] projection, String selection,
+            String[] selectionArgs, String sortOrder, ContentValues contentValues, String[] placeholderNames) {
+
+        ContentProviderContext contentProviderContext = sLeakDetectionEnabled ? null : take();
+
+        if (contentProviderContext == null) {
+
+            contentProviderContext = new ContentProviderContext(context, uri, projection, selection, selectionArgs,
+                    sortOrder, contentValues, placeholderNames);
+        } else {
+
+            contentProviderContext.reset(context, uri, projection, selection, selectionArgs, sortOrder,
+                    contentValues, placeholderNames);
+        }
+
+        contentProviderContext.mInUse = true;
+
+        return contentProviderContext;
+    }
+
+    /**
+     * Returns a context to the pool once its request has completed. The context must not be used afterwards.
+     * 
+     * @param contentProviderContext
+     *            The context to release.
+     * @throws IllegalStateException
+     *             If the context has already been released.
+     */
+    public void release(ContentProviderContext contentProviderContext) {
+
+        if (!contentProviderContext.mInUse) {
+            throw new IllegalStateException("ContentProviderContext released twice: " + contentProviderContext);
+        }
+
+        contentProviderContext.mInUse = false;
+
+        if (sLeakDetectionEnabled) {
+
+            track(contentProviderContext);
+            contentProviderContext.clear();
+            return;
+        }
+
+        contentProviderContext.clear();
+        give(contentProviderContext);
+    }
+
+    /**
+     * Takes an idle context from the pool.
+     * 
+     * @return An idle context, or <tt>null</tt> if there is none.
+     */
+    abstract ContentProviderContext take();
+
+    /**
+     * Gives a released context back to the pool. The pool may drop it.
+     * 
+     * @param contentProviderContext
+     *            The released context.
+     */
+    abstract void give(ContentProviderContext contentProviderContext);
+
+    private static void track(ContentProviderContext contentProviderContext) {
+
+        final String description = String.valueOf(contentProviderContext.uri);
+
+        synchronized (sReleasedContexts) {
+
+            if (sReleasedContexts.size() >= MAX_TRACKED_CONTEXTS) {
+
+                for (Iterator<TrackedContext> iterator = sReleasedContexts.iterator(); iterator.hasNext();) {
+                    if (iterator.next().get() == null) {
+                        iterator.remove();
+                    }
+                }
+
+                if (sReleasedContexts.size() >= MAX_TRACKED_CONTEXTS) {
+                    sReleasedContexts.remove(0);
+                }
+            }
+
+            sReleasedContexts.add(new TrackedContext(contentProviderContext, description));
+        }
+    }
+
+    private static boolean hasTrackedContexts() {
+
+        synchronized (sReleasedContexts) {
+
+            for (TrackedContext tracked : sReleasedContexts) {
+                if (tracked.get() != null) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+    }
+
+    private static final class TrackedContext extends WeakReference<ContentProviderContext> {
+
+        private final String mDescription;
+
+        TrackedContext(ContentProviderContext contentProviderContext, String description) {
+
+            super(contentProviderContext);
+            this.mDescription = description;
+        }
+    }
+
+    private static final class BoundedPool extends ContentProviderContextPool {
+
+        private final ContentProviderContext[] mIdle;
+        private int mIdleCount;
+
+        BoundedPool(int maxSize) {
+
+            this.mIdle = new ContentProviderContext[maxSize];
+        }
+
+        @Override
+        synchronized ContentProviderContext take() {
+
+            if (mIdleCount == 0) {
+                return null;
+            }
+
+            final ContentProviderContext contentProviderContext = mIdle[--mIdleCount];
+            mIdle[mIdleCount] = null;
+
+            return contentProviderContext;
+        }
+
+        @Override
+        synchronized void give(ContentProviderContext contentProviderContext) {
+
+            if (mIdleCount < mIdle.length) {
+                mIdle[mIdleCount++] = contentProviderContext;
+            }
+        }
+    }
+
+    private static final class ThreadLocalPool extends ContentProviderContextPool {
+
+        private final ThreadLocal<ContentProviderContext> mContexts = new ThreadLocal<ContentProviderContext>();
+
+        @Override
+        ContentProviderContext take() {
+
+            final ContentProviderContext contentProviderContext = mContexts.get();
+
+            return contentProviderContext == null || contentProviderContext.mInUse ? null : contentProviderContext;
+        }
+
+        @Override
+        void give(ContentProviderContext contentProviderContext) {
+
+            if (mContexts.get() == null) {
+                mContexts.set(contentProviderContext);
+            }
+        }
+    }
+}
@@ -24,17 +24,37 @@ package com.nudroid.provider.interceptor;
 
 import android.database.Cursor;
 import android.net.Uri;
+import android.os.Bundle;
+import android.os.ParcelFileDescriptor;
 
 /**
  * A provider interceptor wraps invocations to content provider delegate methods and allows code to be executed before
  * and after the delegate method is invoked.
+ * <p>
+ * <h1>Lifecycle and thread safety</h1>
+ * <p>
+ * Interceptor instances are reused across requests. The generated router creates one instance per delegate method the
+ * interceptor is applied to, the first time that method is invoked. If String elements of the interceptor annotation
+ * contain placeholders, which are expanded against the request, one instance is created per distinct set of expanded
+ * annotation values instead (a bounded number of them is kept, see {@link InterceptorInstanceCache}). Annotations
+ * without placeholders are created only once and shared, so interceptors must not modify the arrays they return.
+ * <p>
+ * {@link #onCreate(ContentProviderContext)} is called exactly once per instance, before its first before/after call.
+ * <p>
+ * Content providers are accessed concurrently, so the before and after methods of the same instance may be invoked by
+ * several threads at the same time. Implementations must be thread safe: state shared across requests must be set up
+ * in the constructor or in {@link #onCreate(ContentProviderContext)} and not be modified afterwards, and per-request
+ * state must be kept in local variables or in the {@link ContentProviderContext} passed to each method, never in
+ * instance fields.
  * 
  * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
  */
 public interface ContentProviderInterceptor {
 
     /**
-     * Called when the insterceptor is instantiated.
+     * Called once, when the interceptor is instantiated. The context is the one of the request which triggered the
+     * instantiation. It can be used to initialize the interceptor but must not be retained, since it is discarded when
+     * that request finishes.
      * 
      * @param context
      *            The content provider context.
@@ -104,6 +124,31 @@ public interface ContentProviderInterceptor {
      */
     public Uri afterInsert(ContentProviderContext contentProviderContext, Uri result);
 
+    /**
+     * Called once before a bulk insert is executed, either by a com.nudroid.annotation.provider.delegate.BulkInsert
+     * target method or, row by row, by a com.nudroid.annotation.provider.delegate.Insert target method. The rows to be
+     * inserted are available in {@link ContentProviderContext#bulkContentValues}. {@link #beforeInsert} is not called
+     * for the individual rows.
+     * 
+     * @param contentProviderContext
+     *            A parameter object with the parameters that are to be passed to the delegate method.
+     */
+    public void beforeBulkInsert(ContentProviderContext contentProviderContext);
+
+    /**
+     * Called once after all the rows of a bulk insert have been inserted. {@link #afterInsert} is not called for the
+     * individual rows.
+     * 
+     * @param contentProviderContext
+     *            A parameter object with the parameters that are to be passed to the delegate method.
+     * 
+     * @param result
+     *            The number of rows inserted.
+     * 
+     * @return The original result or a new integer to replace the returned value.
+     */
+    public int afterBulkInsert(ContentProviderContext contentProviderContext, int result);
+
     /**
      * Called before com.nudroid.annotation.provider.delegate.Delete target method is executed.
      * 
@@ -124,4 +169,49 @@ public interface ContentProviderInterceptor {
      * @return The original result or a new integer to replace the returned value.
      */
     public int afterDelete(ContentProviderContext contentProviderContext, int result);
+
+    /**
+     * Called before com.nudroid.annotation.provider.delegate.OpenFile target method is executed. The requested access
+     * mode is available in {@link ContentProviderContext#fileMode}.
+     * 
+     * @param contentProviderContext
+     *            A parameter object with the parameters that are to be passed to the delegate method.
+     */
+    public void beforeOpenFile(ContentProviderContext contentProviderContext);
+
+    /**
+     * Called after com.nudroid.annotation.provider.delegate.OpenFile target method is executed.
+     * 
+     * @param contentProviderContext
+     *            A parameter object with the parameters that are to be passed to the delegate method.
+     * 
+     * @param result
+     *            The file descriptor returned by the target method.
+     * 
+     * @return The original result or a new file descriptor to replace the returned value.
+     */
+    public ParcelFileDescriptor afterOpenFile(ContentProviderContext contentProviderContext, ParcelFileDescriptor result);
+
+    /**
+     * Called before com.nudroid.annotation.provider.delegate.Call target method is executed. The method name, argument
+     * and extras of the call are available in {@link ContentProviderContext#callMethod},
+     * {@link ContentProviderContext#callArg} and {@link ContentProviderContext#callExtras}.
+     * 
+     * @param contentProviderContext
+     *            A parameter object with the parameters that are to be passed to the delegate method.
+     */
+    public void beforeCall(ContentProviderContext contentProviderContext);
+
+    /**
+     * Called after com.nudroid.annotation.provider.delegate.Call target method is executed.
+     * 
+     * @param contentProviderContext
+     *            A parameter object with the parameters that are to be passed to the delegate method.
+     * 
+     * @param result
+     *            The bundle returned by the target method.
+     * 
+     * @return The original result or a new bundle to replace the returned value.
+     */
+    public Bundle afterCall(ContentProviderContext contentProviderContext, Bundle result);
 }
@@ -24,6 +24,8 @@ package com.nudroid.provider.interceptor;
 
 import android.database.Cursor;
 import android.net.Uri;
+import android.os.Bundle;
+import android.os.ParcelFileDescriptor;
 
 /**
  * A no op adapter implementation of interface {@link ContentProviderInterceptor}. Use this class to simplify
@@ -99,6 +101,28 @@ public abstract class ContentProviderInterceptorAdapter implements ContentProvid
         return result;
     }
 
+    /**
+     * {@inheritDoc}
+     * 
+     * @see com.nudroid.provider.interceptor.ContentProviderInterceptor#beforeBulkInsert(com.nudroid.provider.interceptor.ContentProviderContext)
+     */
+    @Override
+    public void beforeBulkInsert(ContentProviderContext contentProviderContext) {
+
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see com.nudroid.provider.interceptor.ContentProviderInterceptor#afterBulkInsert(com.nudroid.provider.interceptor.ContentProviderContext,
+     *      int)
+     */
+    @Override
+    public int afterBulkInsert(ContentProviderContext contentProviderContext, int result) {
+
+        return result;
+    }
+
     /**
      * {@inheritDoc}
      * 
@@ -120,4 +144,48 @@ public abstract class ContentProviderInterceptorAdapter implements ContentProvid
 
         return result;
     }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see com.nudroid.provider.interceptor.ContentProviderInterceptor#beforeOpenFile(com.nudroid.provider.interceptor.ContentProviderContext)
+     */
+    @Override
+    public void beforeOpenFile(ContentProviderContext contentProviderContext) {
+
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see com.nudroid.provider.interceptor.ContentProviderInterceptor#afterOpenFile(com.nudroid.provider.interceptor.ContentProviderContext,
+     *      android.os.ParcelFileDescriptor)
+     */
+    @Override
+    public ParcelFileDescriptor afterOpenFile(ContentProviderContext contentProviderContext, ParcelFileDescriptor result) {
+
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see com.nudroid.provider.interceptor.ContentProviderInterceptor#beforeCall(com.nudroid.provider.interceptor.ContentProviderContext)
+     */
+    @Override
+    public void beforeCall(ContentProviderContext contentProviderContext) {
+
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see com.nudroid.provider.interceptor.ContentProviderInterceptor#afterCall(com.nudroid.provider.interceptor.ContentProviderContext,
+     *      android.os.Bundle)
+     */
+    @Override
+    public Bundle afterCall(ContentProviderContext contentProviderContext, Bundle result) {
+
+        return result;
+    }
 }
@@ -0,0 +1,326 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.provider.interceptor;
+
+import android.database.AbstractCursor;
+import android.database.AbstractWindowedCursor;
+import android.database.Cursor;
+
+/**
+ * An immutable copy of the rows of a cursor, used by {@link QueryCacheInterceptor} to answer repeated queries without
+ * going to the delegate. Values are kept in a single array, row after row, as Long, Double, String, byte[] or
+ * <tt>null</tt>. Any number of cursors can read a snapshot at once with {@link #newCursor()}, without copying it.
+ * <p>
+ * Value types are preserved for cursors backed by a CursorWindow (i.e. SQLite cursors). Values of other cursors are
+ * copied as Strings, or <tt>null</tt>.
+ * 
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+public final class CursorSnapshot {
+
+    /* Values of Cursor.FIELD_TYPE_*, which are only available from API level 11. */
+    private static final int FIELD_TYPE_NULL = 0;
+    private static final int FIELD_TYPE_INTEGER = 1;
+    private static final int FIELD_TYPE_FLOAT = 2;
+    private static final int FIELD_TYPE_STRING = 3;
+    private static final int FIELD_TYPE_BLOB = 4;
+
+    /* Rough heap sizes used to account for the memory held by a snapshot. */
+    private static final int REFERENCE_SIZE = 4;
+    private static final int OBJECT_SIZE = 16;
+    private static final int STRING_SIZE = 40;
+
+    private final String[] mColumnNames;
+    private final Object[] mValues;
+    private final int mRowCount;
+    private final long mSizeInBytes;
+
+    private CursorSnapshot(String[] columnNames, Object[] values, int rowCount, long sizeInBytes) {
+
+        this.mColumnNames = columnNames;
+        this.mValues = values;
+        this.mRowCount = rowCount;
+        this.mSizeInBytes = sizeInBytes;
+    }
+
+    /**
+     * Copies all the rows of a cursor. The cursor is read from its first row and is left open.
+     * 
+     * @param cursor
+     *            The cursor to copy.
+     * @param maxBytes
+     *            The maximum size of the snapshot, in bytes.
+     * @return The snapshot, or <tt>null</tt> if it would be larger than <tt>maxBytes</tt>. The position of the cursor is
+     *         then moved back before its first row.
+     */
+    public static CursorSnapshot of(Cursor cursor, long maxBytes) {
+
+        final String[] columnNames = cursor.getColumnNames();
+        final int columnCount = columnNames.length;
+        final int rowCount = cursor.getCount();
+        final long valueCount = (long) rowCount * columnCount;
+
+        long sizeInBytes = OBJECT_SIZE * 3 + REFERENCE_SIZE * (columnCount + valueCount);
+
+        /* Don't allocate the values of cursors too large to be cached. */
+        if (sizeInBytes > maxBytes || valueCount > Integer.MAX_VALUE) {
+
+            cursor.moveToPosition(-1);
+            return null;
+        }
+
+        final Object[] values = new Object[(int) valueCount];
+        final AbstractWindowedCursor windowedCursor =
+                cursor instanceof AbstractWindowedCursor ? (AbstractWindowedCursor) cursor : null;
+
+        for (String columnName : columnNames) {
+            sizeInBytes += sizeOf(columnName);
+        }
+
+        int index = 0;
+        int rows = 0;
+        cursor.moveToPosition(-1);
+
+        while (rows < rowCount && cursor.moveToNext()) {
+
+            for (int column = 0; column < columnCount; column++) {
+
+                final Object value = windowedCursor != null ? readTyped(windowedCursor, column) : readString(cursor,
+                        column);
+
+                values[index++] = value;
+                sizeInBytes += sizeOf(value);
+            }
+
+            rows++;
+
+            if (sizeInBytes > maxBytes) {
+
+                cursor.moveToPosition(-1);
+                return null;
+            }
+        }
+
+        return new CursorSnapshot(columnNames, values, rows, sizeInBytes);
+    }
+
+    /**
+     * Gets the approximate amount of memory held by this snapshot.
+     * 
+     * @return The size of this snapshot, in bytes.
+     */
+    public long getSizeInBytes() {
+
+        return mSizeInBytes;
+    }
+
+    /**
+     * Gets the number of rows of this snapshot.
+     * 
+     * @return The number of rows.
+     */
+    public int getRowCount() {
+
+        return mRowCount;
+    }
+
+    /**
+     * Creates a new cursor reading this snapshot.
+     * 
+     * @return The new cursor, positioned before the first row.
+     */
+    public Cursor newCursor() {
+
+        return new SnapshotCursor(this);
+    }
+
+    @SuppressWarnings("deprecation")
+    private static Object readTyped(AbstractWindowedCursor cursor, int column) {
+
+        if (cursor.isNull(column)) {
+            return null;
+        } else if (cursor.isLong(column)) {
+            return cursor.getLong(column);
+        } else if (cursor.isFloat(column)) {
+            return cursor.getDouble(column);
+        } else if (cursor.isBlob(column)) {
+            return cursor.getBlob(column);
+        } else {
+            return cursor.getString(column);
+        }
+    }
+
+    private static Object readString(Cursor cursor, int column) {
+
+        return cursor.isNull(column) ? null : cursor.getString(column);
+    }
+
+    private static long sizeOf(Object value) {
+
+        if (value == null) {
+            return 0;
+        } else if (value instanceof String) {
+            return STRING_SIZE + 2L * ((String) value).length();
+        } else if (value instanceof byte[]) {
+            return OBJECT_SIZE + ((byte[]) value).length;
+        } else {
+            return OBJECT_SIZE;
+        }
+    }
+
+    /**
+     * A read only cursor over a snapshot. Values are converted on access, like SQLite cursors do.
+     */
+    private static final class SnapshotCursor extends AbstractCursor {
+
+        private final CursorSnapshot mSnapshot;
+
+        SnapshotCursor(CursorSnapshot snapshot) {
+
+            this.mSnapshot = snapshot;
+        }
+
+        @Override
+        public int getCount() {
+
+            return mSnapshot.mRowCount;
+        }
+
+        @Override
+        public String[] getColumnNames() {
+
+            return mSnapshot.mColumnNames;
+        }
+
+        @Override
+        public String getString(int column) {
+
+            final Object value = valueAt(column);
+
+            if (value instanceof byte[]) {
+                return new String((byte[]) value);
+            }
+
+            return value == null ? null : value.toString();
+        }
+
+        @Override
+        public short getShort(int column) {
+
+            return (short) getLong(column);
+        }
+
+        @Override
+        public int getInt(int column) {
+
+            return (int) getLong(column);
+        }
+
+        @Override
+        public long getLong(int column) {
+
+            final Object value = valueAt(column);
+
+            if (value instanceof Long) {
+                return (Long) value;
+            }
+
+            return (long) getDouble(column);
+        }
+
+        @Override
+        public float getFloat(int column) {
+
+            return (float) getDouble(column);
+        }
+
+        @Override
+        public double getDouble(int column) {
+
+            final Object value = valueAt(column);
+
+            if (value instanceof Number) {
+                return ((Number) value).doubleValue();
+            } else if (value instanceof String) {
+
+                try {
+                    return Double.parseDouble((String) value);
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+
+            return 0;
+        }
+
+        @Override
+        public byte[] getBlob(int column) {
+
+            final Object value = valueAt(column);
+
+            if (value instanceof byte[]) {
+                return ((byte[]) value).clone();
+            }
+
+            return value == null ? null : value.toString()
+                    .getBytes();
+        }
+
+        @Override
+        public boolean isNull(int column) {
+
+            return valueAt(column) == null;
+        }
+
+        /**
+         * Gets the type of a column of the current row. Overrides Cursor.getType() on API level 11 and above.
+         * 
+         * @param column
+         *            The index of the column.
+         * @return The type of the column, one of Cursor.FIELD_TYPE_*.
+         */
+        public int getType(int column) {
+
+            final Object value = valueAt(column);
+
+            if (value == null) {
+                return FIELD_TYPE_NULL;
+            } else if (value instanceof Long) {
+                return FIELD_TYPE_INTEGER;
+            } else if (value instanceof Double) {
+                return FIELD_TYPE_FLOAT;
+            } else if (value instanceof byte[]) {
+                return FIELD_TYPE_BLOB;
+            } else {
+                return FIELD_TYPE_STRING;
+            }
+        }
+
+        private Object valueAt(int column) {
+
+            checkPosition();
+
+            return mSnapshot.mValues[mPos * mSnapshot.mColumnNames.length + column];
+        }
+    }
+}
@@ -24,6 +24,8 @@ package com.nudroid.provider.interceptor;
 
 import android.database.Cursor;
 import android.net.Uri;
+import android.os.Bundle;
+import android.os.ParcelFileDescriptor;
 
 /**
  * <p>A generic interceptor which can apply the same aspect to all types of delegate methods.</p>
@@ -125,6 +127,29 @@ public abstract class GenericContentProviderInterceptor implements ContentProvid
         return after(contentProviderContext, result);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.nudroid.provider.interceptor.ContentProviderInterceptor#beforeBulkInsert(com.nudroid.provider.interceptor.ContentProviderContext)
+     */
+    @Override
+    public void beforeBulkInsert(ContentProviderContext contentProviderContext) {
+
+        before(contentProviderContext);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.nudroid.provider.interceptor.ContentProviderInterceptor#afterBulkInsert(com.nudroid.provider.interceptor.ContentProviderContext,
+     * int)
+     */
+    @Override
+    public int afterBulkInsert(ContentProviderContext contentProviderContext, int result) {
+
+        return after(contentProviderContext, result);
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -147,4 +172,50 @@ public abstract class GenericContentProviderInterceptor implements ContentProvid
 
         return after(contentProviderContext, result);
     }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.nudroid.provider.interceptor.ContentProviderInterceptor#beforeOpenFile(com.nudroid.provider.interceptor.ContentProviderContext)
+     */
+    @Override
+    public void beforeOpenFile(ContentProviderContext contentProviderContext) {
+
+        before(contentProviderContext);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.nudroid.provider.interceptor.ContentProviderInterceptor#afterOpenFile(com.nudroid.provider.interceptor.ContentProviderContext,
+     * android.os.ParcelFileDescriptor)
+     */
+    @Override
+    public ParcelFileDescriptor afterOpenFile(ContentProviderContext contentProviderContext, ParcelFileDescriptor result) {
+
+        return after(contentProviderContext, result);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.nudroid.provider.interceptor.ContentProviderInterceptor#beforeCall(com.nudroid.provider.interceptor.ContentProviderContext)
+     */
+    @Override
+    public void beforeCall(ContentProviderContext contentProviderContext) {
+
+        before(contentProviderContext);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see com.nudroid.provider.interceptor.ContentProviderInterceptor#afterCall(com.nudroid.provider.interceptor.ContentProviderContext,
+     * android.os.Bundle)
+     */
+    @Override
+    public Bundle afterCall(ContentProviderContext contentProviderContext, Bundle result) {
+
+        return after(contentProviderContext, result);
+    }
 }
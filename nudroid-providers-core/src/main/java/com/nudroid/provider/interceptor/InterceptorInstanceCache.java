@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.provider.interceptor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded, least recently used, map of interceptor instances keyed by the concrete annotation they have been created
+ * with. Generated routers use one instance of this class per interceptor binding whose annotation literals are
+ * expanded against the request placeholders, so requests resolving to the same annotation values share the same
+ * interceptor instance.
+ * <p>
+ * This class is not thread safe. Routers synchronize on the cache instance itself when accessing it.
+ * 
+ * @param <K>
+ *            The type of the concrete annotation used as the key.
+ * @param <V>
+ *            The type of the interceptor.
+ * 
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+public class InterceptorInstanceCache<K, V extends ContentProviderInterceptor> extends LinkedHashMap<K, V> {
+
+    private static final long serialVersionUID = 3405562781342195044L;
+
+    /**
+     * The default maximum number of instances kept per binding.
+     */
+    public static final int DEFAULT_MAX_SIZE = 32;
+
+    private final int mMaxSize;
+
+    /**
+     * Creates a cache holding at most {@link #DEFAULT_MAX_SIZE} instances.
+     */
+    public InterceptorInstanceCache() {
+
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Creates a cache holding at most <tt>maxSize</tt> instances.
+     * 
+     * @param maxSize
+     *            The maximum number of instances to keep. The least recently used instance is evicted when this limit is
+     *            exceeded.
+     */
+    public InterceptorInstanceCache(int maxSize) {
+
+        super(16, 0.75f, true);
+
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be greater than zero");
+        }
+
+        this.mMaxSize = maxSize;
+    }
+
+    /**
+     * Evicts the least recently used instance once the maximum size has been exceeded.
+     * 
+     * @see java.util.LinkedHashMap#removeEldestEntry(java.util.Map.Entry)
+     */
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+
+        return size() > mMaxSize;
+    }
+}
@@ -0,0 +1,422 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.provider.interceptor;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The placeholder values captured from a request URI, stored in slots whose layout is fixed by the generated router.
+ * Routers know at compile time every placeholder name a path can bind, so they write and read values by slot index
+ * instead of hashing the placeholder names.
+ * <p>
+ * This class also implements the {@link Map} interface for interceptors reading or changing placeholders by name.
+ * Changing a value through the map is visible to the router when it reads the slot back. Names outside of the slot
+ * layout are kept in a secondary map, created on first use. A slot holding <tt>null</tt> is treated as absent, so this
+ * map does not support <tt>null</tt> values for names in the layout.
+ * 
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+public final class PlaceholderMap extends AbstractMap<String, String> {
+
+    private static final String[] NO_NAMES = new String[0];
+
+    private String[] mNames;
+    private String[] mValues;
+    private Map<String, String> mOverflow;
+    private Set<Map.Entry<String, String>> mEntrySet;
+
+    /**
+     * Creates an empty map with no slots.
+     */
+    public PlaceholderMap() {
+
+        this(NO_NAMES);
+    }
+
+    /**
+     * Creates an empty map with one slot per name.
+     * 
+     * @param names
+     *            The placeholder names, in slot order. The array is shared, not copied, and must not be modified.
+     */
+    public PlaceholderMap(String[] names) {
+
+        this.mNames = names;
+        this.mValues = new String[names.length];
+    }
+
+    /**
+     * Gets the value stored in a slot.
+     * 
+     * @param slot
+     *            The slot index.
+     * @return The value in the slot, or <tt>null</tt> if the slot is empty.
+     */
+    public String valueAt(int slot) {
+
+        return mValues[slot];
+    }
+
+    /**
+     * Stores a value in a slot.
+     * 
+     * @param slot
+     *            The slot index.
+     * @param value
+     *            The value to store, or <tt>null</tt> to empty the slot.
+     */
+    public void setValueAt(int slot, String value) {
+
+        mValues[slot] = value;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see java.util.AbstractMap#get(java.lang.Object)
+     */
+    @Override
+    public String get(Object key) {
+
+        final int slot = slotOf(key);
+
+        if (slot >= 0) {
+            return mValues[slot];
+        }
+
+        return mOverflow == null ? null : mOverflow.get(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see java.util.AbstractMap#containsKey(java.lang.Object)
+     */
+    @Override
+    public boolean containsKey(Object key) {
+
+        final int slot = slotOf(key);
+
+        if (slot >= 0) {
+            return mValues[slot] != null;
+        }
+
+        return mOverflow != null && mOverflow.containsKey(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see java.util.AbstractMap#put(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public String put(String key, String value) {
+
+        final int slot = slotOf(key);
+
+        if (slot >= 0) {
+
+            final String previous = mValues[slot];
+            mValues[slot] = value;
+            return previous;
+        }
+
+        if (mOverflow == null) {
+            mOverflow = new HashMap<String, String>();
+        }
+
+        return mOverflow.put(key, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see java.util.AbstractMap#remove(java.lang.Object)
+     */
+    @Override
+    public String remove(Object key) {
+
+        final int slot = slotOf(key);
+
+        if (slot >= 0) {
+
+            final String previous = mValues[slot];
+            mValues[slot] = null;
+            return previous;
+        }
+
+        return mOverflow == null ? null : mOverflow.remove(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see java.util.AbstractMap#size()
+     */
+    @Override
+    public int size() {
+
+        int size = mOverflow == null ? 0 : mOverflow.size();
+
+        for (int i = 0; i < mNames.length; i++) {
+            if (mValues[i] != null) {
+                size++;
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see java.util.AbstractMap#clear()
+     */
+    @Override
+    public void clear() {
+
+        for (int i = 0; i < mNames.length; i++) {
+            mValues[i] = null;
+        }
+
+        if (mOverflow != null) {
+            mOverflow.clear();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see java.util.AbstractMap#entrySet()
+     */
+    @Override
+    public Set<Map.Entry<String, String>> entrySet() {
+
+        if (mEntrySet == null) {
+            mEntrySet = new EntrySet();
+        }
+
+        return mEntrySet;
+    }
+
+    /**
+     * Empties this map and changes its slot layout, reusing the storage of the previous layout when it is large enough.
+     * Used when a pooled {@link ContentProviderContext} is reused for another request.
+     * 
+     * @param names
+     *            The placeholder names of the new layout, in slot order.
+     */
+    void reset(String[] names) {
+
+        if (mValues.length < names.length) {
+            mValues = new String[names.length];
+        } else {
+            clear();
+        }
+
+        if (mOverflow != null) {
+            mOverflow.clear();
+        }
+
+        mNames = names;
+    }
+
+    /*
+     * Slot layouts hold a handful of names, so a linear scan beats hashing. Generated routers pass the same literals
+     * they use as keys, which are usually found by the identity check.
+     */
+    private int slotOf(Object key) {
+
+        for (int i = 0; i < mNames.length; i++) {
+            if (mNames[i] == key) {
+                return i;
+            }
+        }
+
+        if (key instanceof String) {
+            for (int i = 0; i < mNames.length; i++) {
+                if (mNames[i].equals(key)) {
+                    return i;
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    private int nextOccupiedSlot(int from) {
+
+        for (int i = from; i < mNames.length; i++) {
+            if (mValues[i] != null) {
+                return i;
+            }
+        }
+
+        return mNames.length;
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<String, String>> {
+
+        @Override
+        public Iterator<Map.Entry<String, String>> iterator() {
+
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+
+            return PlaceholderMap.this.size();
+        }
+
+        @Override
+        public void clear() {
+
+            PlaceholderMap.this.clear();
+        }
+    }
+
+    private final class EntryIterator implements Iterator<Map.Entry<String, String>> {
+
+        private int mNextSlot = nextOccupiedSlot(0);
+        private int mLastSlot = -1;
+        private Iterator<Map.Entry<String, String>> mOverflowIterator;
+
+        @Override
+        public boolean hasNext() {
+
+            if (mNextSlot < mNames.length) {
+                return true;
+            }
+
+            return overflowIterator().hasNext();
+        }
+
+        @Override
+        public Map.Entry<String, String> next() {
+
+            if (mNextSlot < mNames.length) {
+
+                mLastSlot = mNextSlot;
+                mNextSlot = nextOccupiedSlot(mNextSlot + 1);
+                return new SlotEntry(mLastSlot);
+            }
+
+            if (!overflowIterator().hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            mLastSlot = -1;
+            return mOverflowIterator.next();
+        }
+
+        @Override
+        public void remove() {
+
+            if (mLastSlot >= 0) {
+
+                mValues[mLastSlot] = null;
+                mLastSlot = -1;
+            } else if (mOverflowIterator != null) {
+
+                mOverflowIterator.remove();
+            } else {
+
+                throw new IllegalStateException();
+            }
+        }
+
+        private Iterator<Map.Entry<String, String>> overflowIterator() {
+
+            if (mOverflowIterator == null) {
+
+                mOverflowIterator = mOverflow == null ? Collections.<Map.Entry<String, String>> emptySet().iterator()
+                        : mOverflow.entrySet().iterator();
+            }
+
+            return mOverflowIterator;
+        }
+    }
+
+    private final class SlotEntry implements Map.Entry<String, String> {
+
+        private final int mSlot;
+
+        SlotEntry(int slot) {
+
+            this.mSlot = slot;
+        }
+
+        @Override
+        public String getKey() {
+
+            return mNames[mSlot];
+        }
+
+        @Override
+        public String getValue() {
+
+            return mValues[mSlot];
+        }
+
+        @Override
+        public String setValue(String value) {
+
+            final String previous = mValues[mSlot];
+            mValues[mSlot] = value;
+            return previous;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+
+            final Map.Entry<?, ?> other = (Map.Entry<?, ?>) o;
+            return getKey().equals(other.getKey())
+                    && (getValue() == null ? other.getValue() == null : getValue().equals(other.getValue()));
+        }
+
+        @Override
+        public int hashCode() {
+
+            final String value = getValue();
+            return getKey().hashCode() ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString() {
+
+            return getKey() + "=" + getValue();
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.provider.interceptor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A string split into literal segments and placeholders (in the form {&lt;placeholder_name&gt;}), ready to be expanded
+ * against the placeholders of a request in a single pass.
+ * <p>
+ * Generated routers create the templates for interceptor annotation values at compile time, with each placeholder
+ * already resolved to its slot in the request's {@link PlaceholderMap}. Strings only known at runtime are parsed with
+ * {@link #forString(String)}, which caches the parsed templates.
+ * <p>
+ * Placeholders without a value are left untouched in the expanded string.
+ * 
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+public final class PlaceholderTemplate {
+
+    /**
+     * The slot of placeholders looked up by name.
+     */
+    public static final int NO_SLOT = -1;
+
+    private static final int MAX_CACHED_TEMPLATES = 64;
+
+    private static final Map<String, PlaceholderTemplate> sTemplateCache = new LinkedHashMap<String, PlaceholderTemplate>(
+            16, 0.75f, true) {
+
+        private static final long serialVersionUID = -2878451391305473163L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PlaceholderTemplate> eldest) {
+
+            return size() > MAX_CACHED_TEMPLATES;
+        }
+    };
+
+    private final String[] mLiterals;
+    private final String[] mNames;
+    private final int[] mSlots;
+    private final int mLiteralLength;
+
+    /**
+     * Creates a template. A template with <tt>n</tt> placeholders has <tt>n + 1</tt> literal segments: the placeholder
+     * at index <tt>i</tt> goes between literals <tt>i</tt> and <tt>i + 1</tt>.
+     * 
+     * @param literals
+     *            The literal segments of the template. Empty segments are empty strings.
+     * @param names
+     *            The names of the placeholders, in the order they appear in the template.
+     * @param slots
+     *            The slot of each placeholder in the request's {@link PlaceholderMap}, or {@link #NO_SLOT} to look the
+     *            placeholder up by name.
+     */
+    public PlaceholderTemplate(String[] literals, String[] names, int[] slots) {
+
+        if (literals.length != names.length + 1 || slots.length != names.length) {
+            throw new IllegalArgumentException("A template must have one more literal than placeholders and one slot "
+                    + "per placeholder");
+        }
+
+        this.mLiterals = literals;
+        this.mNames = names;
+        this.mSlots = slots;
+
+        int literalLength = 0;
+
+        for (String literal : literals) {
+            literalLength += literal.length();
+        }
+
+        this.mLiteralLength = literalLength;
+    }
+
+    /**
+     * Parses a string into a template whose placeholders are looked up by name.
+     * 
+     * @param template
+     *            The string to parse.
+     * @return The parsed template.
+     */
+    public static PlaceholderTemplate compile(String template) {
+
+        int count = 0;
+
+        for (int start = template.indexOf('{'); start >= 0; start = template.indexOf('{', start + 1)) {
+
+            final int end = template.indexOf('}', start + 1);
+
+            if (end < 0) {
+                break;
+            }
+
+            if (end > start + 1) {
+                count++;
+                start = end;
+            }
+        }
+
+        final String[] literals = new String[count + 1];
+        final String[] names = new String[count];
+        final int[] slots = new int[count];
+
+        int index = 0;
+        int literalStart = 0;
+
+        for (int start = template.indexOf('{'); index < count; start = template.indexOf('{', start + 1)) {
+
+            final int end = template.indexOf('}', start + 1);
+
+            if (end > start + 1) {
+
+                literals[index] = template.substring(literalStart, start);
+                names[index] = template.substring(start + 1, end);
+                slots[index] = NO_SLOT;
+                index++;
+                literalStart = end + 1;
+                start = end;
+            }
+        }
+
+        literals[count] = template.substring(literalStart);
+
+        return new PlaceholderTemplate(literals, names, slots);
+    }
+
+    /**
+     * Gets the template for a string, parsing it only the first time it is seen. The most recently used templates are
+     * cached.
+     * 
+     * @param template
+     *            The string to parse.
+     * @return The parsed template.
+     */
+    public static PlaceholderTemplate forString(String template) {
+
+        synchronized (sTemplateCache) {
+
+            PlaceholderTemplate placeholderTemplate = sTemplateCache.get(template);
+
+            if (placeholderTemplate == null) {
+
+                placeholderTemplate = compile(template);
+                sTemplateCache.put(template, placeholderTemplate);
+            }
+
+            return placeholderTemplate;
+        }
+    }
+
+    /**
+     * Gets the number of placeholders in this template.
+     * 
+     * @return The number of placeholders in this template.
+     */
+    public int getPlaceholderCount() {
+
+        return mNames.length;
+    }
+
+    /**
+     * Gets a literal segment of this template.
+     * 
+     * @param index
+     *            The index of the segment, from <tt>0</tt> to {@link #getPlaceholderCount()} inclusive.
+     * @return The literal segment.
+     */
+    public String getLiteral(int index) {
+
+        return mLiterals[index];
+    }
+
+    /**
+     * Gets the name of a placeholder of this template.
+     * 
+     * @param index
+     *            The index of the placeholder.
+     * @return The name of the placeholder.
+     */
+    public String getPlaceholderName(int index) {
+
+        return mNames[index];
+    }
+
+    /**
+     * Expands this template, replacing the placeholders by their values in <tt>placeholders</tt>.
+     * 
+     * @param placeholders
+     *            The placeholder values of the request.
+     * @return The expanded string.
+     */
+    public String expand(PlaceholderMap placeholders) {
+
+        if (mNames.length == 0) {
+            return mLiterals[0];
+        }
+
+        final StringBuilder result = new StringBuilder(mLiteralLength + 16 * mNames.length);
+        result.append(mLiterals[0]);
+
+        for (int i = 0; i < mNames.length; i++) {
+
+            final String value = mSlots[i] == NO_SLOT ? placeholders.get(mNames[i]) : placeholders
+                    .valueAt(mSlots[i]);
+
+            if (value != null) {
+                result.append(value);
+            } else {
+                result.append('{').append(mNames[i]).append('}');
+            }
+
+            result.append(mLiterals[i + 1]);
+        }
+
+        return result.toString();
+    }
+}
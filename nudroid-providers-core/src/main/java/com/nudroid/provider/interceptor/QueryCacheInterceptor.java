@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.provider.interceptor;
+
+import android.database.Cursor;
+
+/**
+ * <p>An interceptor answering repeated queries from memory. The results of a query are kept as a {@link CursorSnapshot}
+ * in the {@link QueryResultCache} of the authority, keyed by the query URI, projection, selection, selection arguments
+ * and sort order. Later identical queries are answered from the snapshot without invoking the delegate method.</p>
+ *
+ * <p>Entries are invalidated automatically: the router of a delegate using this interceptor invalidates the cache after
+ * every insert, update and delete it routes, for the parent collection of the written path, its ancestors and
+ * everything nested in it.</p>
+ *
+ * <p>Like any other interceptor, subclasses declare the annotation applying it to delegate methods:</p>
+ *
+ * <pre>
+ * public class DashboardCacheInterceptor extends QueryCacheInterceptor {
+ *
+ *     &#064;InterceptorPointcut
+ *     public static @interface Cached {
+ *     }
+ * }
+ *
+ * &#064;DashboardCacheInterceptor.Cached
+ * &#064;Query(&quot;/dashboard/summary&quot;)
+ * public Cursor summary(...) {
+ *
+ *     ...
+ * }
+ * </pre>
+ *
+ * <p>Cursors served from the cache get the query URI as notification URI. Results larger than the cache are returned
+ * as is and not cached.</p>
+ *
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+public abstract class QueryCacheInterceptor extends ContentProviderInterceptorAdapter {
+
+    /* Instances are shared across requests: the cache generation read before a query is kept per thread. */
+    private static final ThreadLocal<long[]> sGeneration = new ThreadLocal<long[]>() {
+
+        @Override
+        protected long[] initialValue() {
+
+            return new long[1];
+        }
+    };
+
+    /**
+     * Gets the cache storing the results of a request. By default, the cache of the authority of the request URI.
+     *
+     * @param contentProviderContext
+     *            The context of the request.
+     * @return The cache to use.
+     */
+    protected QueryResultCache getCache(ContentProviderContext contentProviderContext) {
+
+        return QueryResultCache.forAuthority(contentProviderContext.uri.getAuthority());
+    }
+
+    /**
+     * Answers the query from the cache if its results are cached. {@inheritDoc}
+     *
+     * @see ContentProviderInterceptor#beforeQuery(ContentProviderContext)
+     */
+    @Override
+    public void beforeQuery(ContentProviderContext contentProviderContext) {
+
+        final QueryResultCache cache = getCache(contentProviderContext);
+        sGeneration.get()[0] = cache.getGeneration();
+
+        final CursorSnapshot snapshot = cache.get(QueryResultCache.Key.of(contentProviderContext));
+
+        if (snapshot != null) {
+            contentProviderContext.queryResult = newCursor(contentProviderContext, snapshot);
+        }
+    }
+
+    /**
+     * Caches the results of the query, unless it has been answered from the cache. {@inheritDoc}
+     *
+     * @see ContentProviderInterceptor#afterQuery(ContentProviderContext, Cursor)
+     */
+    @Override
+    public Cursor afterQuery(ContentProviderContext contentProviderContext, Cursor result) {
+
+        if (result == null || result == contentProviderContext.queryResult) {
+            return result;
+        }
+
+        final QueryResultCache cache = getCache(contentProviderContext);
+        final CursorSnapshot snapshot = CursorSnapshot.of(result, cache.getMaxBytes());
+
+        if (snapshot == null) {
+            return result;
+        }
+
+        result.close();
+        cache.put(QueryResultCache.Key.of(contentProviderContext), snapshot, sGeneration.get()[0]);
+
+        return newCursor(contentProviderContext, snapshot);
+    }
+
+    private Cursor newCursor(ContentProviderContext contentProviderContext, CursorSnapshot snapshot) {
+
+        final Cursor cursor = snapshot.newCursor();
+
+        if (contentProviderContext.context != null) {
+            cursor.setNotificationUri(contentProviderContext.context.getContentResolver(), contentProviderContext.uri);
+        }
+
+        return cursor;
+    }
+}
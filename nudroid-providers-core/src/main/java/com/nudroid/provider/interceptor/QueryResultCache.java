@@ -0,0 +1,444 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.provider.interceptor;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import android.net.Uri;
+
+/**
+ * The query results cached by {@link QueryCacheInterceptor} for a content provider authority. Results are kept as
+ * {@link CursorSnapshot}s, evicted least recently used first once their total size exceeds the maximum size of the
+ * cache.
+ * <p>
+ * Routers of delegates using a QueryCacheInterceptor call {@link #invalidate(String, Uri)} after each insert, update and
+ * delete. Entries whose path is the collection holding the written path (its parent), one of the ancestors of the
+ * collection or nested anywhere in the collection are then dropped: a write to <tt>/users/5</tt> invalidates
+ * <tt>/users</tt>, <tt>/users/5</tt>, <tt>/users/5/friends</tt> and also <tt>/users/search/john</tt> or
+ * <tt>/users/count</tt>, which may aggregate the written row, but not <tt>/groups</tt>. A write to a top level path,
+ * like <tt>/users</tt>, only invalidates the entries nested in it.
+ * <p>
+ * Caches use {@link #DEFAULT_MAX_BYTES} unless {@link #configure(String, long)} is called before their first use.
+ * 
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+public final class QueryResultCache {
+
+    /**
+     * The default maximum size of a cache, in bytes.
+     */
+    public static final long DEFAULT_MAX_BYTES = 1024 * 1024;
+
+    private static final ConcurrentMap<String, QueryResultCache> sCaches =
+            new ConcurrentHashMap<String, QueryResultCache>();
+
+    private final long mMaxBytes;
+    private final LinkedHashMap<Key, CursorSnapshot> mEntries = new LinkedHashMap<Key, CursorSnapshot>(16, 0.75f, true);
+    private long mSizeInBytes;
+    private long mGeneration;
+    private long mHitCount;
+    private long mMissCount;
+    private long mEvictionCount;
+
+    private QueryResultCache(long maxBytes) {
+
+        this.mMaxBytes = maxBytes;
+    }
+
+    /**
+     * Sets the maximum size of the cache of an authority. Must be called before the cache is first used, typically when
+     * the delegate is created.
+     * 
+     * @param authority
+     *            The content provider authority.
+     * @param maxBytes
+     *            The maximum size of the cache, in bytes.
+     * @throws IllegalStateException
+     *             If the cache of the authority is already in use.
+     */
+    public static void configure(String authority, long maxBytes) {
+
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException(String.format("Cache size must be positive: maxBytes=%d", maxBytes));
+        }
+
+        if (sCaches.putIfAbsent(authority, new QueryResultCache(maxBytes)) != null) {
+            throw new IllegalStateException(String.format("The query cache of authority %s is already in use",
+                    authority));
+        }
+    }
+
+    /**
+     * Gets the cache of an authority, creating it with the default size if needed.
+     * 
+     * @param authority
+     *            The content provider authority.
+     * @return The cache of the authority.
+     */
+    public static QueryResultCache forAuthority(String authority) {
+
+        QueryResultCache cache = sCaches.get(authority);
+
+        if (cache == null) {
+
+            final QueryResultCache newCache = new QueryResultCache(DEFAULT_MAX_BYTES);
+            cache = sCaches.putIfAbsent(authority, newCache);
+
+            if (cache == null) {
+                cache = newCache;
+            }
+        }
+
+        return cache;
+    }
+
+    /**
+     * Drops the entries of the cache of an authority affected by a write to a URI. Does nothing if the authority has no
+     * cache.
+     * 
+     * @param authority
+     *            The content provider authority.
+     * @param uri
+     *            The URI written to.
+     */
+    public static void invalidate(String authority, Uri uri) {
+
+        final QueryResultCache cache = sCaches.get(authority);
+
+        if (cache != null) {
+            cache.invalidate(uri);
+        }
+    }
+
+    /**
+     * Gets the snapshot cached for a query.
+     * 
+     * @param key
+     *            The key of the query.
+     * @return The snapshot, or <tt>null</tt> if the query is not cached.
+     */
+    public synchronized CursorSnapshot get(Key key) {
+
+        final CursorSnapshot snapshot = mEntries.get(key);
+
+        if (snapshot != null) {
+            mHitCount++;
+        } else {
+            mMissCount++;
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Gets the number of invalidations so far. A snapshot is only stored by {@link #put(Key, CursorSnapshot, long)} if
+     * the cache has not been invalidated since this value was read, so results read concurrently with a write are never
+     * cached.
+     * 
+     * @return The current generation of this cache.
+     */
+    public synchronized long getGeneration() {
+
+        return mGeneration;
+    }
+
+    /**
+     * Caches the snapshot of a query, evicting least recently used entries as needed.
+     * 
+     * @param key
+     *            The key of the query.
+     * @param snapshot
+     *            The results of the query.
+     * @param generation
+     *            The generation of this cache read before the query was run.
+     * @return <tt>true</tt> if the snapshot has been cached, <tt>false</tt> if it is larger than the cache or the cache
+     *         has been invalidated since <tt>generation</tt>.
+     */
+    public synchronized boolean put(Key key, CursorSnapshot snapshot, long generation) {
+
+        if (generation != mGeneration || snapshot.getSizeInBytes() > mMaxBytes) {
+            return false;
+        }
+
+        final CursorSnapshot previous = mEntries.put(key, snapshot);
+        mSizeInBytes += snapshot.getSizeInBytes();
+
+        if (previous != null) {
+            mSizeInBytes -= previous.getSizeInBytes();
+        }
+
+        final Iterator<CursorSnapshot> iterator = mEntries.values()
+                .iterator();
+
+        while (mSizeInBytes > mMaxBytes && iterator.hasNext()) {
+
+            mSizeInBytes -= iterator.next()
+                    .getSizeInBytes();
+            iterator.remove();
+            mEvictionCount++;
+        }
+
+        return true;
+    }
+
+    /**
+     * Drops the entries affected by a write to a URI: entries on the parent collection of the written path, on one of
+     * its ancestors or nested in it. Sibling paths are dropped too, as they may hold results computed from the whole
+     * collection.
+     * 
+     * @param uri
+     *            The URI written to.
+     */
+    public synchronized void invalidate(Uri uri) {
+
+        final String path = collectionOf(Key.normalizePath(uri));
+        final Iterator<Map.Entry<Key, CursorSnapshot>> iterator = mEntries.entrySet()
+                .iterator();
+
+        mGeneration++;
+
+        while (iterator.hasNext()) {
+
+            final Map.Entry<Key, CursorSnapshot> entry = iterator.next();
+
+            if (isSameOrNestedPath(entry.getKey().mPath, path)) {
+
+                mSizeInBytes -= entry.getValue()
+                        .getSizeInBytes();
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Drops all the entries of this cache.
+     */
+    public synchronized void clear() {
+
+        mGeneration++;
+        mEntries.clear();
+        mSizeInBytes = 0;
+    }
+
+    /**
+     * Gets the approximate amount of memory held by the entries of this cache.
+     * 
+     * @return The size of this cache, in bytes.
+     */
+    public synchronized long getSizeInBytes() {
+
+        return mSizeInBytes;
+    }
+
+    /**
+     * Gets the maximum size of this cache.
+     * 
+     * @return The maximum size, in bytes.
+     */
+    public long getMaxBytes() {
+
+        return mMaxBytes;
+    }
+
+    @Override
+    public synchronized String toString() {
+
+        return "QueryResultCache [entries=" + mEntries.size() + ", sizeInBytes=" + mSizeInBytes + ", maxBytes="
+                + mMaxBytes + ", hits=" + mHitCount + ", misses=" + mMissCount + ", evictions=" + mEvictionCount + "]";
+    }
+
+    /*
+     * The parent of a path, unless the path is top level: a write to a whole collection must not invalidate the others.
+     */
+    static String collectionOf(String path) {
+
+        final int parentEnd = path.lastIndexOf('/');
+
+        return parentEnd > 0 ? path.substring(0, parentEnd) : path;
+    }
+
+    private static boolean isSameOrNestedPath(String path1, String path2) {
+
+        return isSameOrDescendant(path1, path2) || isSameOrDescendant(path2, path1);
+    }
+
+    private static boolean isSameOrDescendant(String path, String ancestor) {
+
+        return path.startsWith(ancestor) && (path.length() == ancestor.length() || path.charAt(ancestor.length()) == '/');
+    }
+
+    /**
+     * The key of a cached query: its normalized URI, projection, selection, selection arguments and sort order. URIs
+     * are normalized by dropping trailing slashes and sorting the query string parameters, so <tt>/users/?b=2&amp;a=1</tt>
+     * and <tt>/users?a=1&amp;b=2</tt> share the same entry.
+     */
+    public static final class Key {
+
+        private final String mPath;
+        private final String mQuery;
+        private final String[] mProjection;
+        private final String mSelection;
+        private final String[] mSelectionArgs;
+        private final String mSortOrder;
+        private final int mHashCode;
+
+        private Key(String path, String query, String[] projection, String selection, String[] selectionArgs,
+                String sortOrder) {
+
+            this.mPath = path;
+            this.mQuery = query;
+            this.mProjection = projection;
+            this.mSelection = selection;
+            this.mSelectionArgs = selectionArgs;
+            this.mSortOrder = sortOrder;
+
+            int hashCode = path.hashCode();
+            hashCode = 31 * hashCode + (query != null ? query.hashCode() : 0);
+            hashCode = 31 * hashCode + Arrays.hashCode(projection);
+            hashCode = 31 * hashCode + (selection != null ? selection.hashCode() : 0);
+            hashCode = 31 * hashCode + Arrays.hashCode(selectionArgs);
+            hashCode = 31 * hashCode + (sortOrder != null ? sortOrder.hashCode() : 0);
+            this.mHashCode = hashCode;
+        }
+
+        /**
+         * Creates the key of a query. The arrays are copied.
+         * 
+         * @param uri
+         *            The URI of the query.
+         * @param projection
+         *            The projection of the query.
+         * @param selection
+         *            The selection of the query.
+         * @param selectionArgs
+         *            The arguments of the selection.
+         * @param sortOrder
+         *            The sort order of the query.
+         * @return The key.
+         */
+        public static Key of(Uri uri, String[] projection, String selection, String[] selectionArgs,
+                String sortOrder) {
+
+            return new Key(normalizePath(uri), normalizeQuery(uri.getEncodedQuery()),
+                    projection != null ? projection.clone() : null, selection,
+                    selectionArgs != null ? selectionArgs.clone() : null, sortOrder);
+        }
+
+        /**
+         * Creates the key of the query of a request.
+         * 
+         * @param contentProviderContext
+         *            The context of the request.
+         * @return The key.
+         */
+        public static Key of(ContentProviderContext contentProviderContext) {
+
+            return of(contentProviderContext.uri, contentProviderContext.projection, contentProviderContext.selection,
+                    contentProviderContext.selectionArgs, contentProviderContext.sortOrder);
+        }
+
+        static String normalizePath(Uri uri) {
+
+            final String path = uri.getEncodedPath();
+
+            if (path == null) {
+                return "";
+            }
+
+            int end = path.length();
+
+            while (end > 0 && path.charAt(end - 1) == '/') {
+                end--;
+            }
+
+            return path.substring(0, end);
+        }
+
+        private static String normalizeQuery(String query) {
+
+            if (query == null || query.isEmpty()) {
+                return null;
+            }
+
+            if (query.indexOf('&') < 0) {
+                return query;
+            }
+
+            final String[] parameters = query.split("&");
+            Arrays.sort(parameters);
+
+            final StringBuilder normalized = new StringBuilder(query.length());
+
+            for (String parameter : parameters) {
+
+                if (!parameter.isEmpty()) {
+
+                    if (normalized.length() > 0) {
+                        normalized.append('&');
+                    }
+
+                    normalized.append(parameter);
+                }
+            }
+
+            return normalized.toString();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            final Key key = (Key) o;
+
+            return mHashCode == key.mHashCode && mPath.equals(key.mPath) && equal(mQuery, key.mQuery)
+                    && Arrays.equals(mProjection, key.mProjection) && equal(mSelection, key.mSelection)
+                    && Arrays.equals(mSelectionArgs, key.mSelectionArgs) && equal(mSortOrder, key.mSortOrder);
+        }
+
+        @Override
+        public int hashCode() {
+
+            return mHashCode;
+        }
+
+        @Override
+        public String toString() {
+
+            return "Key [path=" + mPath + ", query=" + mQuery + ", projection=" + Arrays.toString(mProjection)
+                    + ", selection=" + mSelection + ", selectionArgs=" + Arrays.toString(mSelectionArgs)
+                    + ", sortOrder=" + mSortOrder + "]";
+        }
+
+        private static boolean equal(String s1, String s2) {
+
+            return s1 == null ? s2 == null : s1.equals(s2);
+        }
+    }
+}
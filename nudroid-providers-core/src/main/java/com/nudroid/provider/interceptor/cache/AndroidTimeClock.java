@@ -25,17 +25,17 @@ package com.nudroid.provider.interceptor.cache;
 import android.text.format.Time;
 
 /**
- * This class is not thread safe.
- * 
  * A {@link Clock} implementation which uses Android {@link Time} to get current date and time.
  * 
+ * This class is thread safe, so a single instance can be shared by interceptors serving concurrent requests.
+ * 
  * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
  */
 public class AndroidTimeClock implements Clock {
-    Time mTime = new Time();
+    private final Time mTime = new Time();
 
     @Override
-    public long currentTime() {
+    public synchronized long currentTime() {
 
         mTime.setToNow();
         return mTime.toMillis(false);
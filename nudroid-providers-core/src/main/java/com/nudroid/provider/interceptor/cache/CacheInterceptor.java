@@ -22,17 +22,14 @@
 
 package com.nudroid.provider.interceptor.cache;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.Semaphore;
 
-import android.content.Context;
-import android.content.SharedPreferences;
-import android.content.SharedPreferences.Editor;
 import android.net.Uri;
 import android.util.Base64;
 import android.util.Log;
 
+import com.nudroid.provider.delegate.DelegateExecutor;
 import com.nudroid.provider.interceptor.ContentProviderContext;
 import com.nudroid.provider.interceptor.ContentProviderInterceptor;
 import com.nudroid.provider.interceptor.GenericContentProviderInterceptor;
@@ -74,7 +71,28 @@ import com.nudroid.provider.interceptor.GenericContentProviderInterceptor;
  * activity for the first time so either the first page is downloaded or cahced content is imediatelly served. As the
  * user scrolls to the end of the content (most probably on a list or grid view) requests can be sent with a value of
  * NEXT. This will request the synchronizer to download the next page of data.</p> <p> <p>A value of NEXT never triggers
- * a cache validation.</p> <p> <h1>Example</h1> <p> <p>Here's an example of a caching interceptor.</p> <p>
+ * a cache validation.</p> <p> <h1>Stale while revalidate</h1> <p> <p>By default, requests wait for the synchronizer
+ * whenever the cache is stale. Subclasses returning <tt>true</tt> from {@link
+ * #isStaleWhileRevalidate(ContentProviderContext, String)} serve the stale data right away instead, and the cache is
+ * synchronized on a background thread of the cache synchronization executor of the provider authority (see {@link
+ * com.nudroid.provider.delegate.DelegateExecutor#CACHE_SYNCHRONIZATION}). Background synchronizations hold the lock of
+ * the cache, as requests waiting for the synchronizer do, and are skipped if the lock is already taken: a single
+ * synchronization runs at a time for a cache id, and requests which must wait for the cache wait for the running one to
+ * finish, then find the cache up to date. Synchronization strategies should notify the change of the
+ * synchronized content, with {@link com.nudroid.provider.delegate.ChangeNotifier#notifyChange(android.content.Context,
+ * Uri)} for instance, so clients holding stale data query it again. {@link #getMaxStaleness(ContentProviderContext,
+ * String)} bounds how stale served data may be: requests for older caches, or for caches never synchronized, wait for
+ * the synchronizer as usual.</p>
+ * <p> <h1>Prefetching</h1> <p> <p>Subclasses returning a positive number of pages from {@link
+ * #getPrefetchPages(ContentProviderContext, String)} download the next pages of a paginated cache before they are
+ * requested. Once a page is served, the next one is downloaded in the background, with {@link
+ * SynchronizationStrategy#downloadPage(ContentProviderContext, String, int)}, until that many pages are downloaded
+ * ahead of the last page requested. Requests with a value of NEXT then proceed right away on the prefetched page. A
+ * prefetch holds the lock of the cache while the page is downloaded and stored, so it never races a synchronization of
+ * the cache, and it is skipped if the lock is already taken or the cache changed since it was scheduled. Requests for
+ * cached data, an up to date cache or a prefetched page, don't take the lock and never wait for a prefetch. At most
+ * {@link #MAX_CONCURRENT_PREFETCHES} pages are prefetched at once, across all caches.</p>
+ * <p> <h1>Example</h1> <p> <p>Here's an example of a caching interceptor.</p> <p>
  * <pre>
  * package com.example.test_anotations.vision.custom;
  *
@@ -119,7 +137,7 @@ import com.nudroid.provider.interceptor.GenericContentProviderInterceptor;
  *     &#064;Override
  *     public CachingStrategy onCreateCachingStrategy(ContentProviderContext context) {
  *
- *         return new MaxAgeCacheStrategy(SYSTEM_CLOCK_SINGLETON, mUpdateInterval, mTimeUnit);
+ *         return new MaxAgeCacheStrategy(SYSTEM_CLOCK_SINGLETON, mUpdateInterval, mTimeUnit, getCacheMetadataStore());
  *     }
  *
  *     &#064;Override
@@ -196,10 +214,8 @@ public abstract class CacheInterceptor extends GenericContentProviderInterceptor
             "com.nudroid.provider.interceptor.cache.CacheInterceptor.cacheId";
 
     /**
-     * Preferences file where cache information is stored.
-     * <p>
-     * TODO: Instead of exposing the internals of how the cache manager stores its data, create a component to manage
-     * the cache with a properly defined interface which can be accessed by clients of the library.
+     * Preferences file where cache information is stored by {@link SharedPreferencesCacheMetadataStore}, the default
+     * {@link CacheMetadataStore}.
      */
     public static final String CACHE_PAGINATION_PREFERENCES_FILE =
             "com_nudroid_provider_interceptor_cache_CACHE_PAGINATION_PREFERENCES_FILE";
@@ -208,7 +224,26 @@ public abstract class CacheInterceptor extends GenericContentProviderInterceptor
     private static final String PAGE_REMOVAL_REG_EXP =
             "\\&?com\\.nudroid\\.provider\\.interceptor\\.cache\\.pagination\\=[^\\&]*(\\&+)?";
 
-    private static Map<String, Semaphore> sSemaphoresForCacheId = new HashMap<String, Semaphore>();
+    /**
+     * The number of locks shared by the cache ids of all cache interceptors. Updates of the caches of a cache id are
+     * serialized, as are, seldom, updates of cache ids sharing a lock.
+     */
+    public static final int CACHE_LOCK_STRIPES = 64;
+
+    /**
+     * The value of {@link #getMaxStaleness(ContentProviderContext, String)} letting stale caches be served however old
+     * they are.
+     */
+    public static final long UNLIMITED_STALENESS = Long.MAX_VALUE;
+
+    /**
+     * The maximum number of pages prefetched at once by all cache interceptors.
+     */
+    public static final int MAX_CONCURRENT_PREFETCHES = 2;
+
+    private static final StripedLocks sCacheLocks = new StripedLocks(CACHE_LOCK_STRIPES);
+    private static final Semaphore sPrefetchBudget = new Semaphore(MAX_CONCURRENT_PREFETCHES);
+    private static final Clock sClock = new AndroidTimeClock();
 
     /**
      * Supported pagination instructions for the synchronizer.
@@ -233,11 +268,12 @@ public abstract class CacheInterceptor extends GenericContentProviderInterceptor
         NONE
     }
 
-    private CachingStrategy mCachingStrategy;
-    private SynchronizationStrategy mSynchronizationStrategy;
+    private volatile CacheMetadataStore mCacheMetadataStore;
+    private volatile CachingStrategy mCachingStrategy;
+    private volatile SynchronizationStrategy mSynchronizationStrategy;
 
-    private String mRemoteUrl;
-    private String mCacheId;
+    private final String mRemoteUrl;
+    private final String mCacheId;
 
     private static String sTag = "CacheInterceptor";
 
@@ -253,7 +289,7 @@ public abstract class CacheInterceptor extends GenericContentProviderInterceptor
 
         this.mRemoteUrl = remoteUrl;
 
-        if (this.mRemoteUrl == null) {
+        if (remoteUrl == null) {
             Log.d(sTag, String.format(
                     "Parameter %s not set. Remote URL is null. Subclasses must implement getRemoteUrl(Context)",
                     REMOTE_URL_PROPERTY_NAME));
@@ -269,7 +305,16 @@ public abstract class CacheInterceptor extends GenericContentProviderInterceptor
      */
     public void onCreate(ContentProviderContext context) {
 
-        mCachingStrategy = onCreateCachingStrategy(context);
+        mCacheMetadataStore = onCreateCacheMetadataStore(context);
+
+        final CachingStrategy cachingStrategy = onCreateCachingStrategy(context);
+
+        /* The versions must be stored along with the pages, or the cache would be checked against stale metadata. */
+        if (cachingStrategy instanceof MaxAgeCacheStrategy) {
+            ((MaxAgeCacheStrategy) cachingStrategy).bindMetadataStore(mCacheMetadataStore);
+        }
+
+        mCachingStrategy = cachingStrategy;
         mSynchronizationStrategy = onCreateSynchronizationStrategy(context);
     }
 
@@ -293,6 +338,32 @@ public abstract class CacheInterceptor extends GenericContentProviderInterceptor
      */
     public abstract CachingStrategy onCreateCachingStrategy(ContentProviderContext context);
 
+    /**
+     * Called when the cache interceptor is being created to provide the store of the cache metadata. Called before the
+     * caching and synchronization strategies are created, so they can use {@link #getCacheMetadataStore()}. By default,
+     * returns the shared store backed by the {@link #CACHE_PAGINATION_PREFERENCES_FILE} preferences file, which commits
+     * updates in batches on a background thread.
+     *
+     * @param context
+     *         A reference to the content provider context
+     *
+     * @return The store of the page numbers and versions of the caches.
+     */
+    protected CacheMetadataStore onCreateCacheMetadataStore(ContentProviderContext context) {
+
+        return SharedPreferencesCacheMetadataStore.getInstance(context.context);
+    }
+
+    /**
+     * Gets the store of the cache metadata created by {@link #onCreateCacheMetadataStore(ContentProviderContext)}.
+     *
+     * @return The store of the page numbers and versions of the caches.
+     */
+    public CacheMetadataStore getCacheMetadataStore() {
+
+        return mCacheMetadataStore;
+    }
+
     /**
      * Gets the remote url to use. By default, returns the remote url passed in the constructor but can be overridden to
      * return something else.
@@ -318,6 +389,57 @@ public abstract class CacheInterceptor extends GenericContentProviderInterceptor
         return mCacheId;
     }
 
+    /**
+     * Informs if stale data of a cache is served while the cache is synchronized in the background, instead of waiting
+     * for the synchronization. Only applies to requests validating the cache: requests for the next page always wait
+     * for it. Returns <tt>false</tt> by default.
+     *
+     * @param context
+     *         A reference to the content provider context
+     * @param cacheId
+     *         The id of the cache.
+     *
+     * @return <tt>true</tt> to serve stale data right away, <tt>false</tt> to wait for the synchronization.
+     */
+    protected boolean isStaleWhileRevalidate(ContentProviderContext context, String cacheId) {
+
+        return false;
+    }
+
+    /**
+     * Gets how stale the data of a cache may be when served while the cache is synchronized in the background. Older
+     * caches are synchronized before the request proceeds. The age of a cache is read from its version in the {@link
+     * CacheMetadataStore}, stored by caching strategies like {@link MaxAgeCacheStrategy}. Returns {@link
+     * #UNLIMITED_STALENESS} by default.
+     *
+     * @param context
+     *         A reference to the content provider context
+     * @param cacheId
+     *         The id of the cache.
+     *
+     * @return The maximum age of the served data, in milliseconds, or {@link #UNLIMITED_STALENESS}.
+     */
+    protected long getMaxStaleness(ContentProviderContext context, String cacheId) {
+
+        return UNLIMITED_STALENESS;
+    }
+
+    /**
+     * Gets the number of pages of a paginated cache downloaded in the background ahead of the last page requested.
+     * Returns 0, disabling prefetching, by default.
+     *
+     * @param context
+     *         A reference to the content provider context
+     * @param cacheId
+     *         The id of the cache.
+     *
+     * @return The number of pages to prefetch.
+     */
+    protected int getPrefetchPages(ContentProviderContext context, String cacheId) {
+
+        return 0;
+    }
+
     /**
      * Orchestrates the logic for checking and updating the cache. {@inheritDoc}
      *
@@ -330,18 +452,21 @@ public abstract class CacheInterceptor extends GenericContentProviderInterceptor
         context.uri = Uri.parse(context.uri.toString()
                 .replaceAll(PAGE_REMOVAL_REG_EXP, ""));
 
-        if (mCacheId == null || mCacheId.isEmpty()) {
+        /* Instances are shared across requests: the cache id generated for this request must not be stored in it. */
+        String cacheId = getCacheId();
+
+        if (cacheId == null || cacheId.isEmpty()) {
 
-            this.mCacheId = Base64.encodeToString(context.uri.toString()
+            cacheId = Base64.encodeToString(context.uri.toString()
                     .getBytes(), Base64.NO_PADDING | Base64.NO_WRAP | Base64.URL_SAFE);
         }
 
         if (context.uri.getQuery() != null) {
             context.uri = Uri.parse(
-                    String.format("%s&%s=%s", context.uri.toString(), CACHE_ID_QUERY_STRING_PARAM_NAME, this.mCacheId));
+                    String.format("%s&%s=%s", context.uri.toString(), CACHE_ID_QUERY_STRING_PARAM_NAME, cacheId));
         } else {
             context.uri = Uri.parse(
-                    String.format("%s?%s=%s", context.uri.toString(), CACHE_ID_QUERY_STRING_PARAM_NAME, this.mCacheId));
+                    String.format("%s?%s=%s", context.uri.toString(), CACHE_ID_QUERY_STRING_PARAM_NAME, cacheId));
         }
 
         if (paginationTypeName != null && !paginationTypeName.trim()
@@ -355,13 +480,27 @@ public abstract class CacheInterceptor extends GenericContentProviderInterceptor
             }
         }
 
+        final Semaphore semaphore = sCacheLocks.get(cacheId);
+
+        if (paginationType != PaginationType.NEXT && isStaleWhileRevalidate(context, cacheId)
+                && revalidateInBackground(context, cacheId, paginationType, semaphore)) {
+
+            prefetchNextPage(context, cacheId, paginationType, semaphore);
+            return;
+        }
+
+        if (isServedFromCache(context, cacheId, paginationType)) {
+
+            prefetchNextPage(context, cacheId, paginationType, semaphore);
+            return;
+        }
+
         boolean wasInterrupted = false;
-        final Semaphore semaphore = getSemaphore(this.mCacheId);
 
         try {
 
             semaphore.acquire();
-            checkAndUpdateCache(context, this.mCacheId, paginationType);
+            checkAndUpdateCache(context, cacheId, paginationType);
         } catch (InterruptedException e) {
 
             wasInterrupted = true;
@@ -372,23 +511,183 @@ public abstract class CacheInterceptor extends GenericContentProviderInterceptor
                 semaphore.release();
             }
         }
+
+        prefetchNextPage(context, cacheId, paginationType, semaphore);
+    }
+
+    /*
+     * Starts the synchronization of a stale cache in the background. The synchronization is skipped if the lock of the
+     * cache is taken by the time it runs: the cache is then being synchronized, or is synchronized once the lock is
+     * released if the request holding it has to. Returns false if the cache is too stale to be served, in which case
+     * the request must wait for the synchronization.
+     */
+    private boolean revalidateInBackground(ContentProviderContext context, final String cacheId,
+                                           final PaginationType paginationType, final Semaphore semaphore) {
+
+        if (mCachingStrategy.isUpToDate(context, cacheId)) {
+            return true;
+        }
+
+        final long maxStaleness = getMaxStaleness(context, cacheId);
+        final long version = mCacheMetadataStore.getVersion(cacheId);
+
+        if (maxStaleness != UNLIMITED_STALENESS && (version == 0 || sClock.currentTime() - version > maxStaleness)) {
+            return false;
+        }
+
+        /* A synchronization already running holds the lock: don't queue another one. */
+        if (semaphore.availablePermits() == 0) {
+            return true;
+        }
+
+        final ContentProviderContext backgroundContext = copyContext(context);
+
+        try {
+
+            DelegateExecutor.forAuthority(context.uri.getAuthority(), DelegateExecutor.CACHE_SYNCHRONIZATION)
+                    .execute(new Runnable() {
+
+                        @Override
+                        public void run() {
+
+                            /* Don't block a thread of the executor waiting for the work done on the cache. */
+                            if (!semaphore.tryAcquire()) {
+                                return;
+                            }
+
+                            try {
+                                checkAndUpdateCache(backgroundContext, cacheId, paginationType);
+                            } finally {
+                                semaphore.release();
+                            }
+                        }
+                    });
+        } catch (RejectedExecutionException e) {
+
+            Log.d(sTag, String.format("Background synchronization of cache %s rejected: %s", cacheId, e.getMessage()));
+        }
+
+        return true;
+    }
+
+    /*
+     * Serves the request without taking the lock of the cache if there is nothing to update: the cache is up to date,
+     * or the next page was already downloaded by a prefetch, which is then taken.
+     */
+    private boolean isServedFromCache(ContentProviderContext context, String cacheId, PaginationType paginationType) {
+
+        if (paginationType == PaginationType.NEXT) {
+            return mCacheMetadataStore.addPrefetchedPages(cacheId, -1) > 0;
+        }
+
+        return mCachingStrategy.isUpToDate(context, cacheId);
+    }
+
+    /*
+     * Starts downloading the page following the last page downloaded for a paginated cache in the background, if fewer
+     * than getPrefetchPages() pages are downloaded ahead and the prefetch budget allows it.
+     */
+    private void prefetchNextPage(ContentProviderContext context, final String cacheId,
+                                  PaginationType paginationType, final Semaphore semaphore) {
+
+        if (paginationType == PaginationType.NONE) {
+            return;
+        }
+
+        final int prefetchPages = getPrefetchPages(context, cacheId);
+        final int lastPage = mCacheMetadataStore.getPage(cacheId, 0);
+        final long version = mCacheMetadataStore.getVersion(cacheId);
+
+        if (prefetchPages <= 0 || lastPage == 0 || mCacheMetadataStore.getPrefetchedPages(cacheId) >= prefetchPages
+                || !sPrefetchBudget.tryAcquire()) {
+            return;
+        }
+
+        final ContentProviderContext backgroundContext = copyContext(context);
+
+        try {
+
+            DelegateExecutor.forAuthority(context.uri.getAuthority(), DelegateExecutor.CACHE_SYNCHRONIZATION)
+                    .execute(new Runnable() {
+
+                        @Override
+                        public void run() {
+
+                            boolean pageDownloaded = false;
+
+                            try {
+                                pageDownloaded = downloadPrefetchedPage(backgroundContext, cacheId, lastPage, version,
+                                        prefetchPages, semaphore);
+                            } finally {
+                                sPrefetchBudget.release();
+                            }
+
+                            if (pageDownloaded) {
+                                prefetchNextPage(backgroundContext, cacheId, PaginationType.NEXT, semaphore);
+                            }
+                        }
+                    });
+        } catch (RejectedExecutionException e) {
+
+            sPrefetchBudget.release();
+            Log.d(sTag, String.format("Prefetch of cache %s rejected: %s", cacheId, e.getMessage()));
+        }
     }
 
-    private Semaphore getSemaphore(String cacheId) {
+    /*
+     * Downloads and stores the page following lastPage holding the lock of the cache, unless the lock is taken or the
+     * cache changed since the prefetch was scheduled: it was synchronized again, the page was already downloaded or
+     * enough pages are prefetched. Nothing is written for an outdated prefetch, and the page is downloaded again when
+     * requested.
+     */
+    private boolean downloadPrefetchedPage(ContentProviderContext context, String cacheId, int lastPage, long version,
+                                           int prefetchPages, Semaphore semaphore) {
+
+        /* Blocking here would keep a thread of the executor waiting for the work done on another cache. */
+        if (!semaphore.tryAcquire()) {
+            return false;
+        }
+
+        try {
+
+            if (mCacheMetadataStore.getPage(cacheId, 0) != lastPage
+                    || mCacheMetadataStore.getVersion(cacheId) != version
+                    || mCacheMetadataStore.getPrefetchedPages(cacheId) >= prefetchPages) {
+                return false;
+            }
+
+            boolean pageDownloaded = false;
 
-        synchronized (sSemaphoresForCacheId) {
+            try {
+                pageDownloaded = mSynchronizationStrategy.downloadPage(context, getRemoteUrl(context), lastPage + 1);
+            } catch (Throwable e) {
+                mSynchronizationStrategy.onError(context, e);
+            }
 
-            Semaphore semaphore = sSemaphoresForCacheId.get(cacheId);
+            if (pageDownloaded) {
 
-            if (semaphore == null) {
-                semaphore = new Semaphore(1);
-                sSemaphoresForCacheId.put(cacheId, semaphore);
+                mCacheMetadataStore.putPage(cacheId, lastPage + 1);
+                mCacheMetadataStore.addPrefetchedPages(cacheId, 1);
             }
 
-            return semaphore;
+            return pageDownloaded;
+        } finally {
+
+            semaphore.release();
         }
     }
 
+    /* The request context may be pooled and reused once the request ends. */
+    private static ContentProviderContext copyContext(ContentProviderContext context) {
+
+        final ContentProviderContext copy =
+                new ContentProviderContext(context.context, context.uri, context.projection, context.selection,
+                        context.selectionArgs, context.sortOrder, context.contentValues);
+        copy.placeholders.putAll(context.placeholders);
+
+        return copy;
+    }
+
     private void checkAndUpdateCache(ContentProviderContext context, final String cacheId,
                                      PaginationType paginationType) {
         switch (paginationType) {
@@ -408,12 +707,8 @@ public abstract class CacheInterceptor extends GenericContentProviderInterceptor
 
                     if (wasSynchronized) {
 
-                        SharedPreferences preferences =
-                                context.context.getSharedPreferences(CACHE_PAGINATION_PREFERENCES_FILE,
-                                        Context.MODE_PRIVATE);
-                        Editor editor = preferences.edit();
-                        editor.remove(cacheId);
-                        editor.commit();
+                        mCacheMetadataStore.removePage(cacheId);
+                        mCacheMetadataStore.removePrefetchedPages(cacheId);
                     }
 
                     mCachingStrategy.cacheUpdateFinished(context, cacheId, wasSynchronized);
@@ -437,12 +732,8 @@ public abstract class CacheInterceptor extends GenericContentProviderInterceptor
 
                     if (pageDownloaded) {
 
-                        SharedPreferences preferences =
-                                context.context.getSharedPreferences(CACHE_PAGINATION_PREFERENCES_FILE,
-                                        Context.MODE_PRIVATE);
-                        Editor editor = preferences.edit();
-                        editor.putInt(cacheId, 1);
-                        editor.commit();
+                        mCacheMetadataStore.putPage(cacheId, 1);
+                        mCacheMetadataStore.removePrefetchedPages(cacheId);
                     }
 
                     mCachingStrategy.cacheUpdateFinished(context, cacheId, pageDownloaded);
@@ -450,15 +741,19 @@ public abstract class CacheInterceptor extends GenericContentProviderInterceptor
 
                 break;
             /*
-             * If downloading the next page, do not validate the cache. Just go ahead and download next page.
+             * If downloading the next page, do not validate the cache. Just go ahead and download next page, unless a
+             * prefetch already did.
              */
             case NEXT:
 
+                /* The next page was downloaded by a prefetch finishing while the request waited for the lock. */
+                if (mCacheMetadataStore.addPrefetchedPages(cacheId, -1) > 0) {
+                    break;
+                }
+
                 boolean pageDownloaded = false;
 
-                SharedPreferences preferences =
-                        context.context.getSharedPreferences(CACHE_PAGINATION_PREFERENCES_FILE, Context.MODE_PRIVATE);
-                int currentPage = preferences.getInt(cacheId, 1);
+                int currentPage = mCacheMetadataStore.getPage(cacheId, 1);
 
                 try {
                     pageDownloaded =
@@ -469,9 +764,7 @@ public abstract class CacheInterceptor extends GenericContentProviderInterceptor
 
                 if (pageDownloaded) {
 
-                    Editor editor = preferences.edit();
-                    editor.putInt(cacheId, currentPage + 1);
-                    editor.commit();
+                    mCacheMetadataStore.putPage(cacheId, currentPage + 1);
                 }
 
                 break;
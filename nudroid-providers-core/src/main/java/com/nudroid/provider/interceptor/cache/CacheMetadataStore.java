@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.provider.interceptor.cache;
+
+/**
+ * Stores the metadata of the caches managed by {@link CacheInterceptor}s: the last page downloaded for paginated
+ * caches, the number of those pages prefetched ahead of the pages requested and the version, i.e. the time of the last
+ * update, used by {@link MaxAgeCacheStrategy}. Metadata is keyed by cache id.
+ * <p>
+ * {@link SharedPreferencesCacheMetadataStore} is used by default. {@link MappedFileCacheMetadataStore} updates metadata
+ * in place and scales to thousands of cache ids.
+ * <p>
+ * Implementations must be thread safe.
+ * 
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+public interface CacheMetadataStore {
+
+    /**
+     * Gets the last page downloaded for a cache.
+     * 
+     * @param cacheId
+     *            The id of the cache.
+     * @param defaultPage
+     *            The page to return if no page is stored for the cache.
+     * 
+     * @return The last page downloaded, or <tt>defaultPage</tt>.
+     */
+    int getPage(String cacheId, int defaultPage);
+
+    /**
+     * Stores the last page downloaded for a cache.
+     * 
+     * @param cacheId
+     *            The id of the cache.
+     * @param page
+     *            The last page downloaded.
+     */
+    void putPage(String cacheId, int page);
+
+    /**
+     * Removes the page stored for a cache. The version of the cache is kept.
+     * 
+     * @param cacheId
+     *            The id of the cache.
+     */
+    void removePage(String cacheId);
+
+    /**
+     * Gets the number of pages of a cache downloaded ahead of the pages requested.
+     * 
+     * @param cacheId
+     *            The id of the cache.
+     * 
+     * @return The number of prefetched pages, or 0 if none is stored for the cache.
+     */
+    int getPrefetchedPages(String cacheId);
+
+    /**
+     * Atomically adds to the number of pages of a cache downloaded ahead of the pages requested. The number never goes
+     * below 0.
+     * 
+     * @param cacheId
+     *            The id of the cache.
+     * @param delta
+     *            The number of pages to add, negative to take pages.
+     * 
+     * @return The number of prefetched pages before the update.
+     */
+    int addPrefetchedPages(String cacheId, int delta);
+
+    /**
+     * Removes the number of prefetched pages stored for a cache. The page and version of the cache are kept.
+     * 
+     * @param cacheId
+     *            The id of the cache.
+     */
+    void removePrefetchedPages(String cacheId);
+
+    /**
+     * Gets the version of a cache.
+     * 
+     * @param cacheId
+     *            The id of the cache.
+     * 
+     * @return The time of the last update of the cache, in milliseconds, or 0 if the cache was never updated.
+     */
+    long getVersion(String cacheId);
+
+    /**
+     * Stores the version of a cache.
+     * 
+     * @param cacheId
+     *            The id of the cache.
+     * @param version
+     *            The time of the last update of the cache, in milliseconds.
+     */
+    void putVersion(String cacheId, long version);
+
+    /**
+     * Removes the metadata of all caches, forcing them to be updated.
+     */
+    void clear();
+}
@@ -0,0 +1,669 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.provider.interceptor.cache;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * A {@link CacheMetadataStore} keeping metadata in fixed size records of a memory mapped file. Reads and updates access
+ * a single record in place: there is no parsing and, however many cache ids the file holds, it is only rewritten when
+ * the table grows or is compacted.
+ * <p>
+ * The file is an open addressing hash table. Records are keyed by a 64 bit hash of the cache id, so two cache ids
+ * share metadata only if their hashes collide, which is unlikely enough to be ignored for cache metadata. A record is
+ * deleted once it holds neither a page, a number of prefetched pages nor a version. The table doubles in size when it
+ * is three quarters full, up to a maximum capacity: a full table at the maximum capacity is compacted instead, dropping
+ * the metadata of the half of the caches updated least recently, which are then updated again when requested. The
+ * table is rewritten in a temporary file which then replaces the file of the store, so the store is never left half
+ * written.
+ * <p>
+ * Updates are written to the mapped pages and persisted by the operating system, even if the process is killed. Call
+ * {@link #sync()} to force them to the storage device. A store must be shared by all interceptors using its file:
+ * 
+ * <pre>
+ * private static MappedFileCacheMetadataStore sMetadataStore;
+ * 
+ * &#064;Override
+ * protected CacheMetadataStore onCreateCacheMetadataStore(ContentProviderContext context) {
+ * 
+ *     synchronized (MyCacheInterceptor.class) {
+ * 
+ *         if (sMetadataStore == null) {
+ * 
+ *             try {
+ *                 sMetadataStore = new MappedFileCacheMetadataStore(new File(context.context.getFilesDir(),
+ *                         &quot;cache_metadata&quot;));
+ *             } catch (IOException e) {
+ *                 return super.onCreateCacheMetadataStore(context);
+ *             }
+ *         }
+ * 
+ *         return sMetadataStore;
+ *     }
+ * }
+ * </pre>
+ * 
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+public class MappedFileCacheMetadataStore implements CacheMetadataStore, Closeable {
+
+    /**
+     * The number of records of a new file.
+     */
+    public static final int DEFAULT_INITIAL_CAPACITY = 1024;
+
+    /**
+     * The default maximum number of records of the file.
+     */
+    public static final int DEFAULT_MAX_CAPACITY = 64 * 1024;
+
+    private static final int MAGIC = 0x4e434d53;
+    private static final int FORMAT_VERSION = 1;
+
+    /* Header: magic, format version, capacity, record count. */
+    private static final int HEADER_SIZE = 16;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int COUNT_OFFSET = 12;
+
+    /*
+     * Record: key hash, version, page, flags. A key hash of 0 marks an empty record. The high half of the flags holds
+     * the number of prefetched pages.
+     */
+    private static final int RECORD_SIZE = 24;
+    private static final int VERSION_OFFSET = 8;
+    private static final int PAGE_OFFSET = 16;
+    private static final int FLAGS_OFFSET = 20;
+
+    private static final int FLAG_HAS_PAGE = 1;
+    private static final int PREFETCHED_PAGES_SHIFT = 16;
+    private static final int MAX_PREFETCHED_PAGES = 0xffff;
+
+    private final File mPath;
+    private final int mMaxCapacity;
+    private RandomAccessFile mFile;
+    private MappedByteBuffer mBuffer;
+    private int mCapacity;
+    private int mCount;
+
+    /**
+     * Opens a store, creating its file with {@link #DEFAULT_INITIAL_CAPACITY} records if needed.
+     * 
+     * @param file
+     *            The file of the store.
+     * 
+     * @throws IOException
+     *             If the file can't be opened or mapped.
+     */
+    public MappedFileCacheMetadataStore(File file) throws IOException {
+
+        this(file, DEFAULT_INITIAL_CAPACITY, DEFAULT_MAX_CAPACITY);
+    }
+
+    /**
+     * Opens a store, creating its file if needed. Files not created by this class are overwritten.
+     * 
+     * @param file
+     *            The file of the store.
+     * @param initialCapacity
+     *            The number of records of the file, if it is created. Rounded up to a power of two.
+     * 
+     * @throws IOException
+     *             If the file can't be opened or mapped.
+     */
+    public MappedFileCacheMetadataStore(File file, int initialCapacity) throws IOException {
+
+        this(file, initialCapacity, Math.max(initialCapacity, DEFAULT_MAX_CAPACITY));
+    }
+
+    /**
+     * Opens a store, creating its file if needed. Files not created by this class are overwritten.
+     * 
+     * @param file
+     *            The file of the store.
+     * @param initialCapacity
+     *            The number of records of the file, if it is created. Rounded up to a power of two.
+     * @param maxCapacity
+     *            The maximum number of records of the file. Rounded up to a power of two.
+     * 
+     * @throws IOException
+     *             If the file can't be opened or mapped.
+     */
+    public MappedFileCacheMetadataStore(File file, int initialCapacity, int maxCapacity) throws IOException {
+
+        if (initialCapacity <= 0 || initialCapacity > 1 << 30) {
+            throw new IllegalArgumentException(String.format("initialCapacity must be between 1 and 2^30: %d",
+                    initialCapacity));
+        }
+
+        if (maxCapacity < initialCapacity || maxCapacity > 1 << 30) {
+            throw new IllegalArgumentException(String.format("maxCapacity must be between %d and 2^30: %d",
+                    initialCapacity, maxCapacity));
+        }
+
+        this.mPath = file;
+        this.mMaxCapacity = powerOfTwo(maxCapacity);
+        this.mFile = new RandomAccessFile(file, "rw");
+
+        try {
+
+            if (!openExisting()) {
+                create(powerOfTwo(initialCapacity));
+            }
+        } catch (IOException e) {
+
+            mFile.close();
+            throw e;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see CacheMetadataStore#getPage(String, int)
+     */
+    @Override
+    public synchronized int getPage(String cacheId, int defaultPage) {
+
+        final int record = findRecord(hash(cacheId));
+
+        if (record < 0 || (mBuffer.getInt(record + FLAGS_OFFSET) & FLAG_HAS_PAGE) == 0) {
+            return defaultPage;
+        }
+
+        return mBuffer.getInt(record + PAGE_OFFSET);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see CacheMetadataStore#putPage(String, int)
+     */
+    @Override
+    public synchronized void putPage(String cacheId, int page) {
+
+        final int record = findOrAddRecord(hash(cacheId));
+
+        mBuffer.putInt(record + PAGE_OFFSET, page);
+        mBuffer.putInt(record + FLAGS_OFFSET, mBuffer.getInt(record + FLAGS_OFFSET) | FLAG_HAS_PAGE);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see CacheMetadataStore#removePage(String)
+     */
+    @Override
+    public synchronized void removePage(String cacheId) {
+
+        final int record = findRecord(hash(cacheId));
+
+        if (record < 0) {
+            return;
+        }
+
+        putFlags(record, mBuffer.getInt(record + FLAGS_OFFSET) & ~FLAG_HAS_PAGE);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see CacheMetadataStore#getPrefetchedPages(String)
+     */
+    @Override
+    public synchronized int getPrefetchedPages(String cacheId) {
+
+        final int record = findRecord(hash(cacheId));
+
+        return record < 0 ? 0 : mBuffer.getInt(record + FLAGS_OFFSET) >>> PREFETCHED_PAGES_SHIFT;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see CacheMetadataStore#addPrefetchedPages(String, int)
+     */
+    @Override
+    public synchronized int addPrefetchedPages(String cacheId, int delta) {
+
+        final long keyHash = hash(cacheId);
+        int record = findRecord(keyHash);
+        final int pages = record < 0 ? 0 : mBuffer.getInt(record + FLAGS_OFFSET) >>> PREFETCHED_PAGES_SHIFT;
+        final int updatedPages = Math.min(MAX_PREFETCHED_PAGES, Math.max(0, pages + delta));
+
+        if (updatedPages == pages) {
+            return pages;
+        }
+
+        if (record < 0) {
+            record = findOrAddRecord(keyHash);
+        }
+
+        putFlags(record,
+                (mBuffer.getInt(record + FLAGS_OFFSET) & FLAG_HAS_PAGE) | updatedPages << PREFETCHED_PAGES_SHIFT);
+
+        return pages;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see CacheMetadataStore#removePrefetchedPages(String)
+     */
+    @Override
+    public synchronized void removePrefetchedPages(String cacheId) {
+
+        final int record = findRecord(hash(cacheId));
+
+        if (record >= 0) {
+            putFlags(record, mBuffer.getInt(record + FLAGS_OFFSET) & FLAG_HAS_PAGE);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see CacheMetadataStore#getVersion(String)
+     */
+    @Override
+    public synchronized long getVersion(String cacheId) {
+
+        final int record = findRecord(hash(cacheId));
+
+        return record < 0 ? 0 : mBuffer.getLong(record + VERSION_OFFSET);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see CacheMetadataStore#putVersion(String, long)
+     */
+    @Override
+    public synchronized void putVersion(String cacheId, long version) {
+
+        /* Finds the record first: adding it may grow the table and remap the buffer. */
+        final int record = findOrAddRecord(hash(cacheId));
+
+        mBuffer.putLong(record + VERSION_OFFSET, version);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see CacheMetadataStore#clear()
+     */
+    @Override
+    public synchronized void clear() {
+
+        zeroRecords();
+        mCount = 0;
+        mBuffer.putInt(COUNT_OFFSET, 0);
+    }
+
+    /**
+     * Forces the updates made so far to the storage device.
+     */
+    public synchronized void sync() {
+
+        mBuffer.force();
+    }
+
+    /**
+     * Syncs and closes the file of this store. The store can't be used afterwards.
+     * 
+     * @throws IOException
+     *             If the file can't be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+
+        mBuffer.force();
+        mFile.close();
+    }
+
+    /*
+     * Updates the flags of a record, deleting it if it no longer holds anything.
+     */
+    private void putFlags(int record, int flags) {
+
+        if (flags == 0 && mBuffer.getLong(record + VERSION_OFFSET) == 0) {
+            deleteRecord(record);
+        } else {
+            mBuffer.putInt(record + FLAGS_OFFSET, flags);
+        }
+    }
+
+    private boolean openExisting() throws IOException {
+
+        final long length = mFile.length();
+
+        if (length < HEADER_SIZE) {
+            return false;
+        }
+
+        mFile.seek(0);
+
+        final int magic = mFile.readInt();
+        final int formatVersion = mFile.readInt();
+        final int capacity = mFile.readInt();
+        final int count = mFile.readInt();
+
+        if (magic != MAGIC || formatVersion != FORMAT_VERSION || capacity <= 0 || Integer.bitCount(capacity) != 1
+                || count < 0 || count > capacity || length < fileSize(capacity)) {
+            return false;
+        }
+
+        map(capacity);
+        mCount = count;
+
+        return true;
+    }
+
+    private void create(int capacity) throws IOException {
+
+        map(capacity);
+        zeroRecords();
+
+        mCount = 0;
+        writeHeader(mBuffer, capacity, 0);
+    }
+
+    private void map(int capacity) throws IOException {
+
+        final long size = fileSize(capacity);
+
+        if (mFile.length() < size) {
+            mFile.setLength(size);
+        }
+
+        mBuffer = mFile.getChannel()
+                .map(FileChannel.MapMode.READ_WRITE, 0, size);
+        mCapacity = capacity;
+    }
+
+    private void zeroRecords() {
+
+        final int end = (int) fileSize(mCapacity);
+
+        for (int offset = HEADER_SIZE; offset < end; offset += 8) {
+            mBuffer.putLong(offset, 0);
+        }
+    }
+
+    /*
+     * Gets the offset of the record of a key, or of the empty record ending its probe sequence. The table is never
+     * full, so the sequence always ends.
+     */
+    private int probe(long keyHash) {
+
+        return probe(mBuffer, mCapacity, keyHash);
+    }
+
+    private static int probe(ByteBuffer buffer, int capacity, long keyHash) {
+
+        final int mask = capacity - 1;
+        int slot = home(keyHash, mask);
+
+        while (true) {
+
+            final int offset = HEADER_SIZE + slot * RECORD_SIZE;
+            final long key = buffer.getLong(offset);
+
+            if (key == keyHash || key == 0) {
+                return offset;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private int findRecord(long keyHash) {
+
+        final int offset = probe(keyHash);
+
+        return mBuffer.getLong(offset) == 0 ? -1 : offset;
+    }
+
+    private int findOrAddRecord(long keyHash) {
+
+        int offset = probe(keyHash);
+
+        if (mBuffer.getLong(offset) != 0) {
+            return offset;
+        }
+
+        if ((mCount + 1) * 4L > mCapacity * 3L) {
+
+            if (mCapacity < mMaxCapacity) {
+                rebuild(mCapacity << 1, mCount);
+            } else {
+                rebuild(mCapacity, mCount / 2);
+            }
+
+            offset = probe(keyHash);
+        }
+
+        mBuffer.putLong(offset, keyHash);
+        mBuffer.putInt(COUNT_OFFSET, ++mCount);
+
+        return offset;
+    }
+
+    /*
+     * Deletes a record, moving back the records of its probe sequence which would no longer be found, so no tombstone
+     * is needed. A slot is emptied before a record is copied to it, and the record is copied before its old slot is
+     * emptied: if the process dies in between, records are either found twice or not found, which only makes their
+     * caches update again.
+     */
+    private void deleteRecord(int record) {
+
+        final int mask = mCapacity - 1;
+        int hole = (record - HEADER_SIZE) / RECORD_SIZE;
+        int slot = hole;
+
+        while (true) {
+
+            slot = (slot + 1) & mask;
+
+            final int offset = HEADER_SIZE + slot * RECORD_SIZE;
+            final long key = mBuffer.getLong(offset);
+
+            if (key == 0) {
+                break;
+            }
+
+            final int home = home(key, mask);
+
+            /* The record stays if its home slot lies cyclically in (hole, slot]. */
+            if (hole <= slot ? hole < home && home <= slot : hole < home || home <= slot) {
+                continue;
+            }
+
+            final int holeOffset = HEADER_SIZE + hole * RECORD_SIZE;
+
+            mBuffer.putLong(holeOffset, 0);
+            mBuffer.putLong(holeOffset + VERSION_OFFSET, mBuffer.getLong(offset + VERSION_OFFSET));
+            mBuffer.putInt(holeOffset + PAGE_OFFSET, mBuffer.getInt(offset + PAGE_OFFSET));
+            mBuffer.putInt(holeOffset + FLAGS_OFFSET, mBuffer.getInt(offset + FLAGS_OFFSET));
+            mBuffer.putLong(holeOffset, key);
+            hole = slot;
+        }
+
+        final int holeOffset = HEADER_SIZE + hole * RECORD_SIZE;
+
+        mBuffer.putLong(holeOffset, 0);
+        mBuffer.putLong(holeOffset + VERSION_OFFSET, 0);
+        mBuffer.putLong(holeOffset + PAGE_OFFSET, 0);
+        mBuffer.putInt(COUNT_OFFSET, --mCount);
+    }
+
+    /*
+     * Rewrites the table with a new capacity, keeping the records of the caches updated most recently, in a temporary
+     * file which then replaces the file of the store.
+     */
+    private void rebuild(int capacity, int keep) {
+
+        final int[] records = new int[mCount];
+        int count = 0;
+
+        for (int slot = 0; slot < mCapacity; slot++) {
+
+            final int offset = HEADER_SIZE + slot * RECORD_SIZE;
+
+            if (mBuffer.getLong(offset) != 0) {
+                records[count++] = offset;
+            }
+        }
+
+        final long[] newest = new long[count];
+
+        for (int i = 0; i < count; i++) {
+            newest[i] = mBuffer.getLong(records[i] + VERSION_OFFSET);
+        }
+
+        Arrays.sort(newest);
+
+        /* Records as recent as the oldest version kept are kept, unless already as many as asked. */
+        final long oldestKept = keep < count ? newest[count - keep] : Long.MIN_VALUE;
+        final File temporaryPath = new File(mPath.getPath() + ".tmp");
+        int kept = 0;
+
+        try {
+
+            final RandomAccessFile temporaryFile = new RandomAccessFile(temporaryPath, "rw");
+
+            try {
+
+                temporaryFile.setLength(0);
+                temporaryFile.setLength(fileSize(capacity));
+
+                final MappedByteBuffer buffer = temporaryFile.getChannel()
+                        .map(FileChannel.MapMode.READ_WRITE, 0, fileSize(capacity));
+
+                for (int i = 0; i < count && kept < keep; i++) {
+
+                    final int record = records[i];
+
+                    if (mBuffer.getLong(record + VERSION_OFFSET) < oldestKept) {
+                        continue;
+                    }
+
+                    final long key = mBuffer.getLong(record);
+                    final int offset = probe(buffer, capacity, key);
+
+                    buffer.putLong(offset, key);
+                    buffer.putLong(offset + VERSION_OFFSET, mBuffer.getLong(record + VERSION_OFFSET));
+                    buffer.putInt(offset + PAGE_OFFSET, mBuffer.getInt(record + PAGE_OFFSET));
+                    buffer.putInt(offset + FLAGS_OFFSET, mBuffer.getInt(record + FLAGS_OFFSET));
+                    kept++;
+                }
+
+                writeHeader(buffer, capacity, kept);
+                buffer.force();
+            } finally {
+
+                temporaryFile.close();
+            }
+
+            mBuffer.force();
+            mFile.close();
+
+            if (!temporaryPath.renameTo(mPath)) {
+                throw new IOException(String.format("Unable to rename %s to %s", temporaryPath, mPath));
+            }
+        } catch (IOException e) {
+
+            temporaryPath.delete();
+            throw new IllegalStateException("Unable to rewrite the cache metadata file", e);
+        } finally {
+
+            reopen();
+        }
+    }
+
+    /*
+     * Maps the file of the store again, after it is replaced or failed to be.
+     */
+    private void reopen() {
+
+        try {
+
+            if (mFile.getChannel()
+                    .isOpen()) {
+                return;
+            }
+
+            mFile = new RandomAccessFile(mPath, "rw");
+
+            if (!openExisting()) {
+                throw new IOException(String.format("%s is not a cache metadata file", mPath));
+            }
+        } catch (IOException e) {
+
+            throw new IllegalStateException("Unable to reopen the cache metadata file", e);
+        }
+    }
+
+    private static void writeHeader(ByteBuffer buffer, int capacity, int count) {
+
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, FORMAT_VERSION);
+        buffer.putInt(CAPACITY_OFFSET, capacity);
+        buffer.putInt(COUNT_OFFSET, count);
+    }
+
+    private static int home(long keyHash, int mask) {
+
+        return (int) (keyHash ^ (keyHash >>> 32)) & mask;
+    }
+
+    private static int powerOfTwo(int value) {
+
+        return Integer.highestOneBit(value) == value ? value : Integer.highestOneBit(value) << 1;
+    }
+
+    private static long fileSize(int capacity) {
+
+        return HEADER_SIZE + (long) capacity * RECORD_SIZE;
+    }
+
+    /* 64 bit FNV-1a. 0 is reserved for empty records. */
+    private static long hash(String cacheId) {
+
+        long hash = 0xcbf29ce484222325L;
+
+        for (int i = 0; i < cacheId.length(); i++) {
+
+            hash ^= cacheId.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+
+        return hash == 0 ? 1 : hash;
+    }
+}
@@ -23,8 +23,6 @@
 package com.nudroid.provider.interceptor.cache;
 
 import android.content.Context;
-import android.content.SharedPreferences;
-import android.content.SharedPreferences.Editor;
 
 import com.nudroid.provider.interceptor.ContentProviderContext;
 
@@ -43,9 +41,12 @@ public class MaxAgeCacheStrategy implements CachingStrategy {
     private Clock mClock;
     private long mTimeToLive;
     private TimeUnit mTimeUnit;
+    private CacheMetadataStore mMetadataStore;
 
     /**
-     * Creates an instance of this class.
+     * Creates an instance of this class storing cache versions in the store of the {@link CacheInterceptor} it is
+     * created by, or in the {@link CacheInterceptor#CACHE_PAGINATION_PREFERENCES_FILE} preferences file if used on its
+     * own.
      *
      * @param clock
      *         The clock instance used to get the current time.
@@ -56,9 +57,28 @@ public class MaxAgeCacheStrategy implements CachingStrategy {
      */
     public MaxAgeCacheStrategy(Clock clock, long maxAge, TimeUnit timeUnit) {
 
+        this(clock, maxAge, timeUnit, null);
+    }
+
+    /**
+     * Creates an instance of this class.
+     *
+     * @param clock
+     *         The clock instance used to get the current time.
+     * @param maxAge
+     *         The maximum age of the cache.
+     * @param timeUnit
+     *         The time unit for the age.
+     * @param metadataStore
+     *         The store of the cache versions. Must be {@link CacheInterceptor#getCacheMetadataStore()} when used by a
+     *         {@link CacheInterceptor}.
+     */
+    public MaxAgeCacheStrategy(Clock clock, long maxAge, TimeUnit timeUnit, CacheMetadataStore metadataStore) {
+
         this.mClock = clock;
         this.mTimeToLive = maxAge;
         this.mTimeUnit = timeUnit;
+        this.mMetadataStore = metadataStore;
     }
 
     /**
@@ -70,11 +90,7 @@ public class MaxAgeCacheStrategy implements CachingStrategy {
     @Override
     public boolean isUpToDate(ContentProviderContext context, String cacheId) {
 
-        SharedPreferences preferences =
-                context.context.getSharedPreferences(CacheInterceptor.CACHE_PAGINATION_PREFERENCES_FILE,
-                        Context.MODE_PRIVATE);
-
-        long lastUpdateDate = preferences.getLong(cacheId + CACHE_VERSION_SUFFIX, 0);
+        long lastUpdateDate = getMetadataStore(context).getVersion(cacheId);
 
         long currentDateAndTime = mClock.currentTime();
         long age = mTimeUnit.convert(currentDateAndTime - lastUpdateDate, TimeUnit.MILLISECONDS);
@@ -92,33 +108,51 @@ public class MaxAgeCacheStrategy implements CachingStrategy {
 
         if (wasUpdated) {
 
-            SharedPreferences preferences =
-                    context.context.getSharedPreferences(CacheInterceptor.CACHE_PAGINATION_PREFERENCES_FILE,
-                            Context.MODE_PRIVATE);
-
             final long version = mClock.currentTime();
 
-            Editor editor = preferences.edit();
-            editor.putLong(cacheId + CACHE_VERSION_SUFFIX, version);
-            editor.commit();
+            getMetadataStore(context).putVersion(cacheId, version);
         }
     }
 
+    /*
+     * Binds this strategy to the metadata store of the CacheInterceptor using it. Strategies created without a store
+     * use the store of the interceptor, others must have been created with it.
+     */
+    void bindMetadataStore(CacheMetadataStore metadataStore) {
+
+        if (mMetadataStore == null) {
+
+            mMetadataStore = metadataStore;
+        } else if (mMetadataStore != metadataStore) {
+
+            throw new IllegalStateException(
+                    "The metadata store of the MaxAgeCacheStrategy is not the store of its CacheInterceptor. Create " +
+                            "the strategy with CacheInterceptor.getCacheMetadataStore().");
+        }
+    }
+
+    private CacheMetadataStore getMetadataStore(ContentProviderContext context) {
+
+        return mMetadataStore != null ? mMetadataStore
+                : SharedPreferencesCacheMetadataStore.getInstance(context.context);
+    }
+
     /**
-     * Clears the metadata for the cached content. This will not clear the actual cached data, just the accompanying
-     * metadata, forcing a cache update.
+     * Clears the metadata for the cached content stored in the
+     * {@link CacheInterceptor#CACHE_PAGINATION_PREFERENCES_FILE} preferences file. This will not clear the actual
+     * cached data, just the accompanying metadata, forcing a cache update. Metadata kept in other stores is cleared
+     * with {@link CacheMetadataStore#clear()}.
      *
      * @param context
      *         an android context to access.
      */
     public static void clearCacheMetadata(Context context) {
 
-        SharedPreferences preferences =
-                context.getSharedPreferences(CacheInterceptor.CACHE_PAGINATION_PREFERENCES_FILE, Context.MODE_PRIVATE);
+        final SharedPreferencesCacheMetadataStore metadataStore =
+                SharedPreferencesCacheMetadataStore.getInstance(context);
 
-        Editor editor = preferences.edit();
-        editor.clear();
-        editor.commit();
+        metadataStore.clear();
+        metadataStore.flush();
     }
 
     /**
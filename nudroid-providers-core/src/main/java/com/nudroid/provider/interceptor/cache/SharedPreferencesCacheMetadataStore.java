@@ -0,0 +1,430 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.provider.interceptor.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+/**
+ * A {@link CacheMetadataStore} backed by the {@link CacheInterceptor#CACHE_PAGINATION_PREFERENCES_FILE} shared
+ * preferences file. Pages are stored under the cache id and versions under the key returned by
+ * {@link MaxAgeCacheStrategy#getCacheExpirationKey(String)}, as in previous releases. Prefetched pages are stored under
+ * the cache id followed by <tt>_PREFETCHED_PAGES</tt>.
+ * <p>
+ * Every commit rewrites the whole preferences file. Stores may therefore write behind: updates are kept in memory,
+ * where reads see them right away, and committed together on a background thread once <tt>maxDirtyEntries</tt> keys
+ * are dirty or <tt>flushDelayMillis</tt> after the first update, whichever comes first. Updates not yet flushed are
+ * lost if the process dies, which at worst causes a cache update. Call {@link #flush()} to commit them right away, for
+ * instance before the process is shut down or in tests.
+ * <p>
+ * {@link #getInstance(Context)} returns the write behind store used by default. Prefer
+ * {@link MappedFileCacheMetadataStore} when there are many cache ids.
+ * 
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+public class SharedPreferencesCacheMetadataStore implements CacheMetadataStore {
+
+    /**
+     * The default number of dirty keys which triggers a flush.
+     */
+    public static final int DEFAULT_MAX_DIRTY_ENTRIES = 64;
+
+    /**
+     * The default time, in milliseconds, updates are kept in memory.
+     */
+    public static final long DEFAULT_FLUSH_DELAY_MILLIS = 1000;
+
+    /* Dirty value of removed keys. */
+    private static final Object REMOVED = new Object();
+
+    private static final String PREFETCHED_PAGES_SUFFIX = "_PREFETCHED_PAGES";
+
+    private static SharedPreferencesCacheMetadataStore sInstance;
+    private static ScheduledExecutorService sFlushExecutor;
+
+    private final SharedPreferences mPreferences;
+    private final boolean mWriteBehind;
+    private final int mMaxDirtyEntries;
+    private final long mFlushDelayMillis;
+    private final Object mFlushLock = new Object();
+    private final Runnable mFlushTask = new Runnable() {
+
+        @Override
+        public void run() {
+
+            flush();
+        }
+    };
+
+    private Map<String, Object> mDirty = new LinkedHashMap<String, Object>();
+    private boolean mClearPending;
+    private Map<String, Object> mFlushing;
+    private boolean mClearFlushing;
+    private boolean mFlushScheduled;
+    private boolean mFullFlushScheduled;
+
+    /**
+     * Creates an instance of this class committing every update right away.
+     * 
+     * @param context
+     *            An android context used to open the preferences file.
+     */
+    public SharedPreferencesCacheMetadataStore(Context context) {
+
+        this.mPreferences = context.getSharedPreferences(CacheInterceptor.CACHE_PAGINATION_PREFERENCES_FILE,
+                Context.MODE_PRIVATE);
+        this.mWriteBehind = false;
+        this.mMaxDirtyEntries = 0;
+        this.mFlushDelayMillis = 0;
+    }
+
+    /**
+     * Creates an instance of this class writing behind. All stores of an application should share the same instance,
+     * so they see each other's updates: see {@link #getInstance(Context)}.
+     * 
+     * @param context
+     *            An android context used to open the preferences file.
+     * @param maxDirtyEntries
+     *            The number of dirty keys which triggers a flush.
+     * @param flushDelayMillis
+     *            The maximum time, in milliseconds, updates are kept in memory.
+     */
+    public SharedPreferencesCacheMetadataStore(Context context, int maxDirtyEntries, long flushDelayMillis) {
+
+        if (maxDirtyEntries <= 0 || flushDelayMillis <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Write behind limits must be positive: maxDirtyEntries=%d, flushDelayMillis=%d",
+                    maxDirtyEntries, flushDelayMillis));
+        }
+
+        this.mPreferences = context.getSharedPreferences(CacheInterceptor.CACHE_PAGINATION_PREFERENCES_FILE,
+                Context.MODE_PRIVATE);
+        this.mWriteBehind = true;
+        this.mMaxDirtyEntries = maxDirtyEntries;
+        this.mFlushDelayMillis = flushDelayMillis;
+    }
+
+    /**
+     * Gets the store shared by the cache interceptors of the application, writing behind with the default limits.
+     * 
+     * @param context
+     *            An android context used to open the preferences file.
+     * 
+     * @return The shared store.
+     */
+    public static synchronized SharedPreferencesCacheMetadataStore getInstance(Context context) {
+
+        if (sInstance == null) {
+            sInstance = new SharedPreferencesCacheMetadataStore(context.getApplicationContext() != null ? context
+                    .getApplicationContext() : context, DEFAULT_MAX_DIRTY_ENTRIES, DEFAULT_FLUSH_DELAY_MILLIS);
+        }
+
+        return sInstance;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see CacheMetadataStore#getPage(String, int)
+     */
+    @Override
+    public int getPage(String cacheId, int defaultPage) {
+
+        synchronized (this) {
+
+            final Object value = read(cacheId);
+
+            if (value == null) {
+                return mPreferences.getInt(cacheId, defaultPage);
+            }
+
+            return value == REMOVED ? defaultPage : (Integer) value;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see CacheMetadataStore#putPage(String, int)
+     */
+    @Override
+    public void putPage(String cacheId, int page) {
+
+        write(cacheId, page);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see CacheMetadataStore#removePage(String)
+     */
+    @Override
+    public void removePage(String cacheId) {
+
+        write(cacheId, REMOVED);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see CacheMetadataStore#getPrefetchedPages(String)
+     */
+    @Override
+    public int getPrefetchedPages(String cacheId) {
+
+        return getPage(cacheId + PREFETCHED_PAGES_SUFFIX, 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see CacheMetadataStore#addPrefetchedPages(String, int)
+     */
+    @Override
+    public int addPrefetchedPages(String cacheId, int delta) {
+
+        final String key = cacheId + PREFETCHED_PAGES_SUFFIX;
+        final int pages;
+        final boolean full;
+
+        synchronized (this) {
+
+            pages = getPage(key, 0);
+
+            final int updatedPages = Math.max(0, pages + delta);
+
+            mDirty.put(key, updatedPages > 0 ? (Object) updatedPages : REMOVED);
+            full = mDirty.size() >= mMaxDirtyEntries;
+        }
+
+        scheduleFlush(full);
+
+        return pages;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see CacheMetadataStore#removePrefetchedPages(String)
+     */
+    @Override
+    public void removePrefetchedPages(String cacheId) {
+
+        write(cacheId + PREFETCHED_PAGES_SUFFIX, REMOVED);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see CacheMetadataStore#getVersion(String)
+     */
+    @Override
+    public long getVersion(String cacheId) {
+
+        final String key = MaxAgeCacheStrategy.getCacheExpirationKey(cacheId);
+
+        synchronized (this) {
+
+            final Object value = read(key);
+
+            if (value == null) {
+                return mPreferences.getLong(key, 0);
+            }
+
+            return value == REMOVED ? 0 : (Long) value;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see CacheMetadataStore#putVersion(String, long)
+     */
+    @Override
+    public void putVersion(String cacheId, long version) {
+
+        write(MaxAgeCacheStrategy.getCacheExpirationKey(cacheId), version);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @see CacheMetadataStore#clear()
+     */
+    @Override
+    public void clear() {
+
+        synchronized (this) {
+
+            mDirty.clear();
+            mClearPending = true;
+        }
+
+        scheduleFlush(false);
+    }
+
+    /**
+     * Commits the updates kept in memory, if any, and waits for the commit to finish.
+     */
+    public void flush() {
+
+        synchronized (mFlushLock) {
+
+            final Map<String, Object> updates;
+            final boolean clear;
+
+            synchronized (this) {
+
+                mFlushScheduled = false;
+                mFullFlushScheduled = false;
+
+                if (mDirty.isEmpty() && !mClearPending) {
+                    return;
+                }
+
+                updates = mDirty;
+                clear = mClearPending;
+                mFlushing = updates;
+                mClearFlushing = clear;
+                mDirty = new LinkedHashMap<String, Object>();
+                mClearPending = false;
+            }
+
+            final SharedPreferences.Editor editor = mPreferences.edit();
+
+            if (clear) {
+                editor.clear();
+            }
+
+            for (Map.Entry<String, Object> update : updates.entrySet()) {
+
+                final Object value = update.getValue();
+
+                if (value == REMOVED) {
+                    editor.remove(update.getKey());
+                } else if (value instanceof Integer) {
+                    editor.putInt(update.getKey(), (Integer) value);
+                } else {
+                    editor.putLong(update.getKey(), (Long) value);
+                }
+            }
+
+            editor.commit();
+
+            synchronized (this) {
+
+                mFlushing = null;
+                mClearFlushing = false;
+            }
+        }
+    }
+
+    /*
+     * Gets the value of a key not yet committed: the value, REMOVED, or null if the key must be read from the
+     * preferences. Must be called holding the lock of this store.
+     */
+    private Object read(String key) {
+
+        Object value = mDirty.get(key);
+
+        if (value != null) {
+            return value;
+        }
+
+        if (mClearPending) {
+            return REMOVED;
+        }
+
+        if (mFlushing != null) {
+            value = mFlushing.get(key);
+        }
+
+        if (value == null && mClearFlushing) {
+            return REMOVED;
+        }
+
+        return value;
+    }
+
+    private void write(String key, Object value) {
+
+        final boolean full;
+
+        synchronized (this) {
+
+            mDirty.put(key, value);
+            full = mDirty.size() >= mMaxDirtyEntries;
+        }
+
+        scheduleFlush(full);
+    }
+
+    private void scheduleFlush(boolean full) {
+
+        if (!mWriteBehind) {
+
+            flush();
+            return;
+        }
+
+        synchronized (this) {
+
+            if (full && !mFullFlushScheduled) {
+
+                mFullFlushScheduled = true;
+                flushExecutor().execute(mFlushTask);
+            } else if (!mFlushScheduled) {
+
+                mFlushScheduled = true;
+                flushExecutor().schedule(mFlushTask, mFlushDelayMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private static synchronized ScheduledExecutorService flushExecutor() {
+
+        if (sFlushExecutor == null) {
+
+            sFlushExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+
+                    final Thread thread = new Thread(runnable, "SharedPreferencesCacheMetadataStore");
+                    thread.setDaemon(true);
+
+                    return thread;
+                }
+            });
+        }
+
+        return sFlushExecutor;
+    }
+}
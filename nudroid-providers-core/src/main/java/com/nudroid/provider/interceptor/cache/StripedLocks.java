@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.provider.interceptor.cache;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * A fixed table of binary semaphores shared by keys. Each key is mapped to one of the semaphores by its hash, so all
+ * requests for a key contend on the same semaphore, and requests for most other keys don't. Unlike one semaphore per
+ * key, memory stays bounded however many keys are seen, and no global lock is taken to find a key's semaphore.
+ * <p>
+ * Two keys may share a semaphore, and are then serialized. Holders must not acquire another semaphore of the same
+ * table while holding one, since two keys sharing a semaphore would then deadlock.
+ * 
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+public final class StripedLocks {
+
+    private final Semaphore[] mStripes;
+    private final int mMask;
+
+    /**
+     * Creates an instance of this class.
+     * 
+     * @param stripes
+     *            The number of semaphores of the table. Rounded up to a power of two.
+     */
+    public StripedLocks(int stripes) {
+
+        if (stripes <= 0 || stripes > 1 << 30) {
+            throw new IllegalArgumentException(String.format("stripes must be between 1 and 2^30: %d", stripes));
+        }
+
+        final int size = Integer.highestOneBit(stripes) == stripes ? stripes : Integer.highestOneBit(stripes) << 1;
+
+        this.mStripes = new Semaphore[size];
+        this.mMask = size - 1;
+
+        for (int i = 0; i < size; i++) {
+            mStripes[i] = new Semaphore(1);
+        }
+    }
+
+    /**
+     * Gets the semaphore of a key.
+     * 
+     * @param key
+     *            The key.
+     * 
+     * @return The semaphore, with a single permit, shared by all requests for the key.
+     */
+    public Semaphore get(Object key) {
+
+        final int hash = key.hashCode();
+
+        /* Spreads the high bits, as string hashes of similar keys often differ only there. */
+        return mStripes[(hash ^ (hash >>> 16)) & mMask];
+    }
+
+    /**
+     * Gets the number of semaphores of the table.
+     * 
+     * @return The number of semaphores.
+     */
+    public int size() {
+
+        return mStripes.length;
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.provider.router;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import android.content.ContentProvider;
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
+import android.content.ContentValues;
+import android.content.OperationApplicationException;
+import android.database.Cursor;
+import android.net.Uri;
+
+/**
+ * Collects the content values of consecutive insert operations of a batch, so they can be dispatched to the delegate
+ * as a single bulk insert.
+ * <p>
+ * {@link ContentProviderOperation} does not expose its type nor its values. Operations are applied to a content
+ * provider, shared by all collectors, which does not store anything: if they turn out to be inserts, the content values
+ * they would insert (with back references already resolved) are kept by the collector applying them. Operations which
+ * are not inserts are rejected and must be applied to the real provider. Grouped operations only have the result of
+ * the whole group, so operations back referenced by later operations of the batch must not be grouped (see
+ * {@link #findBackReferencedOperations(List)}).
+ * <p>
+ * Instances are not thread safe and are meant to be used by a single batch.
+ * 
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+public final class InsertOperationCollector {
+
+    private final ArrayList<ContentValues> mContentValues = new ArrayList<ContentValues>();
+    private boolean mInsertCollected;
+
+    /**
+     * Collects the content values of an insert operation.
+     * 
+     * @param operation
+     *            The operation to collect.
+     * @param results
+     *            The results of the operations of the batch executed so far.
+     * @param index
+     *            The index of the operation in the batch.
+     * 
+     * @return <tt>true</tt> if the operation is an insert and its content values have been collected, <tt>false</tt>
+     *         otherwise.
+     */
+    public boolean collect(ContentProviderOperation operation, ContentProviderResult[] results, int index) {
+
+        if (!operation.isWriteOperation()) {
+            return false;
+        }
+
+        mInsertCollected = false;
+        CollectingProvider.sCollector.set(this);
+
+        try {
+            operation.apply(CollectingProvider.INSTANCE, results, index);
+        } catch (OperationApplicationException e) {
+            return false;
+        } catch (ArrayIndexOutOfBoundsException e) {
+            /* Invalid back reference: the real provider fails the batch when the operation is applied to it. */
+            return false;
+        } finally {
+            CollectingProvider.sCollector.remove();
+        }
+
+        return mInsertCollected;
+    }
+
+    /**
+     * Finds the operations of a batch whose results are back referenced by later operations. Back references are found
+     * by resolving each operation against two sets of made up results, once for the whole batch.
+     * 
+     * @param operations
+     *            The operations of the batch.
+     * 
+     * @return An array holding, for each operation of the batch, <tt>true</tt> if a later operation back references it
+     *         and <tt>false</tt> otherwise.
+     */
+    public static boolean[] findBackReferencedOperations(List<ContentProviderOperation> operations) {
+
+        final int numOperations = operations.size();
+        final boolean[] backReferenced = new boolean[numOperations];
+        final ContentProviderResult[] indices = new ContentProviderResult[numOperations];
+        final ContentProviderResult[] shiftedIndices = new ContentProviderResult[numOperations];
+
+        /* A back reference resolves to its index in the first set, and to a different value in the second one. */
+        for (int i = 0; i < numOperations; i++) {
+            indices[i] = new ContentProviderResult(i);
+            shiftedIndices[i] = new ContentProviderResult(i + numOperations);
+        }
+
+        for (int i = 0; i < numOperations; i++) {
+
+            final ContentProviderOperation operation = operations.get(i);
+
+            try {
+
+                markBackReferences(operation.resolveValueBackReferences(indices, i),
+                        operation.resolveValueBackReferences(shiftedIndices, i), backReferenced);
+                markBackReferences(operation.resolveSelectionArgsBackReferences(indices, i),
+                        operation.resolveSelectionArgsBackReferences(shiftedIndices, i), backReferenced);
+            } catch (ArrayIndexOutOfBoundsException e) {
+                /* Invalid back reference: the operation fails the batch when applied, its back references don't
+                 * matter. */
+            }
+        }
+
+        return backReferenced;
+    }
+
+    /**
+     * Gets the number of insert operations collected so far.
+     * 
+     * @return The number of insert operations collected.
+     */
+    public int size() {
+
+        return mContentValues.size();
+    }
+
+    /**
+     * Gets the content values collected so far, in the order the operations were collected, and clears this collector.
+     * 
+     * @return The content values of the collected insert operations.
+     */
+    public ContentValues[] drain() {
+
+        final ContentValues[] contentValues = mContentValues.toArray(new ContentValues[mContentValues.size()]);
+        mContentValues.clear();
+
+        return contentValues;
+    }
+
+    /**
+     * Discards the content values collected so far.
+     */
+    public void clear() {
+
+        mContentValues.clear();
+    }
+
+    /* Operations without value back references resolve to the same instance. */
+    private static void markBackReferences(ContentValues values, ContentValues shiftedValues,
+            boolean[] backReferenced) {
+
+        if (values == null || values == shiftedValues) {
+            return;
+        }
+
+        for (Map.Entry<String, Object> entry : values.valueSet()) {
+
+            final Object value = entry.getValue();
+
+            if (value != null && !value.equals(shiftedValues.get(entry.getKey()))) {
+                backReferenced[((Long) value).intValue()] = true;
+            }
+        }
+    }
+
+    /* Operations without selection argument back references resolve to the same instance. */
+    private static void markBackReferences(String[] selectionArgs, String[] shiftedSelectionArgs,
+            boolean[] backReferenced) {
+
+        if (selectionArgs == null || selectionArgs == shiftedSelectionArgs) {
+            return;
+        }
+
+        for (int i = 0; i < selectionArgs.length; i++) {
+
+            if (selectionArgs[i] != null && !selectionArgs[i].equals(shiftedSelectionArgs[i])) {
+                backReferenced[Integer.parseInt(selectionArgs[i])] = true;
+            }
+        }
+    }
+
+    /*
+     * The content provider operations are applied to. Creating a content provider allocates its binder, so a single
+     * instance is shared by the collectors of all batches, each thread collecting into its own collector.
+     */
+    private static final class CollectingProvider extends ContentProvider {
+
+        static final CollectingProvider INSTANCE = new CollectingProvider();
+        static final ThreadLocal<InsertOperationCollector> sCollector = new ThreadLocal<InsertOperationCollector>();
+
+        @Override
+        public boolean onCreate() {
+
+            return true;
+        }
+
+        @Override
+        public Uri insert(Uri uri, ContentValues values) {
+
+            final InsertOperationCollector collector = sCollector.get();
+
+            collector.mContentValues.add(values);
+            collector.mInsertCollected = true;
+
+            return uri;
+        }
+
+        @Override
+        public int update(Uri uri, ContentValues values, String selection, String[] selectionArgs) {
+
+            return 0;
+        }
+
+        @Override
+        public int delete(Uri uri, String selection, String[] selectionArgs) {
+
+            return 0;
+        }
+
+        @Override
+        public Cursor query(Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder) {
+
+            return null;
+        }
+
+        @Override
+        public String getType(Uri uri) {
+
+            return null;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.provider.router;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A latency histogram with fixed, log scale, buckets. Bucket <tt>0</tt> counts durations of zero nanoseconds and bucket
+ * <tt>i</tt> counts durations from <tt>2^(i-1)</tt> up to <tt>2^i - 1</tt> nanoseconds. The last bucket also counts all
+ * longer durations.
+ * <p>
+ * Recording is lock free. Counters are striped by thread so concurrent binder threads rarely update the same cells, and
+ * stripes are padded apart to avoid false sharing. Reading a {@link Snapshot} sums the stripes; it is consistent per
+ * cell but not across cells while recordings are in progress.
+ * 
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+public final class LatencyHistogram {
+
+    /**
+     * The number of buckets of the histogram. The last bucket starts at about 275 seconds.
+     */
+    public static final int BUCKET_COUNT = 40;
+
+    private static final int STRIPE_COUNT = 8;
+    private static final int SUM_CELL = BUCKET_COUNT;
+
+    /* Buckets and sum, padded with 8 longs (one cache line) so stripes never share a line. */
+    private static final int STRIPE_LENGTH = BUCKET_COUNT + 1 + 8;
+
+    private final AtomicLongArray mCells = new AtomicLongArray(STRIPE_COUNT * STRIPE_LENGTH);
+
+    /**
+     * Records a duration.
+     * 
+     * @param nanos
+     *            The duration, in nanoseconds. Negative durations are recorded as zero.
+     */
+    public void record(long nanos) {
+
+        final long duration = nanos < 0 ? 0 : nanos;
+        final int stripe = (int) (Thread.currentThread().getId() & (STRIPE_COUNT - 1)) * STRIPE_LENGTH;
+
+        mCells.incrementAndGet(stripe + bucketOf(duration));
+        mCells.addAndGet(stripe + SUM_CELL, duration);
+    }
+
+    /**
+     * Reads the current state of the histogram.
+     * 
+     * @return A snapshot of the histogram.
+     */
+    public Snapshot snapshot() {
+
+        final long[] counts = new long[BUCKET_COUNT];
+        long totalNanos = 0;
+
+        for (int stripe = 0; stripe < STRIPE_COUNT * STRIPE_LENGTH; stripe += STRIPE_LENGTH) {
+
+            for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+                counts[bucket] += mCells.get(stripe + bucket);
+            }
+
+            totalNanos += mCells.get(stripe + SUM_CELL);
+        }
+
+        return new Snapshot(counts, totalNanos);
+    }
+
+    /**
+     * Clears the histogram. Durations recorded concurrently with a reset may be partially kept.
+     */
+    public void reset() {
+
+        for (int i = 0; i < mCells.length(); i++) {
+            mCells.set(i, 0);
+        }
+    }
+
+    /**
+     * Gets the bucket counting a duration.
+     * 
+     * @param nanos
+     *            The duration, in nanoseconds.
+     * @return The index of the bucket.
+     */
+    static int bucketOf(long nanos) {
+
+        final int bucket = 64 - Long.numberOfLeadingZeros(nanos);
+
+        return bucket < BUCKET_COUNT ? bucket : BUCKET_COUNT - 1;
+    }
+
+    /**
+     * Gets the longest duration counted by a bucket.
+     * 
+     * @param bucket
+     *            The index of the bucket.
+     * @return The upper bound of the bucket, in nanoseconds. {@link Long#MAX_VALUE} for the last bucket.
+     */
+    public static long getBucketUpperBoundNanos(int bucket) {
+
+        return bucket == BUCKET_COUNT - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+    }
+
+    /**
+     * The state of a {@link LatencyHistogram} at a given moment.
+     */
+    public static final class Snapshot {
+
+        private final long[] mCounts;
+        private final long mTotalNanos;
+        private final long mCount;
+
+        Snapshot(long[] counts, long totalNanos) {
+
+            long count = 0;
+
+            for (long bucketCount : counts) {
+                count += bucketCount;
+            }
+
+            this.mCounts = counts;
+            this.mTotalNanos = totalNanos;
+            this.mCount = count;
+        }
+
+        /**
+         * Gets the number of recorded durations.
+         * 
+         * @return The number of recorded durations.
+         */
+        public long getCount() {
+
+            return mCount;
+        }
+
+        /**
+         * Gets the sum of the recorded durations.
+         * 
+         * @return The sum of the recorded durations, in nanoseconds.
+         */
+        public long getTotalNanos() {
+
+            return mTotalNanos;
+        }
+
+        /**
+         * Gets the mean of the recorded durations.
+         * 
+         * @return The mean duration, in nanoseconds, or <tt>0</tt> if nothing has been recorded.
+         */
+        public long getMeanNanos() {
+
+            return mCount == 0 ? 0 : mTotalNanos / mCount;
+        }
+
+        /**
+         * Gets the number of durations counted by a bucket.
+         * 
+         * @param bucket
+         *            The index of the bucket.
+         * @return The number of durations in the bucket.
+         */
+        public long getBucketCount(int bucket) {
+
+            return mCounts[bucket];
+        }
+
+        /**
+         * Estimates a percentile of the recorded durations. The estimate is the upper bound of the bucket holding the
+         * percentile, so it is at most twice the actual value.
+         * 
+         * @param percentile
+         *            The percentile, between <tt>0</tt> and <tt>100</tt>.
+         * @return The estimated percentile, in nanoseconds, or <tt>0</tt> if nothing has been recorded.
+         */
+        public long getPercentileNanos(double percentile) {
+
+            if (mCount == 0) {
+                return 0;
+            }
+
+            final long rank = Math.max(1, (long) Math.ceil(mCount * percentile / 100));
+            long seen = 0;
+
+            for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+
+                seen += mCounts[bucket];
+
+                if (seen >= rank) {
+                    return getBucketUpperBoundNanos(bucket);
+                }
+            }
+
+            return getBucketUpperBoundNanos(BUCKET_COUNT - 1);
+        }
+
+        @Override
+        public String toString() {
+
+            return "Snapshot [count=" + mCount + ", meanNanos=" + getMeanNanos() + ", p50Nanos="
+                    + getPercentileNanos(50) + ", p99Nanos=" + getPercentileNanos(99) + "]";
+        }
+    }
+}
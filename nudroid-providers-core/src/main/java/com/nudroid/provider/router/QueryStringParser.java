@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.provider.router;
+
+import android.net.Uri;
+
+/**
+ * Parses the query string of a content URI in a single pass, extracting the values of a known set of parameters.
+ * <p>
+ * Generated routers use this class instead of calling {@link Uri#getQueryParameter(String)} once per parameter, which
+ * rescans (and decodes) the whole query string every time. The parameters a route may be interested in are known at
+ * compile time, so the router passes their names and receives a bit mask of the ones present in the query string. Each
+ * delegate method binding is then selected by testing its own precomputed mask.
+ * <p>
+ * As {@link Uri#getQueryParameter(String)}, only the first value of a repeated parameter is considered, unless all its
+ * values are collected, parameters without a value are reported with an empty value and '+' is decoded as a space.
+ * 
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+public final class QueryStringParser {
+
+    /**
+     * The maximum number of parameter names supported by {@link #parse(String, String[], String[])}.
+     */
+    public static final int MAX_PARAMETER_NAMES = 64;
+
+    private static final long[] EMPTY_LONG_ARRAY = new long[0];
+
+    private QueryStringParser() {
+
+    }
+
+    /**
+     * Parses the encoded query string, looking for the provided parameter names.
+     * 
+     * @param encodedQuery
+     *            The encoded query string, as returned by {@link Uri#getEncodedQuery()}. May be <tt>null</tt>.
+     * @param names
+     *            The names of the parameters to look for. At most {@link #MAX_PARAMETER_NAMES} names are supported.
+     * @param values
+     *            The array receiving the decoded values. Must be at least as long as <tt>names</tt>. The value of the
+     *            parameter <tt>names[i]</tt> is stored at <tt>values[i]</tt>. Entries of parameters not found are left
+     *            untouched.
+     * 
+     * @return A bit mask where bit <tt>i</tt> is set if parameter <tt>names[i]</tt> is present in the query string.
+     */
+    public static long parse(String encodedQuery, String[] names, String[] values) {
+
+        return parse(encodedQuery, names, values, 0L, null);
+    }
+
+    /**
+     * Parses the encoded query string, looking for the provided parameter names, and collects all the values of the
+     * repeated parameters, like the ids bound to a <tt>long[]</tt>, in the same pass.
+     * 
+     * @param encodedQuery
+     *            The encoded query string, as returned by {@link Uri#getEncodedQuery()}. May be <tt>null</tt>.
+     * @param names
+     *            The names of the parameters to look for. At most {@link #MAX_PARAMETER_NAMES} names are supported.
+     * @param values
+     *            The array receiving the decoded values. Must be at least as long as <tt>names</tt>. The value of the
+     *            parameter <tt>names[i]</tt> is stored at <tt>values[i]</tt>. Entries of parameters not found are left
+     *            untouched.
+     * @param repeatedMask
+     *            A bit mask where bit <tt>i</tt> is set if all the values of parameter <tt>names[i]</tt> are collected.
+     * @param repeatedValues
+     *            The array receiving the decoded values of the repeated parameters, as a comma separated list to be
+     *            parsed with {@link #parseLongValues(String)}. Must be at least as long as <tt>names</tt> if
+     *            <tt>repeatedMask</tt> is not 0. Entries of parameters not found are left untouched.
+     * 
+     * @return A bit mask where bit <tt>i</tt> is set if parameter <tt>names[i]</tt> is present in the query string.
+     */
+    public static long parse(String encodedQuery, String[] names, String[] values, long repeatedMask,
+            String[] repeatedValues) {
+
+        if (encodedQuery == null || encodedQuery.length() == 0) {
+            return 0L;
+        }
+
+        final int length = encodedQuery.length();
+        long mask = 0L;
+        int start = 0;
+
+        while (start <= length) {
+
+            int end = encodedQuery.indexOf('&', start);
+
+            if (end == -1) {
+                end = length;
+            }
+
+            int separator = encodedQuery.indexOf('=', start);
+
+            if (separator == -1 || separator > end) {
+                separator = end;
+            }
+
+            final int nameLength = separator - start;
+
+            if (nameLength > 0) {
+
+                final String decodedName = isEncoded(encodedQuery, start, separator) ? decode(encodedQuery.substring(
+                        start, separator)) : null;
+
+                for (int i = 0; i < names.length; i++) {
+
+                    final long bit = 1L << i;
+
+                    if (((mask & bit) == 0 || (repeatedMask & bit) != 0)
+                            && matches(encodedQuery, start, nameLength, decodedName, names[i])) {
+
+                        final String value = separator < end ? decode(encodedQuery.substring(separator + 1, end)) : "";
+
+                        if ((mask & bit) == 0) {
+
+                            values[i] = value;
+                            mask |= bit;
+                        }
+
+                        if ((repeatedMask & bit) != 0 && value.length() > 0) {
+                            repeatedValues[i] = repeatedValues[i] == null ? value : repeatedValues[i] + ',' + value;
+                        }
+
+                        break;
+                    }
+                }
+            }
+
+            start = end + 1;
+        }
+
+        return mask;
+    }
+
+    /**
+     * Parses all the values of a parameter as longs, in the order they appear in the query string. The parameter may
+     * be repeated (<tt>id=1&amp;id=2</tt>) and each value may hold a comma separated list (<tt>id=1,2</tt>). Empty
+     * values are ignored.
+     * <p>
+     * Generated routers collect the values of the parameters bound to <tt>long[]</tt> delegate method parameters with
+     * {@link #parse(String, String[], String[], long, String[])} instead, in the same pass as the other parameters.
+     * 
+     * @param encodedQuery
+     *            The encoded query string, as returned by {@link Uri#getEncodedQuery()}. May be <tt>null</tt>.
+     * @param name
+     *            The name of the parameter.
+     * 
+     * @return The values of the parameter, or an empty array if the parameter is not present.
+     * 
+     * @throws NumberFormatException
+     *             If any of the values is not a valid long.
+     */
+    public static long[] parseLongValues(String encodedQuery, String name) {
+
+        final String[] values = new String[1];
+
+        parse(encodedQuery, new String[] { name }, new String[1], 1L, values);
+
+        return parseLongValues(values[0]);
+    }
+
+    /**
+     * Parses a comma separated list of longs, like the values of a repeated parameter collected by
+     * {@link #parse(String, String[], String[], long, String[])}. Empty values are ignored.
+     * 
+     * @param values
+     *            The decoded values. May be <tt>null</tt>.
+     * 
+     * @return The values, or an empty array if <tt>values</tt> is <tt>null</tt>.
+     * 
+     * @throws NumberFormatException
+     *             If any of the values is not a valid long.
+     */
+    public static long[] parseLongValues(String values) {
+
+        if (values == null || values.length() == 0) {
+            return EMPTY_LONG_ARRAY;
+        }
+
+        final int length = values.length();
+        long[] result = EMPTY_LONG_ARRAY;
+        int count = 0;
+        int start = 0;
+
+        while (start < length) {
+
+            int end = values.indexOf(',', start);
+
+            if (end == -1) {
+                end = length;
+            }
+
+            if (end > start) {
+
+                if (count == result.length) {
+
+                    final long[] grown = new long[count == 0 ? 8 : count * 2];
+                    System.arraycopy(result, 0, grown, 0, count);
+                    result = grown;
+                }
+
+                result[count++] = Long.parseLong(values.substring(start, end));
+            }
+
+            start = end + 1;
+        }
+
+        if (count == result.length) {
+            return result;
+        }
+
+        final long[] trimmed = new long[count];
+        System.arraycopy(result, 0, trimmed, 0, count);
+
+        return trimmed;
+    }
+
+    private static boolean matches(String encodedQuery, int start, int length, String decodedName, String name) {
+
+        if (decodedName != null) {
+            return decodedName.equals(name);
+        }
+
+        return length == name.length() && encodedQuery.regionMatches(start, name, 0, length);
+    }
+
+    private static boolean isEncoded(String value, int start, int end) {
+
+        for (int i = start; i < end; i++) {
+
+            final char c = value.charAt(i);
+
+            if (c == '%' || c == '+') {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static String decode(String value) {
+
+        if (!isEncoded(value, 0, value.length())) {
+            return value;
+        }
+
+        return Uri.decode(value.replace('+', ' '));
+    }
+}
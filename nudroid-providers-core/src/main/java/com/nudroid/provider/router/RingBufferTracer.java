@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.provider.router;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link RouterTracer} keeping the most recent events in a fixed size buffer. Once the buffer is full, new events
+ * overwrite the oldest ones. Recording is synchronized, so this tracer is meant for tests and debug builds rather than
+ * production captures.
+ * 
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+public final class RingBufferTracer extends RouterTracer {
+
+    private final String[] mSectionNames;
+    private final long[] mThreadIds;
+    private final long[] mTimestamps;
+    private int mNext;
+    private int mSize;
+
+    RingBufferTracer(int capacity) {
+
+        if (capacity <= 0) {
+            throw new IllegalArgumentException(String.format("Capacity must be positive, was %d", capacity));
+        }
+
+        this.mSectionNames = new String[capacity];
+        this.mThreadIds = new long[capacity];
+        this.mTimestamps = new long[capacity];
+    }
+
+    @Override
+    public void beginSection(String sectionName) {
+
+        record(sectionName);
+    }
+
+    @Override
+    public void endSection() {
+
+        record(null);
+    }
+
+    /**
+     * Gets the events kept by this tracer.
+     * 
+     * @return The events, oldest first.
+     */
+    public synchronized List<Event> getEvents() {
+
+        final int capacity = mSectionNames.length;
+        final List<Event> events = new ArrayList<Event>(mSize);
+
+        for (int i = 0, index = (mNext - mSize + capacity) % capacity; i < mSize; i++, index = (index + 1) % capacity) {
+            events.add(new Event(mSectionNames[index], mThreadIds[index], mTimestamps[index]));
+        }
+
+        return events;
+    }
+
+    /**
+     * Discards all the events kept by this tracer.
+     */
+    public synchronized void clear() {
+
+        for (int i = 0; i < mSectionNames.length; i++) {
+            mSectionNames[i] = null;
+        }
+
+        mNext = 0;
+        mSize = 0;
+    }
+
+    private synchronized void record(String sectionName) {
+
+        mSectionNames[mNext] = sectionName;
+        mThreadIds[mNext] = Thread.currentThread().getId();
+        mTimestamps[mNext] = System.nanoTime();
+        mNext = (mNext + 1) % mSectionNames.length;
+
+        if (mSize < mSectionNames.length) {
+            mSize++;
+        }
+    }
+
+    /**
+     * An event recorded by a {@link RingBufferTracer}: either the beginning or the end of a section.
+     */
+    public static final class Event {
+
+        private final String mSectionName;
+        private final long mThreadId;
+        private final long mTimestampNanos;
+
+        Event(String sectionName, long threadId, long timestampNanos) {
+
+            this.mSectionName = sectionName;
+            this.mThreadId = threadId;
+            this.mTimestampNanos = timestampNanos;
+        }
+
+        /**
+         * Checks if this event opened a section.
+         * 
+         * @return <tt>true</tt> if this event opened a section, <tt>false</tt> if it closed one.
+         */
+        public boolean isBegin() {
+
+            return mSectionName != null;
+        }
+
+        /**
+         * Gets the name of the section opened by this event.
+         * 
+         * @return The name of the section, or <tt>null</tt> if this event closed a section.
+         */
+        public String getSectionName() {
+
+            return mSectionName;
+        }
+
+        /**
+         * Gets the id of the thread which recorded this event.
+         * 
+         * @return The id of the thread.
+         */
+        public long getThreadId() {
+
+            return mThreadId;
+        }
+
+        /**
+         * Gets the time this event was recorded.
+         * 
+         * @return The {@link System#nanoTime()} of the event.
+         */
+        public long getTimestampNanos() {
+
+            return mTimestampNanos;
+        }
+
+        @Override
+        public String toString() {
+
+            return "Event [sectionName=" + mSectionName + ", threadId=" + mThreadId + ", timestampNanos="
+                    + mTimestampNanos + "]";
+        }
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.provider.router;
+
+/**
+ * The request counters and latency histograms of a route, i.e. of a delegate method bound to a content URI. Generated
+ * routers keep one instance per route when the processor option <tt>com.nudroid.annotation.processor.router.metrics</tt>
+ * is enabled, and expose snapshots through their static <tt>getRouteMetricsSnapshots()</tt> method.
+ * <p>
+ * Each request records three durations: the whole routed call, the time spent in interceptors (before and after the
+ * delegate method) and the time spent in the delegate method. Requests failing with an exception are not recorded.
+ * 
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+public final class RouteMetrics {
+
+    private final int mMatcherUriId;
+    private final String mOperation;
+    private final String mPath;
+    private final String mDelegateMethodName;
+
+    private final LatencyHistogram mTotal = new LatencyHistogram();
+    private final LatencyHistogram mInterceptors = new LatencyHistogram();
+    private final LatencyHistogram mDelegate = new LatencyHistogram();
+
+    private volatile long mResetNanos = System.nanoTime();
+
+    /**
+     * Creates the metrics of a route.
+     * 
+     * @param matcherUriId
+     *            The id of the path matched by the route.
+     * @param operation
+     *            The operation handled by the route (i.e. the simple name of the delegate annotation, like <tt>Query</tt>).
+     * @param path
+     *            The path of the route, as declared in the delegate annotation.
+     * @param delegateMethodName
+     *            The name of the delegate method of the route.
+     */
+    public RouteMetrics(int matcherUriId, String operation, String path, String delegateMethodName) {
+
+        this.mMatcherUriId = matcherUriId;
+        this.mOperation = operation;
+        this.mPath = path;
+        this.mDelegateMethodName = delegateMethodName;
+    }
+
+    /**
+     * Records a completed request.
+     * 
+     * @param startNanos
+     *            The {@link System#nanoTime()} when the route started handling the request.
+     * @param delegateStartNanos
+     *            The {@link System#nanoTime()} before the delegate method was called.
+     * @param delegateEndNanos
+     *            The {@link System#nanoTime()} after the delegate method returned.
+     * @param endNanos
+     *            The {@link System#nanoTime()} when the route finished handling the request.
+     */
+    public void record(long startNanos, long delegateStartNanos, long delegateEndNanos, long endNanos) {
+
+        mTotal.record(endNanos - startNanos);
+        mInterceptors.record((delegateStartNanos - startNanos) + (endNanos - delegateEndNanos));
+        mDelegate.record(delegateEndNanos - delegateStartNanos);
+    }
+
+    /**
+     * Reads the current state of the metrics of this route.
+     * 
+     * @return A snapshot of the metrics.
+     */
+    public Snapshot snapshot() {
+
+        return new Snapshot(this, System.nanoTime() - mResetNanos);
+    }
+
+    /**
+     * Clears the metrics of this route.
+     */
+    public void reset() {
+
+        mTotal.reset();
+        mInterceptors.reset();
+        mDelegate.reset();
+        mResetNanos = System.nanoTime();
+    }
+
+    /**
+     * The state of the metrics of a route at a given moment.
+     */
+    public static final class Snapshot {
+
+        private final int mMatcherUriId;
+        private final String mOperation;
+        private final String mPath;
+        private final String mDelegateMethodName;
+        private final long mElapsedNanos;
+        private final LatencyHistogram.Snapshot mTotal;
+        private final LatencyHistogram.Snapshot mInterceptors;
+        private final LatencyHistogram.Snapshot mDelegate;
+
+        Snapshot(RouteMetrics metrics, long elapsedNanos) {
+
+            this.mMatcherUriId = metrics.mMatcherUriId;
+            this.mOperation = metrics.mOperation;
+            this.mPath = metrics.mPath;
+            this.mDelegateMethodName = metrics.mDelegateMethodName;
+            this.mElapsedNanos = elapsedNanos;
+            this.mTotal = metrics.mTotal.snapshot();
+            this.mInterceptors = metrics.mInterceptors.snapshot();
+            this.mDelegate = metrics.mDelegate.snapshot();
+        }
+
+        /**
+         * Gets the id of the path matched by the route.
+         * 
+         * @return The id of the path.
+         */
+        public int getMatcherUriId() {
+
+            return mMatcherUriId;
+        }
+
+        /**
+         * Gets the operation handled by the route.
+         * 
+         * @return The simple name of the delegate annotation (i.e. <tt>Query</tt>, <tt>Insert</tt> etc.).
+         */
+        public String getOperation() {
+
+            return mOperation;
+        }
+
+        /**
+         * Gets the path of the route, as declared in the delegate annotation.
+         * 
+         * @return The path of the route.
+         */
+        public String getPath() {
+
+            return mPath;
+        }
+
+        /**
+         * Gets the name of the delegate method of the route.
+         * 
+         * @return The name of the delegate method.
+         */
+        public String getDelegateMethodName() {
+
+            return mDelegateMethodName;
+        }
+
+        /**
+         * Gets the number of requests completed by the route.
+         * 
+         * @return The number of completed requests.
+         */
+        public long getRequestCount() {
+
+            return mTotal.getCount();
+        }
+
+        /**
+         * Gets the rate of completed requests since the metrics were created or reset.
+         * 
+         * @return The number of completed requests per second.
+         */
+        public double getRequestsPerSecond() {
+
+            return mElapsedNanos <= 0 ? 0 : mTotal.getCount() * 1e9 / mElapsedNanos;
+        }
+
+        /**
+         * Gets the latencies of the whole routed calls.
+         * 
+         * @return The histogram of the routed calls.
+         */
+        public LatencyHistogram.Snapshot getTotal() {
+
+            return mTotal;
+        }
+
+        /**
+         * Gets the time spent in interceptors, before and after the delegate method.
+         * 
+         * @return The histogram of the interceptor time.
+         */
+        public LatencyHistogram.Snapshot getInterceptors() {
+
+            return mInterceptors;
+        }
+
+        /**
+         * Gets the time spent in the delegate method.
+         * 
+         * @return The histogram of the delegate method calls.
+         */
+        public LatencyHistogram.Snapshot getDelegate() {
+
+            return mDelegate;
+        }
+
+        @Override
+        public String toString() {
+
+            return "Snapshot [matcherUriId=" + mMatcherUriId + ", operation=" + mOperation + ", path=" + mPath
+                    + ", delegateMethodName=" + mDelegateMethodName + ", requestCount=" + getRequestCount()
+                    + ", total=" + mTotal + ", interceptors=" + mInterceptors + ", delegate=" + mDelegate + "]";
+        }
+    }
+}
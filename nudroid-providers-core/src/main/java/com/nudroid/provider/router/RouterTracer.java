@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.provider.router;
+
+import java.lang.reflect.Method;
+
+/**
+ * Receives the tracing sections of the generated routers. Routers generated with the processor option
+ * <tt>com.nudroid.annotation.processor.router.tracing</tt> enabled open a section around URI matching, around each
+ * interceptor callback and around the delegate method call. Sections are strictly nested and always closed on the
+ * thread which opened them, even when the traced code throws an exception.
+ * <p>
+ * The tracer in use is set with {@link #setTracer(RouterTracer)}. Until then, routers use a no-op tracer, which the JIT
+ * compiler reduces to a field read per request.
+ * 
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+public abstract class RouterTracer {
+
+    private static final RouterTracer NO_OP_TRACER = new NoOpTracer();
+
+    private static volatile RouterTracer sTracer = NO_OP_TRACER;
+
+    /**
+     * Opens a section.
+     * 
+     * @param sectionName
+     *            The name of the section.
+     */
+    public abstract void beginSection(String sectionName);
+
+    /**
+     * Closes the most recently opened section of the current thread.
+     */
+    public abstract void endSection();
+
+    /**
+     * Gets the tracer used by the routers.
+     * 
+     * @return The tracer used by the routers.
+     */
+    public static RouterTracer getTracer() {
+
+        return sTracer;
+    }
+
+    /**
+     * Sets the tracer used by the routers. Requests already being routed keep the previous tracer until they complete.
+     * 
+     * @param tracer
+     *            The tracer to use, or <tt>null</tt> to stop tracing.
+     */
+    public static void setTracer(RouterTracer tracer) {
+
+        sTracer = tracer != null ? tracer : NO_OP_TRACER;
+    }
+
+    /**
+     * Gets the tracer discarding all sections.
+     * 
+     * @return The no-op tracer.
+     */
+    public static RouterTracer noOpTracer() {
+
+        return NO_OP_TRACER;
+    }
+
+    /**
+     * Creates a tracer forwarding the sections to <tt>android.os.Trace</tt>, so they show up in systrace captures. The
+     * Trace class is only available from API level 18. On older devices the no-op tracer is returned instead.
+     * 
+     * @return A tracer for systrace captures.
+     */
+    public static RouterTracer newSystemTracer() {
+
+        try {
+
+            final Class<?> traceClass = Class.forName("android.os.Trace");
+
+            return new SystemTracer(traceClass.getMethod("beginSection", String.class),
+                    traceClass.getMethod("endSection"));
+        } catch (ClassNotFoundException e) {
+
+            return NO_OP_TRACER;
+        } catch (NoSuchMethodException e) {
+
+            return NO_OP_TRACER;
+        }
+    }
+
+    /**
+     * Creates a tracer keeping the most recent sections in memory. Useful to check the routed calls in JVM tests.
+     * 
+     * @param capacity
+     *            The number of events kept by the tracer. Each section produces two events.
+     * @return A new ring buffer tracer.
+     */
+    public static RingBufferTracer newRingBufferTracer(int capacity) {
+
+        return new RingBufferTracer(capacity);
+    }
+
+    private static final class NoOpTracer extends RouterTracer {
+
+        @Override
+        public void beginSection(String sectionName) {
+        }
+
+        @Override
+        public void endSection() {
+        }
+    }
+
+    private static final class SystemTracer extends RouterTracer {
+
+        /* android.os.Trace rejects section names longer than 127 characters. */
+        private static final int MAX_SECTION_NAME_LENGTH = 127;
+
+        private final Method mBeginSection;
+        private final Method mEndSection;
+
+        SystemTracer(Method beginSection, Method endSection) {
+
+            this.mBeginSection = beginSection;
+            this.mEndSection = endSection;
+        }
+
+        @Override
+        public void beginSection(String sectionName) {
+
+            invoke(mBeginSection, sectionName.length() > MAX_SECTION_NAME_LENGTH ? sectionName.substring(0,
+                    MAX_SECTION_NAME_LENGTH) : sectionName);
+        }
+
+        @Override
+        public void endSection() {
+
+            invoke(mEndSection);
+        }
+
+        private static void invoke(Method method, Object... args) {
+
+            try {
+
+                method.invoke(null, args);
+            } catch (Exception e) {
+
+                throw new IllegalStateException(String.format("Unable to invoke %s", method), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.provider.delegate;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.testng.annotations.Test;
+
+import android.net.Uri;
+
+/**
+ * Tests the coalescing of {@link ChangeNotifier}. URIs are tested in their normalized form: {@link Uri#parse(String)}
+ * is not available outside of a device.
+ * 
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+public class ChangeNotifierTest {
+
+    private static final String USERS = "content://com.nudroid.test/users";
+
+    @Test
+    public void testNormalizesQueryStringsAndTrailingSlashes() {
+
+        assertEquals(ChangeNotifier.normalize(uri("/users/5/")), USERS + "/5");
+        assertEquals(ChangeNotifier.normalize(uri("/")), "content://com.nudroid.test");
+        assertEquals(ChangeNotifier.normalize(uri(null)), "content://com.nudroid.test");
+    }
+
+    @Test
+    public void testKeepsUnrelatedUris() {
+
+        assertEquals(collapse(8, USERS + "/5", "content://com.nudroid.test/groups/1"),
+                set("content://com.nudroid.test/groups/1", USERS + "/5"));
+    }
+
+    @Test
+    public void testDropsUrisWhoseAncestorChanged() {
+
+        assertEquals(collapse(8, USERS + "/5/friends", USERS + "/5", USERS + "/6/friends/2", USERS),
+                set(USERS));
+    }
+
+    @Test
+    public void testReplacesTooManySiblingsByTheirParent() {
+
+        assertEquals(collapse(2, USERS + "/1", USERS + "/2"), set(USERS + "/1", USERS + "/2"));
+        assertEquals(collapse(2, USERS + "/1", USERS + "/2", USERS + "/3"), set(USERS));
+    }
+
+    @Test
+    public void testReplacesSiblingsRepeatedly() {
+
+        assertEquals(collapse(2, USERS + "/1/a", USERS + "/1/b", USERS + "/1/c", USERS + "/2", USERS + "/3"),
+                set(USERS));
+        assertEquals(collapse(1, USERS + "/1/friends/1", USERS + "/1/friends/2", USERS + "/2/friends/1"),
+                set(USERS + "/1/friends", USERS + "/2/friends/1"));
+    }
+
+    @Test
+    public void testNeverReplacesAuthorities() {
+
+        assertEquals(collapse(1, "content://a/x", "content://b/y"), set("content://a/x", "content://b/y"));
+    }
+
+    private static Set<String> collapse(int maxSiblings, String... paths) {
+
+        return ChangeNotifier.collapsePaths(new TreeSet<String>(Arrays.asList(paths)), maxSiblings);
+    }
+
+    private static Set<String> set(String... paths) {
+
+        return new LinkedHashSet<String>(Arrays.asList(paths));
+    }
+
+    private static Uri uri(String path) {
+
+        final Uri uri = mock(Uri.class);
+        when(uri.getScheme()).thenReturn("content");
+        when(uri.getEncodedAuthority()).thenReturn("com.nudroid.test");
+        when(uri.getEncodedPath()).thenReturn(path);
+
+        return uri;
+    }
+}
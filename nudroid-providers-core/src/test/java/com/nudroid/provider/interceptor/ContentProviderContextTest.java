@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.provider.interceptor;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests the placeholders of {@link ContentProviderContext}.
+ * 
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+public class ContentProviderContextTest {
+
+    @Test
+    public void testPlaceholdersFieldIsBackedBySlots() {
+
+        final ContentProviderContext context = newContext();
+
+        context.getPlaceholderMap().setValueAt(0, "10");
+        context.placeholders.put("name", "john");
+
+        assertSame(context.placeholders, context.getPlaceholderMap());
+        assertEquals(context.placeholders.get("id"), "10");
+        assertEquals(context.getPlaceholderMap().valueAt(1), "john");
+    }
+
+    @Test
+    public void testCopiesAssignedPlaceholdersIntoSlots() {
+
+        final ContentProviderContext context = newContext();
+        final Map<String, String> placeholders = new HashMap<String, String>();
+
+        context.getPlaceholderMap().setValueAt(1, "john");
+        placeholders.put("id", "10");
+        context.placeholders = placeholders;
+
+        assertEquals(context.getPlaceholderMap().valueAt(0), "10");
+        assertEquals(context.getPlaceholderMap().valueAt(1), null);
+        assertSame(context.placeholders, context.getPlaceholderMap());
+        assertEquals(context.expand("/users/{id}"), "/users/10");
+    }
+
+    private static ContentProviderContext newContext() {
+
+        return new ContentProviderContext(null, null, null, null, null, null, null, new String[] { "id", "name" });
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.provider.interceptor;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+import org.testng.annotations.Test;
+
+import android.database.Cursor;
+
+/**
+ * Tests {@link CursorSnapshot}. Cursors are mocked, as the Android classes are not available outside of a device.
+ * 
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+public class CursorSnapshotTest {
+
+    @Test
+    public void testCopiesTheRowsOfCursors() {
+
+        final Cursor cursor = cursor(2, "_id", "name");
+        when(cursor.moveToNext()).thenReturn(true, true, false);
+        when(cursor.getString(0)).thenReturn("1", "2");
+        when(cursor.getString(1)).thenReturn("first", "second");
+
+        final CursorSnapshot snapshot = CursorSnapshot.of(cursor, Long.MAX_VALUE);
+
+        assertNotNull(snapshot);
+        assertEquals(snapshot.getRowCount(), 2);
+    }
+
+    @Test
+    public void testRejectsCursorsTooLargeToBeCachedWithoutReadingThem() {
+
+        final Cursor cursor = cursor(1000000, "_id", "name");
+
+        assertNull(CursorSnapshot.of(cursor, 1024));
+        verify(cursor, never()).moveToNext();
+        verify(cursor).moveToPosition(-1);
+    }
+
+    @Test
+    public void testRejectsCursorsWithMoreValuesThanAnArrayHolds() {
+
+        final Cursor cursor = cursor(Integer.MAX_VALUE, "_id", "name");
+
+        assertNull(CursorSnapshot.of(cursor, Long.MAX_VALUE));
+        verify(cursor, never()).moveToNext();
+    }
+
+    private static Cursor cursor(int rowCount, String... columnNames) {
+
+        final Cursor cursor = mock(Cursor.class);
+        when(cursor.getColumnNames()).thenReturn(columnNames);
+        when(cursor.getCount()).thenReturn(rowCount);
+
+        return cursor;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.provider.interceptor;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests {@link PlaceholderMap}.
+ * 
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+public class PlaceholderMapTest {
+
+    @Test
+    public void testSlotsAreVisibleByName() {
+
+        final PlaceholderMap map = new PlaceholderMap(new String[] { "id", "name" });
+
+        map.setValueAt(1, "john");
+        map.put("id", "10");
+
+        assertEquals(map.get("name"), "john");
+        assertEquals(map.valueAt(0), "10");
+        assertEquals(map.size(), 2);
+    }
+
+    @Test
+    public void testNamesOutsideTheLayoutOverflow() {
+
+        final PlaceholderMap map = new PlaceholderMap(new String[] { "id" });
+
+        map.setValueAt(0, "10");
+        assertNull(map.put("extra", "a"));
+
+        assertEquals(map.get("extra"), "a");
+        assertTrue(map.containsKey("extra"));
+        assertEquals(map.size(), 2);
+        assertEquals(map.put("extra", "b"), "a");
+        assertEquals(map.remove("extra"), "b");
+        assertFalse(map.containsKey("extra"));
+        assertEquals(map.size(), 1);
+    }
+
+    @Test
+    public void testEmptySlotsAreAbsent() {
+
+        final PlaceholderMap map = new PlaceholderMap(new String[] { "id", "name" });
+
+        map.put("name", "john");
+
+        assertFalse(map.containsKey("id"));
+        assertNull(map.get("id"));
+        assertEquals(map.remove("name"), "john");
+        assertNull(map.valueAt(1));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void testEqualsHashMapWithSameEntries() {
+
+        final PlaceholderMap map = new PlaceholderMap(new String[] { "id", "name" });
+        final Map<String, String> expected = new HashMap<String, String>();
+
+        map.setValueAt(0, "10");
+        map.put("extra", "a");
+        expected.put("id", "10");
+        expected.put("extra", "a");
+
+        assertEquals(map, expected);
+        assertEquals(expected, map);
+        assertEquals(map.hashCode(), expected.hashCode());
+    }
+
+    @Test
+    public void testIteratorRemovesSlotAndOverflowEntries() {
+
+        final PlaceholderMap map = new PlaceholderMap(new String[] { "id", "name" });
+
+        map.setValueAt(1, "john");
+        map.put("extra", "a");
+
+        final Iterator<Map.Entry<String, String>> iterator = map.entrySet().iterator();
+
+        assertEquals(iterator.next().getKey(), "name");
+        iterator.remove();
+        assertEquals(iterator.next().getKey(), "extra");
+        iterator.remove();
+        assertFalse(iterator.hasNext());
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void testResetClearsSlotsAndOverflow() {
+
+        final PlaceholderMap map = new PlaceholderMap(new String[] { "id", "name" });
+
+        map.setValueAt(0, "10");
+        map.put("extra", "a");
+        map.reset(new String[] { "slug" });
+
+        assertTrue(map.isEmpty());
+        assertNull(map.get("extra"));
+        assertNull(map.get("id"));
+
+        map.put("slug", "s");
+
+        assertEquals(map.valueAt(0), "s");
+        assertEquals(map.size(), 1);
+    }
+}
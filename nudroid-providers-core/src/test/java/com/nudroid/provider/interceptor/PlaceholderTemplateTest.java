@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.provider.interceptor;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests {@link PlaceholderTemplate}.
+ * 
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+public class PlaceholderTemplateTest {
+
+    @Test
+    public void testSplitsLiteralsAndPlaceholders() {
+
+        final PlaceholderTemplate template = PlaceholderTemplate.compile("/users/{id}/posts/{post}");
+
+        assertEquals(template.getPlaceholderCount(), 2);
+        assertEquals(template.getLiteral(0), "/users/");
+        assertEquals(template.getPlaceholderName(0), "id");
+        assertEquals(template.getLiteral(1), "/posts/");
+        assertEquals(template.getPlaceholderName(1), "post");
+        assertEquals(template.getLiteral(2), "");
+    }
+
+    @Test
+    public void testKeepsEmptyAndUnclosedBracesAsLiterals() {
+
+        final PlaceholderTemplate template = PlaceholderTemplate.compile("{}a{b}c{d");
+
+        assertEquals(template.getPlaceholderCount(), 1);
+        assertEquals(template.getLiteral(0), "{}a");
+        assertEquals(template.getPlaceholderName(0), "b");
+        assertEquals(template.getLiteral(1), "c{d");
+    }
+
+    @Test
+    public void testExpandsPlaceholdersByName() {
+
+        final PlaceholderMap placeholders = new PlaceholderMap();
+        placeholders.put("id", "10");
+
+        assertEquals(PlaceholderTemplate.compile("{id}-{id}.txt").expand(placeholders), "10-10.txt");
+        assertEquals(PlaceholderTemplate.compile("no placeholders").expand(placeholders), "no placeholders");
+    }
+
+    @Test
+    public void testExpandsPlaceholdersBySlot() {
+
+        final PlaceholderMap placeholders = new PlaceholderMap(new String[] { "id", "name" });
+        placeholders.setValueAt(1, "john");
+
+        final PlaceholderTemplate template = new PlaceholderTemplate(new String[] { "users_", "" },
+                new String[] { "name" }, new int[] { 1 });
+
+        assertEquals(template.expand(placeholders), "users_john");
+    }
+
+    @Test
+    public void testLeavesPlaceholdersWithoutValueUntouched() {
+
+        final PlaceholderMap placeholders = new PlaceholderMap();
+        placeholders.put("id", "10");
+
+        assertEquals(PlaceholderTemplate.compile("{id}/{missing}").expand(placeholders), "10/{missing}");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testRejectsMismatchedSegments() {
+
+        new PlaceholderTemplate(new String[] { "a" }, new String[] { "id" }, new int[] { 0 });
+    }
+
+    @Test
+    public void testCachesParsedTemplates() {
+
+        assertSame(PlaceholderTemplate.forString("/cached/{id}"), PlaceholderTemplate.forString("/cached/{id}"));
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.provider.interceptor;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+import android.database.Cursor;
+import android.net.Uri;
+
+/**
+ * Tests {@link QueryResultCache}. URIs and cursors are mocked, as the Android classes are not available outside of a
+ * device.
+ * 
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+public class QueryResultCacheTest {
+
+    private static final CursorSnapshot SNAPSHOT = snapshot();
+    private static final long SIZE = SNAPSHOT.getSizeInBytes();
+
+    @Test
+    public void testNormalizesTrailingSlashesAndQueryOrder() {
+
+        assertEquals(key("/users/", "b=2&a=1"), key("/users", "a=1&b=2"));
+        assertEquals(key("/users", "b=2&a=1").hashCode(), key("/users", "a=1&b=2").hashCode());
+        assertFalse(key("/users", "a=1").equals(key("/users", "a=2")));
+        assertFalse(key("/users", null).equals(key("/groups", null)));
+    }
+
+    @Test
+    public void testAccountsEntrySizes() {
+
+        final QueryResultCache cache = newCache(3 * SIZE);
+
+        assertTrue(cache.put(key("/a", null), SNAPSHOT, cache.getGeneration()));
+        assertTrue(cache.put(key("/b", null), SNAPSHOT, cache.getGeneration()));
+        assertEquals(cache.getSizeInBytes(), 2 * SIZE);
+
+        assertTrue(cache.put(key("/a", null), SNAPSHOT, cache.getGeneration()));
+        assertEquals(cache.getSizeInBytes(), 2 * SIZE);
+
+        cache.clear();
+        assertEquals(cache.getSizeInBytes(), 0);
+        assertNull(cache.get(key("/a", null)));
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsedEntries() {
+
+        final QueryResultCache cache = newCache(2 * SIZE);
+
+        cache.put(key("/a", null), SNAPSHOT, cache.getGeneration());
+        cache.put(key("/b", null), SNAPSHOT, cache.getGeneration());
+        assertSame(cache.get(key("/a", null)), SNAPSHOT);
+        cache.put(key("/c", null), SNAPSHOT, cache.getGeneration());
+
+        assertSame(cache.get(key("/a", null)), SNAPSHOT);
+        assertNull(cache.get(key("/b", null)));
+        assertSame(cache.get(key("/c", null)), SNAPSHOT);
+        assertEquals(cache.getSizeInBytes(), 2 * SIZE);
+    }
+
+    @Test
+    public void testRejectsSnapshotsLargerThanTheCache() {
+
+        final QueryResultCache cache = newCache(SIZE - 1);
+
+        assertFalse(cache.put(key("/a", null), SNAPSHOT, cache.getGeneration()));
+        assertEquals(cache.getSizeInBytes(), 0);
+    }
+
+    @Test
+    public void testRejectsSnapshotsReadBeforeAnInvalidation() {
+
+        final QueryResultCache cache = newCache(2 * SIZE);
+        final long generation = cache.getGeneration();
+
+        cache.invalidate(uri("/groups", null));
+
+        assertFalse(cache.put(key("/users", null), SNAPSHOT, generation));
+        assertTrue(cache.put(key("/users", null), SNAPSHOT, cache.getGeneration()));
+    }
+
+    @Test
+    public void testInvalidatesTheParentCollectionOfWrites() {
+
+        final QueryResultCache cache = newCache(10 * SIZE);
+        final String[] paths = { "/users", "/users/5", "/users/5/friends", "/users/count", "/users/6", "/groups",
+                "/usersettings" };
+
+        for (String path : paths) {
+            cache.put(key(path, null), SNAPSHOT, cache.getGeneration());
+        }
+
+        cache.invalidate(uri("/users/5/", null));
+
+        for (String path : paths) {
+            assertEquals(cache.get(key(path, null)) != null, path.equals("/groups") || path.equals("/usersettings"),
+                    path);
+        }
+
+        assertEquals(cache.getSizeInBytes(), 2 * SIZE);
+    }
+
+    @Test
+    public void testInvalidatesOnlyTheWrittenTopLevelCollection() {
+
+        final QueryResultCache cache = newCache(10 * SIZE);
+
+        cache.put(key("/users/5", null), SNAPSHOT, cache.getGeneration());
+        cache.put(key("/groups", null), SNAPSHOT, cache.getGeneration());
+        cache.invalidate(uri("/users", null));
+
+        assertNull(cache.get(key("/users/5", null)));
+        assertSame(cache.get(key("/groups", null)), SNAPSHOT);
+    }
+
+    private static QueryResultCache newCache(long maxBytes) {
+
+        final String authority = "com.nudroid.test." + System.nanoTime();
+        QueryResultCache.configure(authority, maxBytes);
+
+        return QueryResultCache.forAuthority(authority);
+    }
+
+    private static QueryResultCache.Key key(String path, String query) {
+
+        return QueryResultCache.Key.of(uri(path, query), null, null, null, null);
+    }
+
+    private static Uri uri(String path, String query) {
+
+        final Uri uri = mock(Uri.class);
+        when(uri.getEncodedPath()).thenReturn(path);
+        when(uri.getEncodedQuery()).thenReturn(query);
+
+        return uri;
+    }
+
+    private static CursorSnapshot snapshot() {
+
+        final Cursor cursor = mock(Cursor.class);
+        when(cursor.getColumnNames()).thenReturn(new String[] { "_id" });
+
+        return CursorSnapshot.of(cursor, Long.MAX_VALUE);
+    }
+}
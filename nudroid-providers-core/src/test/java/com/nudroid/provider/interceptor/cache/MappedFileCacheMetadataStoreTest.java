@@ -0,0 +1,259 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.provider.interceptor.cache;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests {@link MappedFileCacheMetadataStore}.
+ * 
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+public class MappedFileCacheMetadataStoreTest {
+
+    /* Header and record sizes of the file format. */
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_SIZE = 24;
+
+    private File mFile;
+    private MappedFileCacheMetadataStore mStore;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+
+        mFile = File.createTempFile("cache_metadata", null);
+        mFile.delete();
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+
+        if (mStore != null) {
+            mStore.close();
+        }
+
+        mFile.delete();
+        new File(mFile.getPath() + ".tmp").delete();
+    }
+
+    @Test
+    public void testReturnsDefaultsForUnknownCacheIds() throws IOException {
+
+        mStore = new MappedFileCacheMetadataStore(mFile);
+
+        assertEquals(mStore.getPage("unknown", 7), 7);
+        assertEquals(mStore.getVersion("unknown"), 0);
+    }
+
+    @Test
+    public void testStoresPagesAndVersions() throws IOException {
+
+        mStore = new MappedFileCacheMetadataStore(mFile);
+
+        mStore.putPage("a", 3);
+        mStore.putVersion("a", 1000);
+        mStore.putVersion("b", 2000);
+
+        assertEquals(mStore.getPage("a", 0), 3);
+        assertEquals(mStore.getVersion("a"), 1000);
+        assertEquals(mStore.getPage("b", 0), 0);
+        assertEquals(mStore.getVersion("b"), 2000);
+    }
+
+    @Test
+    public void testKeepsRecordsWhenGrowing() throws IOException {
+
+        mStore = new MappedFileCacheMetadataStore(mFile, 4);
+
+        for (int i = 0; i < 1000; i++) {
+
+            mStore.putVersion("cache" + i, i + 1);
+            mStore.putPage("cache" + i, i);
+        }
+
+        for (int i = 0; i < 1000; i++) {
+
+            assertEquals(mStore.getVersion("cache" + i), i + 1);
+            assertEquals(mStore.getPage("cache" + i, -1), i);
+        }
+
+        assertEquals(mFile.length(), fileSize(2048));
+        assertFalse(new File(mFile.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    public void testKeepsRecordsWhenReopened() throws IOException {
+
+        mStore = new MappedFileCacheMetadataStore(mFile, 4);
+
+        for (int i = 0; i < 100; i++) {
+            mStore.putVersion("cache" + i, i + 1);
+        }
+
+        mStore.putPage("cache0", 5);
+        mStore.close();
+        mStore = new MappedFileCacheMetadataStore(mFile, 4);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(mStore.getVersion("cache" + i), i + 1);
+        }
+
+        assertEquals(mStore.getPage("cache0", 0), 5);
+    }
+
+    @Test
+    public void testRemovePageKeepsVersion() throws IOException {
+
+        mStore = new MappedFileCacheMetadataStore(mFile);
+
+        mStore.putVersion("a", 1000);
+        mStore.putPage("a", 3);
+        mStore.removePage("a");
+
+        assertEquals(mStore.getPage("a", -1), -1);
+        assertEquals(mStore.getVersion("a"), 1000);
+    }
+
+    @Test
+    public void testRemovePageDeletesRecordsWithoutVersion() throws IOException {
+
+        mStore = new MappedFileCacheMetadataStore(mFile, 8);
+
+        for (int i = 0; i < 1000; i++) {
+
+            mStore.putPage("cache" + i, 1);
+            mStore.removePage("cache" + i);
+        }
+
+        assertEquals(mFile.length(), fileSize(8));
+        assertEquals(mStore.getPage("cache0", -1), -1);
+    }
+
+    @Test
+    public void testCountsPrefetchedPages() throws IOException {
+
+        mStore = new MappedFileCacheMetadataStore(mFile);
+
+        mStore.putPage("a", 3);
+
+        assertEquals(mStore.addPrefetchedPages("a", 2), 0);
+        assertEquals(mStore.addPrefetchedPages("a", -1), 2);
+        assertEquals(mStore.getPrefetchedPages("a"), 1);
+        assertEquals(mStore.getPage("a", 0), 3);
+
+        mStore.removePage("a");
+
+        assertEquals(mStore.getPrefetchedPages("a"), 1);
+        assertEquals(mStore.addPrefetchedPages("a", -5), 1);
+        assertEquals(mStore.getPrefetchedPages("a"), 0);
+        assertEquals(mStore.addPrefetchedPages("b", -1), 0);
+    }
+
+    @Test
+    public void testDeletesRecordsWithoutPrefetchedPages() throws IOException {
+
+        mStore = new MappedFileCacheMetadataStore(mFile, 8);
+
+        for (int i = 0; i < 1000; i++) {
+
+            mStore.addPrefetchedPages("cache" + i, 1);
+            mStore.removePrefetchedPages("cache" + i);
+        }
+
+        mStore.putVersion("a", 1000);
+        mStore.addPrefetchedPages("a", 1);
+        mStore.removePrefetchedPages("a");
+
+        assertEquals(mFile.length(), fileSize(8));
+        assertEquals(mStore.getVersion("a"), 1000);
+        assertEquals(mStore.getPrefetchedPages("cache0"), 0);
+    }
+
+    @Test
+    public void testDeletingRecordsKeepsTheOthersReachable() throws IOException {
+
+        mStore = new MappedFileCacheMetadataStore(mFile, 64);
+
+        for (int i = 0; i < 40; i++) {
+            mStore.putPage("cache" + i, i);
+        }
+
+        for (int i = 0; i < 40; i += 2) {
+            mStore.removePage("cache" + i);
+        }
+
+        for (int i = 0; i < 40; i++) {
+            assertEquals(mStore.getPage("cache" + i, -1), i % 2 == 0 ? -1 : i);
+        }
+
+        mStore.close();
+        mStore = new MappedFileCacheMetadataStore(mFile, 64);
+
+        for (int i = 1; i < 40; i += 2) {
+            assertEquals(mStore.getPage("cache" + i, -1), i);
+        }
+    }
+
+    @Test
+    public void testCompactsAtMaxCapacity() throws IOException {
+
+        mStore = new MappedFileCacheMetadataStore(mFile, 4, 16);
+
+        for (int i = 0; i < 100; i++) {
+            mStore.putVersion("cache" + i, i + 1);
+        }
+
+        assertEquals(mFile.length(), fileSize(16));
+
+        /* The caches updated most recently are kept. */
+        assertEquals(mStore.getVersion("cache99"), 100);
+        assertEquals(mStore.getVersion("cache98"), 99);
+        assertEquals(mStore.getVersion("cache0"), 0);
+    }
+
+    @Test
+    public void testClearRemovesAllRecords() throws IOException {
+
+        mStore = new MappedFileCacheMetadataStore(mFile);
+
+        mStore.putVersion("a", 1000);
+        mStore.putPage("b", 2);
+        mStore.clear();
+
+        assertEquals(mStore.getVersion("a"), 0);
+        assertEquals(mStore.getPage("b", -1), -1);
+    }
+
+    private static long fileSize(int capacity) {
+
+        return HEADER_SIZE + (long) capacity * RECORD_SIZE;
+    }
+}
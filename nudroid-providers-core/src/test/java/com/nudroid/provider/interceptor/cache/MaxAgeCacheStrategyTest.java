@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.provider.interceptor.cache;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests the binding of {@link MaxAgeCacheStrategy} to the metadata store of its {@link CacheInterceptor}.
+ * 
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+public class MaxAgeCacheStrategyTest {
+
+    private static final Clock CLOCK = new Clock() {
+
+        @Override
+        public long currentTime() {
+
+            return 10000;
+        }
+    };
+
+    @Test
+    public void testStoresVersionsInTheStoreOfItsInterceptor() {
+
+        final CacheMetadataStore metadataStore = mock(CacheMetadataStore.class);
+        final MaxAgeCacheStrategy strategy = new MaxAgeCacheStrategy(CLOCK, 5, TimeUnit.SECONDS);
+
+        strategy.bindMetadataStore(metadataStore);
+        strategy.cacheUpdateFinished(null, "cache", true);
+
+        verify(metadataStore).putVersion("cache", 10000);
+    }
+
+    @Test
+    public void testChecksVersionsInTheStoreOfItsInterceptor() {
+
+        final CacheMetadataStore metadataStore = mock(CacheMetadataStore.class);
+        final MaxAgeCacheStrategy strategy = new MaxAgeCacheStrategy(CLOCK, 5, TimeUnit.SECONDS);
+
+        when(metadataStore.getVersion("fresh")).thenReturn(6000L);
+        when(metadataStore.getVersion("stale")).thenReturn(4000L);
+        strategy.bindMetadataStore(metadataStore);
+
+        assertTrue(strategy.isUpToDate(null, "fresh"));
+        assertFalse(strategy.isUpToDate(null, "stale"));
+    }
+
+    @Test
+    public void testAcceptsTheStoreOfItsInterceptor() {
+
+        final CacheMetadataStore metadataStore = mock(CacheMetadataStore.class);
+
+        new MaxAgeCacheStrategy(CLOCK, 5, TimeUnit.SECONDS, metadataStore).bindMetadataStore(metadataStore);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testRejectsStoresOtherThanTheStoreOfItsInterceptor() {
+
+        new MaxAgeCacheStrategy(CLOCK, 5, TimeUnit.SECONDS, mock(CacheMetadataStore.class))
+                .bindMetadataStore(mock(CacheMetadataStore.class));
+    }
+}
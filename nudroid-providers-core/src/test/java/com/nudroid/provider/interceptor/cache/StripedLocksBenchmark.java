@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.provider.interceptor.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the contention of the locks taken by {@link CacheInterceptor} for each request: {@link StripedLocks} against
+ * the synchronized map of one semaphore per cache id used before. Every request uses a different cache id, as when
+ * cache ids are generated from the request URIs.
+ * <p>
+ * Not part of the test suite. Run with <tt>java com.nudroid.provider.interceptor.cache.StripedLocksBenchmark
+ * [threads] [requestsPerThread]</tt>.
+ * 
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+public class StripedLocksBenchmark {
+
+    private static final int WARM_UP_ROUNDS = 3;
+
+    /**
+     * Gets the lock of a cache id.
+     */
+    private interface LockTable {
+
+        Semaphore get(String cacheId);
+
+        int locks();
+    }
+
+    /**
+     * The lock table previously used by CacheInterceptor.
+     */
+    private static class SynchronizedMapLockTable implements LockTable {
+
+        private final Map<String, Semaphore> mSemaphores = new HashMap<String, Semaphore>();
+
+        @Override
+        public Semaphore get(String cacheId) {
+
+            synchronized (mSemaphores) {
+
+                Semaphore semaphore = mSemaphores.get(cacheId);
+
+                if (semaphore == null) {
+                    semaphore = new Semaphore(1);
+                    mSemaphores.put(cacheId, semaphore);
+                }
+
+                return semaphore;
+            }
+        }
+
+        @Override
+        public int locks() {
+
+            synchronized (mSemaphores) {
+
+                return mSemaphores.size();
+            }
+        }
+    }
+
+    /**
+     * The lock table used by CacheInterceptor.
+     */
+    private static class StripedLockTable implements LockTable {
+
+        private final StripedLocks mLocks = new StripedLocks(CacheInterceptor.CACHE_LOCK_STRIPES);
+
+        @Override
+        public Semaphore get(String cacheId) {
+
+            return mLocks.get(cacheId);
+        }
+
+        @Override
+        public int locks() {
+
+            return mLocks.size();
+        }
+    }
+
+    /**
+     * Runs the benchmark.
+     * 
+     * @param args
+     *            The number of threads and the number of requests per thread.
+     * 
+     * @throws InterruptedException
+     *             If interrupted while waiting for the threads.
+     */
+    public static void main(String[] args) throws InterruptedException {
+
+        final int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime()
+                .availableProcessors() * 2;
+        final int requestsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 200000;
+
+        for (int round = 0; round < WARM_UP_ROUNDS; round++) {
+
+            run(new SynchronizedMapLockTable(), threads, requestsPerThread / 10);
+            run(new StripedLockTable(), threads, requestsPerThread / 10);
+        }
+
+        report("synchronized map", new SynchronizedMapLockTable(), threads, requestsPerThread);
+        report("striped locks", new StripedLockTable(), threads, requestsPerThread);
+    }
+
+    private static void report(String name, LockTable table, int threads, int requestsPerThread)
+            throws InterruptedException {
+
+        final long nanos = run(table, threads, requestsPerThread);
+        final long requests = (long) threads * requestsPerThread;
+
+        System.out.println(String.format("%-16s %2d threads: %8.1f ns/request, %10d requests/s, %8d locks", name,
+                threads, (double) nanos / requests, requests * 1000000000L / nanos, table.locks()));
+    }
+
+    private static long run(final LockTable table, int threads, final int requestsPerThread)
+            throws InterruptedException {
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        final AtomicLong checksum = new AtomicLong();
+
+        for (int t = 0; t < threads; t++) {
+
+            final int thread = t;
+
+            new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+
+                    long sum = 0;
+
+                    try {
+
+                        start.await();
+
+                        for (int i = 0; i < requestsPerThread; i++) {
+
+                            final String cacheId = "content://com.example/items?page=" + thread + "_" + i;
+                            final Semaphore semaphore = table.get(cacheId);
+
+                            semaphore.acquire();
+
+                            try {
+                                sum += cacheId.length();
+                            } finally {
+                                semaphore.release();
+                            }
+                        }
+                    } catch (InterruptedException e) {
+
+                        Thread.currentThread()
+                                .interrupt();
+                    } finally {
+
+                        checksum.addAndGet(sum);
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+
+        final long startNanos = System.nanoTime();
+        start.countDown();
+        done.await();
+
+        return System.nanoTime() - startNanos;
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.provider.interceptor.cache;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests {@link StripedLocks}.
+ * 
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+public class StripedLocksTest {
+
+    @Test
+    public void testRoundsStripesUpToPowersOfTwo() {
+
+        assertEquals(new StripedLocks(1).size(), 1);
+        assertEquals(new StripedLocks(16).size(), 16);
+        assertEquals(new StripedLocks(17).size(), 32);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testRejectsEmptyTables() {
+
+        new StripedLocks(0);
+    }
+
+    @Test
+    public void testMapsEqualKeysToTheSameSemaphore() {
+
+        final StripedLocks locks = new StripedLocks(16);
+
+        assertSame(locks.get(new String("cache")), locks.get(new String("cache")));
+    }
+
+    @Test
+    public void testHandsOutBinarySemaphores() {
+
+        final Semaphore semaphore = new StripedLocks(4).get("cache");
+
+        assertTrue(semaphore.tryAcquire());
+        assertFalse(semaphore.tryAcquire());
+        semaphore.release();
+        assertEquals(semaphore.availablePermits(), 1);
+    }
+
+    @Test
+    public void testSpreadsKeysDifferingInHighHashBits() {
+
+        final StripedLocks locks = new StripedLocks(16);
+        final Set<Semaphore> semaphores = Collections.newSetFromMap(new IdentityHashMap<Semaphore, Boolean>());
+
+        for (int i = 0; i < 16; i++) {
+            semaphores.add(locks.get(new HighBitsKey(i << 16)));
+        }
+
+        assertEquals(semaphores.size(), 16);
+    }
+
+    /* A key whose hash is given, to control the bits used to pick a stripe. */
+    private static final class HighBitsKey {
+
+        private final int mHash;
+
+        HighBitsKey(int hash) {
+
+            this.mHash = hash;
+        }
+
+        @Override
+        public int hashCode() {
+
+            return mHash;
+        }
+    }
+}
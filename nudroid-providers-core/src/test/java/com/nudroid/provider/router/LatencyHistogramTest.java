@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.provider.router;
+
+import static org.testng.Assert.assertEquals;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests {@link LatencyHistogram}.
+ * 
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBucketsByPowersOfTwo() {
+
+        assertEquals(LatencyHistogram.bucketOf(0), 0);
+        assertEquals(LatencyHistogram.bucketOf(1), 1);
+        assertEquals(LatencyHistogram.bucketOf(2), 2);
+        assertEquals(LatencyHistogram.bucketOf(3), 2);
+        assertEquals(LatencyHistogram.bucketOf(4), 3);
+        assertEquals(LatencyHistogram.bucketOf(1023), 10);
+        assertEquals(LatencyHistogram.bucketOf(1024), 11);
+        assertEquals(LatencyHistogram.bucketOf(Long.MAX_VALUE), LatencyHistogram.BUCKET_COUNT - 1);
+    }
+
+    @Test
+    public void testUpperBoundsMatchBuckets() {
+
+        for (int bucket = 0; bucket < LatencyHistogram.BUCKET_COUNT - 1; bucket++) {
+
+            final long upperBound = LatencyHistogram.getBucketUpperBoundNanos(bucket);
+
+            assertEquals(LatencyHistogram.bucketOf(upperBound), bucket);
+            assertEquals(LatencyHistogram.bucketOf(upperBound + 1), bucket + 1);
+        }
+
+        assertEquals(LatencyHistogram.getBucketUpperBoundNanos(LatencyHistogram.BUCKET_COUNT - 1), Long.MAX_VALUE);
+    }
+
+    @Test
+    public void testRecordsCountsAndTotals() {
+
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        histogram.record(-5);
+        histogram.record(3);
+        histogram.record(3);
+        histogram.record(1000);
+
+        final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(snapshot.getCount(), 4);
+        assertEquals(snapshot.getTotalNanos(), 1006);
+        assertEquals(snapshot.getMeanNanos(), 251);
+        assertEquals(snapshot.getBucketCount(0), 1);
+        assertEquals(snapshot.getBucketCount(2), 2);
+        assertEquals(snapshot.getBucketCount(10), 1);
+    }
+
+    @Test
+    public void testEstimatesPercentilesByBucketUpperBound() {
+
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        for (int i = 0; i < 99; i++) {
+            histogram.record(100);
+        }
+
+        histogram.record(5000);
+
+        final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(snapshot.getPercentileNanos(0), 127);
+        assertEquals(snapshot.getPercentileNanos(50), 127);
+        assertEquals(snapshot.getPercentileNanos(99), 127);
+        assertEquals(snapshot.getPercentileNanos(99.5), 8191);
+        assertEquals(snapshot.getPercentileNanos(100), 8191);
+    }
+
+    @Test
+    public void testEmptySnapshot() {
+
+        final LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+
+        assertEquals(snapshot.getCount(), 0);
+        assertEquals(snapshot.getMeanNanos(), 0);
+        assertEquals(snapshot.getPercentileNanos(99), 0);
+    }
+
+    @Test
+    public void testSumsRecordingsOfAllThreads() throws InterruptedException {
+
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final Thread[] threads = new Thread[16];
+
+        for (int i = 0; i < threads.length; i++) {
+
+            threads[i] = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+
+                    for (int j = 0; j < 1000; j++) {
+                        histogram.record(10);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(snapshot.getCount(), 16000);
+        assertEquals(snapshot.getTotalNanos(), 160000);
+        assertEquals(snapshot.getBucketCount(4), 16000);
+
+        histogram.reset();
+
+        assertEquals(histogram.snapshot().getCount(), 0);
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2014 Nurun Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.nudroid.provider.router;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests {@link QueryStringParser}. Values are kept unencoded: decoding is delegated to {@link android.net.Uri}, which
+ * is not available outside of a device.
+ * 
+ * @author <a href="mailto:daniel.mfreitas@gmail.com">Daniel Freitas</a>
+ */
+public class QueryStringParserTest {
+
+    private static final String[] NAMES = { "by", "q", "s" };
+
+    @Test
+    public void testReportsPresentParametersInMask() {
+
+        final String[] values = new String[NAMES.length];
+
+        assertEquals(QueryStringParser.parse("s=name&other=1&by=asc", NAMES, values), 0x5L);
+        assertEquals(values[0], "asc");
+        assertNull(values[1]);
+        assertEquals(values[2], "name");
+    }
+
+    @Test
+    public void testReportsNothingForMissingQuery() {
+
+        assertEquals(QueryStringParser.parse(null, NAMES, new String[NAMES.length]), 0L);
+        assertEquals(QueryStringParser.parse("", NAMES, new String[NAMES.length]), 0L);
+    }
+
+    @Test
+    public void testKeepsFirstValueOfRepeatedParameters() {
+
+        final String[] values = new String[NAMES.length];
+
+        assertEquals(QueryStringParser.parse("q=a&q=b", NAMES, values), 0x2L);
+        assertEquals(values[1], "a");
+    }
+
+    @Test
+    public void testReportsParametersWithoutValueAsEmpty() {
+
+        final String[] values = new String[NAMES.length];
+
+        assertEquals(QueryStringParser.parse("q&s=&&=x", NAMES, values), 0x6L);
+        assertEquals(values[1], "");
+        assertEquals(values[2], "");
+    }
+
+    @Test
+    public void testDoesNotMatchNamePrefixes() {
+
+        assertEquals(QueryStringParser.parse("qq=1&b=2", NAMES, new String[NAMES.length]), 0L);
+    }
+
+    @Test
+    public void testCollectsRepeatedParameterValues() {
+
+        final String[] values = new String[NAMES.length];
+        final String[] repeatedValues = new String[NAMES.length];
+
+        final long mask = QueryStringParser.parse("q=1,2&by=x&q=&q=4&by=y", NAMES, values, 0x2L, repeatedValues);
+
+        assertEquals(mask, 0x3L);
+        assertEquals(values[0], "x");
+        assertEquals(values[1], "1,2");
+        assertEquals(repeatedValues[1], "1,2,4");
+        assertNull(repeatedValues[0]);
+    }
+
+    @Test
+    public void testParsesCommaSeparatedAndRepeatedLongValues() {
+
+        assertEquals(QueryStringParser.parseLongValues("ids=1,2&x=3&ids=&ids=4", "ids"), new long[] { 1, 2, 4 });
+        assertEquals(QueryStringParser.parseLongValues("ids=1&ids=2", "ids"), new long[] { 1, 2 });
+        assertEquals(QueryStringParser.parseLongValues("x=1", "ids"), new long[0]);
+        assertEquals(QueryStringParser.parseLongValues(null, "ids"), new long[0]);
+    }
+
+    @Test
+    public void testParsesCommaLists() {
+
+        assertEquals(QueryStringParser.parseLongValues(",1,,-2,"), new long[] { 1, -2 });
+        assertEquals(QueryStringParser.parseLongValues("1,2,3,4,5,6,7,8,9"), new long[] { 1, 2, 3, 4, 5, 6, 7, 8, 9 });
+        assertEquals(QueryStringParser.parseLongValues((String) null), new long[0]);
+    }
+
+    @Test(expectedExceptions = NumberFormatException.class)
+    public void testRejectsInvalidLongValues() {
+
+        QueryStringParser.parseLongValues("1,a");
+    }
+}